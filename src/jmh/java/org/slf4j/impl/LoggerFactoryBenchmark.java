@@ -0,0 +1,70 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.Logger;
+
+/**
+ * Measures the logger lookup and the tag computation, for various logger name shapes and with and without
+ * {@link HandroidConfig#getAppName()}.
+ * @author mvy
+ */
+@State(Scope.Benchmark)
+public class LoggerFactoryBenchmark {
+    @Param({"MyClass", "org.example.MyClass", "org.example.myproject.mypackage.MyClass", "org.example.myproject.mypackage.AVeryLongClassNameWhichIsTruncated"})
+    public String loggerName;
+
+    @Param({"", "MyApp"})
+    public String appName;
+
+    private AndroidLoggerFactory factory;
+
+    @Setup
+    public void setup() {
+        HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setAppName(appName.isEmpty() ? null : appName).build());
+        factory = new AndroidLoggerFactory();
+        factory.getLogger(loggerName);
+    }
+
+    @TearDown
+    public void tearDown() {
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+    }
+
+    @Benchmark
+    public Logger getLogger() {
+        return factory.getLogger(loggerName);
+    }
+
+    @Benchmark
+    public String loggerNameToTag() {
+        return AndroidLoggerFactory.loggerNameToTag(loggerName);
+    }
+}
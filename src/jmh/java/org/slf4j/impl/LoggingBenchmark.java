@@ -0,0 +1,83 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.Logger;
+
+/**
+ * Measures the log calls: a call at a disabled level, which should cost next to nothing, and the formatting of enabled
+ * calls with one, two and N arguments. The messages are passed to the JVM stand-in for {@link Log} which discards them.
+ * @author mvy
+ */
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+    private final Logger logger = new AndroidLoggerFactory().getLogger("org.example.myproject.MyClass");
+    private final Integer count = 42;
+    private final String user = "john.doe";
+    private final Object[] arguments = {"john.doe", 42, 3.14, true};
+
+    @Setup
+    public void setup() {
+        Log.reset();
+        Log.recording = false;
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Log.reset();
+    }
+
+    @Benchmark
+    public void disabledLevel() {
+        logger.debug("Loaded {} items for {}", count, user);
+    }
+
+    @Benchmark
+    public void noArguments() {
+        logger.info("Loaded the items");
+    }
+
+    @Benchmark
+    public void oneArgument() {
+        logger.info("Loaded {} items", count);
+    }
+
+    @Benchmark
+    public void twoArguments() {
+        logger.info("Loaded {} items for {}", count, user);
+    }
+
+    @Benchmark
+    public void nArguments() {
+        logger.info("User {} loaded {} items in {} s, cached: {}", arguments);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.net.UnknownHostException;
+
+/**
+ * Measures the post-processing of the message (see {@link LogMessageSanitizer}) and the stack trace rendering.
+ * @author mvy
+ */
+@State(Scope.Benchmark)
+public class MessageRenderingBenchmark {
+    private final String cleanMessage = "Loaded 42 items for john.doe in 3.14 s";
+    private final String dirtyMessage = "Loaded 42 items\r\n\n\tfor john.doe\n\nin 3.14 s\n";
+    private final Exception exception = new RuntimeException("Failed to load the items", new UnknownHostException("example.com"));
+
+    @Benchmark
+    public String sanitizeCleanMessage() {
+        return LogMessageSanitizer.sanitize(cleanMessage);
+    }
+
+    @Benchmark
+    public String sanitizeDirtyMessage() {
+        return LogMessageSanitizer.sanitize(dirtyMessage);
+    }
+
+    @Benchmark
+    public String getStackTraceString() {
+        return HandroidLoggerAdapter.getStackTraceString(exception);
+    }
+
+    @Benchmark
+    public String renderWithStackTrace() {
+        return HandroidLoggerAdapter.render(cleanMessage, exception);
+    }
+}
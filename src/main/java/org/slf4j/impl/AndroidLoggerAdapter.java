@@ -25,15 +25,16 @@
 package org.slf4j.impl;
 
 import android.util.Log;
-import org.slf4j.helpers.FormattingTuple;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Marker;
 import org.slf4j.helpers.MarkerIgnoringBase;
-import org.slf4j.helpers.MessageFormatter;
 
 /**
  * <p>A simple implementation that delegates all log requests to the Google Android
- * logging facilities. Note that this logger does not support {@link org.slf4j.Marker}.
- * Methods taking marker data as parameter simply invoke the eponymous method
- * without the Marker argument, discarding any marker data in the process.</p>
+ * logging facilities. Methods taking marker data as parameter check the marker against the marker filter
+ * (see {@link HandroidLoggerAdapter#setMarkerEnabled(String, boolean)}) and then invoke the eponymous method
+ * without the Marker argument.</p>
  *
  * <p>The logging levels specified for SLF4J can be almost directly mapped to
  * the levels that exist in the Google Android platform. The following table
@@ -59,6 +60,10 @@ import org.slf4j.helpers.MessageFormatter;
  *         <code>logger.debug("Some log message. Details: {}", someObject);</code><br/>
  *         <code>logger.debug("Some log message with varargs. Details: {}, {}, {}", someObject1, someObject2, someObject3);</code>
  *     </li>
+ *     <li>
+ *         Compute expensive messages only if they are logged, see {@link LazyLogger}, e.g.,<br/>
+ *         <code>((LazyLogger) logger).debug(DUMP_STATE);</code>
+ *     </li>
  * </ul>
  * </p>
  *
@@ -78,7 +83,7 @@ import org.slf4j.helpers.MessageFormatter;
  *
  * @author Andrey Korzhevskiy <a.korzhevskiy@gmail.com>
  */
-class AndroidLoggerAdapter extends MarkerIgnoringBase {
+class AndroidLoggerAdapter extends MarkerIgnoringBase implements LazyLogger {
     private static final long serialVersionUID = -1227274521521287937L;
 
     /**
@@ -526,23 +531,416 @@ class AndroidLoggerAdapter extends MarkerIgnoringBase {
         log(Log.ERROR, msg, t);
     }
 
-    private void formatAndLog(int priority, String format, Object... argArray) {
-        if (isLoggable(priority)) {
-            FormattingTuple ft = MessageFormatter.arrayFormat(format, argArray);
-            logInternal(priority, ft.getMessage(), ft.getThrowable());
+    // the Marker variants override the marker-ignoring ones; unmarked calls never reach the marker filter
+
+    public boolean isTraceEnabled(Marker marker) {
+        return isTraceEnabled() && HandroidMarkerFactory.isEnabled(marker);
+    }
+
+    public void trace(Marker marker, String msg) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            trace(msg);
+        }
+    }
+
+    public void trace(Marker marker, String format, Object arg) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            trace(format, arg);
+        }
+    }
+
+    public void trace(Marker marker, String format, Object arg1, Object arg2) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            trace(format, arg1, arg2);
+        }
+    }
+
+    public void trace(Marker marker, String format, Object... arguments) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            trace(format, arguments);
+        }
+    }
+
+    public void trace(Marker marker, String msg, Throwable t) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            trace(msg, t);
+        }
+    }
+
+    public boolean isDebugEnabled(Marker marker) {
+        return isDebugEnabled() && HandroidMarkerFactory.isEnabled(marker);
+    }
+
+    public void debug(Marker marker, String msg) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            debug(msg);
+        }
+    }
+
+    public void debug(Marker marker, String format, Object arg) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            debug(format, arg);
+        }
+    }
+
+    public void debug(Marker marker, String format, Object arg1, Object arg2) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            debug(format, arg1, arg2);
+        }
+    }
+
+    public void debug(Marker marker, String format, Object... arguments) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            debug(format, arguments);
+        }
+    }
+
+    public void debug(Marker marker, String msg, Throwable t) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            debug(msg, t);
+        }
+    }
+
+    public boolean isInfoEnabled(Marker marker) {
+        return isInfoEnabled() && HandroidMarkerFactory.isEnabled(marker);
+    }
+
+    public void info(Marker marker, String msg) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            info(msg);
+        }
+    }
+
+    public void info(Marker marker, String format, Object arg) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            info(format, arg);
+        }
+    }
+
+    public void info(Marker marker, String format, Object arg1, Object arg2) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            info(format, arg1, arg2);
+        }
+    }
+
+    public void info(Marker marker, String format, Object... arguments) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            info(format, arguments);
+        }
+    }
+
+    public void info(Marker marker, String msg, Throwable t) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            info(msg, t);
+        }
+    }
+
+    public boolean isWarnEnabled(Marker marker) {
+        return isWarnEnabled() && HandroidMarkerFactory.isEnabled(marker);
+    }
+
+    public void warn(Marker marker, String msg) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            warn(msg);
+        }
+    }
+
+    public void warn(Marker marker, String format, Object arg) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            warn(format, arg);
+        }
+    }
+
+    public void warn(Marker marker, String format, Object arg1, Object arg2) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            warn(format, arg1, arg2);
+        }
+    }
+
+    public void warn(Marker marker, String format, Object... arguments) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            warn(format, arguments);
+        }
+    }
+
+    public void warn(Marker marker, String msg, Throwable t) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            warn(msg, t);
+        }
+    }
+
+    public boolean isErrorEnabled(Marker marker) {
+        return isErrorEnabled() && HandroidMarkerFactory.isEnabled(marker);
+    }
+
+    public void error(Marker marker, String msg) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            error(msg);
+        }
+    }
+
+    public void error(Marker marker, String format, Object arg) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            error(format, arg);
+        }
+    }
+
+    public void error(Marker marker, String format, Object arg1, Object arg2) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            error(format, arg1, arg2);
+        }
+    }
+
+    public void error(Marker marker, String format, Object... arguments) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            error(format, arguments);
+        }
+    }
+
+    public void error(Marker marker, String msg, Throwable t) {
+        if (HandroidMarkerFactory.isEnabled(marker)) {
+            error(msg, t);
+        }
+    }
+
+    public void trace(@NotNull LogSupplier message) {
+        log(Log.VERBOSE, message);
+    }
+
+    public <T> void trace(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        log(Log.VERBOSE, message, input);
+    }
+
+    public void debug(@NotNull LogSupplier message) {
+        log(Log.DEBUG, message);
+    }
+
+    public <T> void debug(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        log(Log.DEBUG, message, input);
+    }
+
+    public void info(@NotNull LogSupplier message) {
+        log(Log.INFO, message);
+    }
+
+    public <T> void info(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        log(Log.INFO, message, input);
+    }
+
+    public void warn(@NotNull LogSupplier message) {
+        log(Log.WARN, message);
+    }
+
+    public <T> void warn(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        log(Log.WARN, message, input);
+    }
+
+    public void error(@NotNull LogSupplier message) {
+        log(Log.ERROR, message);
+    }
+
+    public <T> void error(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        log(Log.ERROR, message, input);
+    }
+
+    // the formatAndLog() and log() methods are package-visible for the SLF4J 2.x fluent API, see HandroidEventBuilder
+    void formatAndLog(int priority, String format, Object arg) {
+        final FlightRecorder recorder = FlightRecorder.current;
+        if (recorder != null) {
+            recorder.record(priority, name, format, 1, arg, null);
+        }
+        final Sampler.Rule sampling = getSampling(priority);
+        if (isEnabled(priority, sampling)) {
+            if (sampling != null) {
+                format = sampling.mark(format);
+            }
+            if (arg instanceof Throwable) {
+                if (!isThrottled(priority, format, 0, null, null, null, (Throwable) arg)) {
+                    logInternal(priority, format, (Throwable) arg);
+                }
+            } else if (!isThrottled(priority, format, 1, arg, null, null, null)) {
+                logInternal(priority, format, 1, arg, null, null, null);
+            }
+        }
+    }
+
+    void formatAndLog(int priority, String format, Object arg1, Object arg2) {
+        final FlightRecorder recorder = FlightRecorder.current;
+        if (recorder != null) {
+            recorder.record(priority, name, format, 2, arg1, arg2);
+        }
+        final Sampler.Rule sampling = getSampling(priority);
+        if (isEnabled(priority, sampling)) {
+            if (sampling != null) {
+                format = sampling.mark(format);
+            }
+            if (arg2 instanceof Throwable) {
+                if (!isThrottled(priority, format, 1, arg1, null, null, (Throwable) arg2)) {
+                    logInternal(priority, format, 1, arg1, null, null, (Throwable) arg2);
+                }
+            } else if (!isThrottled(priority, format, 2, arg1, arg2, null, null)) {
+                logInternal(priority, format, 2, arg1, arg2, null, null);
+            }
+        }
+    }
+
+    void formatAndLog(int priority, String format, Object... argArray) {
+        final FlightRecorder recorder = FlightRecorder.current;
+        if (recorder != null) {
+            recorder.record(priority, name, format, argArray);
+        }
+        final Sampler.Rule sampling = getSampling(priority);
+        if (isEnabled(priority, sampling)) {
+            if (sampling != null) {
+                format = sampling.mark(format);
+            }
+            // same as MessageFormatter.arrayFormat(): a trailing Throwable is logged as an exception rather than formatted
+            if (argArray == null) {
+                if (!isThrottled(priority, format, 0, null, null, null, null)) {
+                    logInternal(priority, format, null);
+                }
+                return;
+            }
+            final int count = argArray.length;
+            final Throwable throwable = count > 0 && argArray[count - 1] instanceof Throwable ? (Throwable) argArray[count - 1] : null;
+            final int argCount = throwable == null ? count : count - 1;
+            if (!isThrottled(priority, format, argCount, null, null, argArray, throwable)) {
+                logInternal(priority, format, argCount, null, null, argArray, throwable);
+            }
+        }
+    }
+
+    void log(int priority, String message, Throwable throwable) {
+        final FlightRecorder recorder = FlightRecorder.current;
+        if (recorder != null) {
+            recorder.record(priority, name, message, throwable);
+        }
+        final Sampler.Rule sampling = getSampling(priority);
+        if (isEnabled(priority, sampling)) {
+            if (sampling != null) {
+                message = sampling.mark(message);
+            }
+            if (!isThrottled(priority, message, 0, null, null, null, throwable)) {
+                logInternal(priority, message, throwable);
+            }
+        }
+    }
+
+    private void log(int priority, LogSupplier message) {
+        final FlightRecorder recorder = FlightRecorder.current;
+        if (recorder != null) {
+            // the supplier is resolved by the formatter when the recorder is dumped
+            recorder.record(priority, name, "{}", 1, message, null);
+        }
+        final Sampler.Rule sampling = getSampling(priority);
+        if (isEnabled(priority, sampling)) {
+            logComputed(priority, sampling, HandroidMessageFormatter.get(message));
         }
     }
 
-    private void log(int priority, String message, Throwable throwable) {
+    private <T> void log(int priority, LogFunction<? super T> message, T input) {
+        final FlightRecorder recorder = FlightRecorder.current;
+        if (recorder != null) {
+            recorder.record(priority, name, message, input);
+        }
+        final Sampler.Rule sampling = getSampling(priority);
+        if (isEnabled(priority, sampling)) {
+            logComputed(priority, sampling, HandroidMessageFormatter.apply(message, input));
+        }
+    }
+
+    /**
+     * Logs the value computed by a {@link LogSupplier} or a {@link LogFunction} as the argument of a constant format,
+     * so that the rate limiter and the sinks see a single call site rather than a new format for every value.
+     */
+    private void logComputed(int priority, Sampler.Rule sampling, Object value) {
+        final String format = sampling != null ? sampling.mark("{}") : "{}";
+        if (!isThrottled(priority, format, 1, value, null, null, null)) {
+            logInternal(priority, format, 1, value, null, null, null);
+        }
+    }
+
+    /**
+     * @return the sampling rule to apply to a message of given priority; null if the priority is loggable anyway, so
+     * that a sampling rule never drops messages which would be logged without it, e.g. in a debug build.
+     */
+    private Sampler.Rule getSampling(int priority) {
+        return isLoggable(priority) ? null : Sampler.getRule(getLoggerName(), priority);
+    }
+
+    /**
+     * @param sampling the sampling rule of the priority, see {@link #getSampling(int)}: it replaces the level check,
+     *                 but not the {@link #isSamplingAllowed(int) gates} which would refuse the message anyway.
+     * @return true if the message passes the level check or the sampling.
+     */
+    private boolean isEnabled(int priority, Sampler.Rule sampling) {
+        if (sampling != null) {
+            return isSamplingAllowed(priority) && sampling.sample();
+        }
         if (isLoggable(priority)) {
-            logInternal(priority, message, throwable);
+            return true;
         }
+        final LogMetrics metrics = LogMetrics.current;
+        if (metrics != null) {
+            metrics.recordSuppressed(priority);
+        }
+        return false;
+    }
+
+    /**
+     * Consults the {@link RateLimiter}, if enabled. Called before the message is formatted.
+     * @return true if the message must not be logged.
+     */
+    private boolean isThrottled(int priority, String format, int argCount, Object arg1, Object arg2, Object[] args, Throwable throwable) {
+        final RateLimiter limiter = RateLimiter.current;
+        return limiter != null && !limiter.tryAcquire(this, priority, format, argCount, arg1, arg2, args, throwable);
     }
 
     protected boolean isLoggable(int priority) {
         return Log.isLoggable(name, priority);
     }
 
+    /**
+     * Tells whether the messages of given priority may be sampled at all, see {@link Sampler}. A sampling rule replaces
+     * the {@link #isLoggable(int)} check, but the messages refused by the configured thresholds or by all sinks must
+     * not be formatted just to be thrown away.
+     */
+    boolean isSamplingAllowed(int priority) {
+        return true;
+    }
+
+    /**
+     * @return the name the logger has been requested by. Unlike the tag, it is never truncated, so it identifies the
+     * logger e.g. for the {@link RateLimiter}.
+     */
+    String getLoggerName() {
+        return name;
+    }
+
+    /**
+     * Formats the message and logs it. Subclasses may override this to defer the formatting.
+     * @param argCount the number of arguments
+     * @param args if not null, the first <code>argCount</code> arguments are taken from this array; otherwise
+     *             <code>arg1</code> and <code>arg2</code> are used.
+     * @param throwable the exception to log, not part of the arguments.
+     */
+    protected void logInternal(int priority, String format, int argCount, Object arg1, Object arg2, Object[] args, Throwable throwable) {
+        logInternal(priority, format(format, argCount, arg1, arg2, args), throwable);
+    }
+
+    /**
+     * Formats the message; the arguments are passed as to {@link #logInternal(int, String, int, Object, Object, Object[], Throwable)}.
+     */
+    static String format(String format, int argCount, Object arg1, Object arg2, Object[] args) {
+        if (args != null) {
+            return HandroidMessageFormatter.format(format, args, argCount);
+        } else if (argCount == 1) {
+            return HandroidMessageFormatter.format(format, arg1);
+        } else {
+            return HandroidMessageFormatter.format(format, arg1, arg2);
+        }
+    }
+
     protected void logInternal(int priority, String message, Throwable throwable) {
         if (throwable != null) {
             message += '\n' + Log.getStackTraceString(throwable);
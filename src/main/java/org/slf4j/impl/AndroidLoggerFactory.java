@@ -24,6 +24,7 @@
  */
 package org.slf4j.impl;
 
+import org.jetbrains.annotations.NotNull;
 import org.slf4j.ILoggerFactory;
 import org.slf4j.Logger;
 
@@ -40,34 +41,43 @@ class AndroidLoggerFactory implements ILoggerFactory {
     static final String ANONYMOUS_TAG = "null";
 
     /**
-     * Returns maximum tag name for Android. Androids 25 and earlier would fail if the tag name was longer than 23 characters.
-     * See https://github.com/mvysny/slf4j-handroid/issues/2 for more details.
-     * @return 23 on Androids 25 and lower, 1000 on Androids 26 and higher.
+     * Maps logger names to loggers, so that the tag is computed only once per logger name: calling
+     * {@link #getLogger(String)} repeatedly with the same name is just a single map lookup. Every logger name has its own
+     * logger, since the level thresholds are configured by the logger name, see {@link HandroidLoggerAdapter#setLevel(String, int)}.
+     * Loggers whose names map to the same tag log under the same tag.
      */
-    private static int getTagMaxLength() {
-        return HandroidLoggerAdapter.ANDROID_API_LEVEL >= 26 ? 1000 : 23;
-    }
-
-    private final ConcurrentMap<String, Logger> loggerMap = new ConcurrentHashMap<String, Logger>();
+    private final ConcurrentMap<String, Logger> loggerByName = new ConcurrentHashMap<String, Logger>();
 
     /**
-     * Return an appropriate {@link AndroidLoggerAdapter} instance by name.
+     * Return an appropriate {@link DelegatingLogger} instance by name.
      */
     public Logger getLogger(String name) {
-        String tag = loggerNameToTag(name);
-        Logger logger = loggerMap.get(tag);
+        // ConcurrentHashMap doesn't allow null keys; the anonymous logger is the same as the logger named "null".
+        final String key = name == null ? ANONYMOUS_TAG : name;
+        Logger logger = loggerByName.get(key);
         if (logger == null) {
-            Logger newInstance = new HandroidLoggerAdapter(tag);
-            Logger oldInstance = loggerMap.putIfAbsent(tag, newInstance);
-            logger = oldInstance == null ? newInstance : oldInstance;
+            // the tag is resolved by the logger on its first call
+            logger = newLogger(key);
+            final Logger oldInstance = loggerByName.putIfAbsent(key, logger);
+            if (oldInstance != null) {
+                logger = oldInstance;
+            }
         }
         return logger;
     }
 
     /**
-     * Tag names cannot be longer than {@link #getTagMaxLength} characters on Android platform.
+     * Creates a new logger; overridden by the SLF4J 2.x binding to create loggers supporting the fluent API.
+     * @param loggerName the logger name, not null.
+     */
+    DelegatingLogger newLogger(String loggerName) {
+        return new DelegatingLogger(loggerName);
+    }
+
+    /**
+     * Tag names cannot be longer than 23 characters on Androids 25 and lower, see {@link HandroidConfig#getAndroidApiLevel()}.
      *
-     * Returns the short logger tag (up to {@link #getTagMaxLength} characters) for the given logger name.
+     * Returns the short logger tag for the given logger name, according to the current {@link HandroidConfig}.
      * Traditionally loggers are named by fully-qualified Java classes; this
      * method attempts to return a concise identifying part of such names.
      *
@@ -78,21 +88,30 @@ class AndroidLoggerFactory implements ILoggerFactory {
      *
      */
     static String loggerNameToTag(String loggerName) {
+        return loggerNameToTag(loggerName, HandroidConfig.current);
+    }
+
+    /**
+     * Same as {@link #loggerNameToTag(String)}, for given configuration: the app name and the maximum tag length are
+     * read just once.
+     */
+    static String loggerNameToTag(String loggerName, @NotNull HandroidConfig config) {
         // Anonymous logger
         if (loggerName == null) {
             return ANONYMOUS_TAG;
         }
 
         final int length = loggerName.length();
-        final int tagMaxLength = getTagMaxLength();
-        if (length <= tagMaxLength && HandroidLoggerAdapter.APP_NAME == null) {
+        final int tagMaxLength = config.tagMaxLength;
+        final String appName = config.getAppName();
+        if (length <= tagMaxLength && appName == null) {
             return loggerName;
         }
 
-        if (HandroidLoggerAdapter.APP_NAME != null) {
+        if (appName != null) {
             final int lastDot = loggerName.lastIndexOf('.');
             final String className = lastDot < 0 ? loggerName : loggerName.substring(lastDot + 1, length);
-            String name = HandroidLoggerAdapter.APP_NAME + ":" + className;
+            String name = appName + ":" + className;
             if (name.length() > tagMaxLength) {
                 name = name.substring(0, tagMaxLength - 1) + '*';
             }
@@ -116,7 +135,7 @@ class AndroidLoggerFactory implements ILoggerFactory {
             // check if name is already too long
             tagLength = tagName.length();
             if (tagLength > tagMaxLength) {
-                return getSimpleName(loggerName);
+                return getSimpleName(loggerName, tagMaxLength);
             }
         }
 
@@ -124,7 +143,7 @@ class AndroidLoggerFactory implements ILoggerFactory {
         // or last token would exceed TAG_MAX_LENGTH
         int tokenLength = length - lastTokenIndex;
         if (tagLength == 0 || (tagLength + tokenLength) > tagMaxLength) {
-            return getSimpleName(loggerName);
+            return getSimpleName(loggerName, tagMaxLength);
         }
 
         // last token (usually class name) appended as is
@@ -132,11 +151,11 @@ class AndroidLoggerFactory implements ILoggerFactory {
         return tagName.toString();
     }
 
-    private static String getSimpleName(String loggerName) {
+    private static String getSimpleName(String loggerName, int tagMaxLength) {
         // Take leading part and append '*' to indicate that it was truncated
         int length = loggerName.length();
         int lastPeriodIndex = loggerName.lastIndexOf('.');
-        return lastPeriodIndex != -1 && length - (lastPeriodIndex + 1) <= getTagMaxLength() ? loggerName.substring(lastPeriodIndex + 1) : '*' + loggerName
-                        .substring(length - getTagMaxLength() + 1);
+        return lastPeriodIndex != -1 && length - (lastPeriodIndex + 1) <= tagMaxLength ? loggerName.substring(lastPeriodIndex + 1) : '*' + loggerName
+                        .substring(length - tagMaxLength + 1);
     }
 }
\ No newline at end of file
@@ -0,0 +1,305 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes log messages on a dedicated daemon thread, so that the logging thread (often the UI thread) does not pay for
+ * the post-processing and for the call to logcat. The messages are passed through a bounded lock-free multi-producer
+ * single-consumer ring buffer; the messages logged by a single thread are always written in the order they were logged.
+ * <p></p>
+ * The ring buffer is the one described by Dmitry Vyukov: every slot carries a sequence number which tells whether the slot
+ * is free to be written by the producer claiming position <code>pos</code> (sequence equals <code>pos</code>) or is ready
+ * to be consumed (sequence equals <code>pos + 1</code>).
+ * @author mvy
+ */
+final class AsyncLogDispatcher implements Runnable {
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    /**
+     * The largest capacity which can be rounded up to a power of two without overflowing.
+     */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private final AtomicReferenceArray<LogEvent> buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AsyncOverflowPolicy policy;
+    /**
+     * Low-priority messages are dropped once the queue holds this many messages, see {@link AsyncOverflowPolicy#DROP_LOWER_PRIORITY}.
+     */
+    private final int lowPriorityLimit;
+    /**
+     * The next position to be claimed by a producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * The next position to be consumed. Only written by the drainer thread; incremented only after the message has been
+     * written, so that {@link #flush()} can wait for it.
+     */
+    private volatile long head = 0;
+    private final AtomicLong dropped = new AtomicLong();
+    /**
+     * The {@link #dropped} count already reported. Only written by the drainer thread.
+     */
+    private volatile long droppedReported = 0;
+    private volatile boolean sleeping = false;
+    private volatile boolean running = true;
+    private final Thread thread;
+
+    /**
+     * Creates the dispatcher and starts the drainer thread.
+     * @param capacity the queue capacity, rounded up to the nearest power of two; 2..{@link #MAX_CAPACITY}.
+     * @param policy what to do when the queue is full.
+     */
+    AsyncLogDispatcher(int capacity, @NotNull AsyncOverflowPolicy policy) {
+        if (capacity < 2 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Parameter capacity: invalid value " + capacity + ": must be 2.." + MAX_CAPACITY);
+        }
+        final int size = Integer.highestOneBit(capacity - 1) << 1;
+        buffer = new AtomicReferenceArray<LogEvent>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+        this.policy = policy;
+        lowPriorityLimit = size - size / 4;
+        thread = new Thread(this, "slf4j-handroid-async");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Enqueues the message to be written by the drainer thread. May block or drop the message if the queue is full,
+     * depending on the {@link AsyncOverflowPolicy}. Messages dispatched after {@link #shutdown()} are written by the
+     * calling thread, once the drainer thread has written the pending messages.
+     */
+    void dispatch(@NotNull LogEvent event) {
+        if (!running) {
+            writeAfterShutdown(event);
+            return;
+        }
+        if (policy == AsyncOverflowPolicy.DROP_LOWER_PRIORITY && event.priority < Log.WARN
+                && tail.get() - head >= lowPriorityLimit) {
+            dropped.incrementAndGet();
+            return;
+        }
+        long pos;
+        while ((pos = offer(event)) < 0) {
+            if (!running) {
+                writeAfterShutdown(event);
+                return;
+            }
+            if (policy == AsyncOverflowPolicy.DROP_NEWEST || Thread.currentThread() == thread) {
+                // the drainer thread (a sink which logs) must not wait for itself
+                dropped.incrementAndGet();
+                return;
+            }
+            wakeUp();
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        if (!running && Thread.currentThread() != thread) {
+            // we raced with shutdown(): the drainer thread may have finished before it could see the message
+            awaitTermination();
+            if (head <= pos) {
+                write(event);
+            }
+            return;
+        }
+        if (sleeping) {
+            wakeUp();
+        }
+    }
+
+    /**
+     * @return the position the message was stored at, -1 if the queue is full.
+     */
+    private long offer(@NotNull LogEvent event) {
+        long pos = tail.get();
+        while (true) {
+            final int index = (int) pos & mask;
+            final long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer.set(index, event);
+                    // a volatile write: the check of running in dispatch() must not be reordered before it, or
+                    // the final drain might miss the message
+                    sequences.set(index, pos + 1);
+                    return pos;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // the slot still holds the message from the previous lap: the queue is full
+                return -1;
+            } else {
+                // another producer claimed this position in the meantime
+                pos = tail.get();
+            }
+        }
+    }
+
+    private void wakeUp() {
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * @return the number of messages dropped so far because the queue was full.
+     */
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Blocks until all messages dispatched before this call have been written, including the report of the messages
+     * dropped so far.
+     */
+    void flush() {
+        if (Thread.currentThread() == thread) {
+            return;
+        }
+        final long target = tail.get();
+        final long droppedTarget = dropped.get();
+        while ((head < target || droppedReported < droppedTarget) && thread.isAlive()) {
+            wakeUp();
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    /**
+     * Writes all pending messages and stops the drainer thread. Messages dispatched afterwards are written by the
+     * logging thread.
+     */
+    void shutdown() {
+        running = false;
+        wakeUp();
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Writes the message from the calling thread, after the older messages of the calling thread still in the queue.
+     */
+    private void writeAfterShutdown(@NotNull LogEvent event) {
+        if (Thread.currentThread() != thread) {
+            awaitTermination();
+        }
+        write(event);
+    }
+
+    private void awaitTermination() {
+        while (thread.isAlive()) {
+            wakeUp();
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            if (drain()) {
+                continue;
+            }
+            reportDropped();
+            if (!running) {
+                // drain the messages which might have been dispatched while we were stopping, including the ones
+                // whose producers have claimed a slot but haven't stored the message yet: the messages in the
+                // following slots would be lost otherwise. Producers claiming a slot from now on see running == false.
+                while (head != tail.get()) {
+                    if (!drain()) {
+                        LockSupport.parkNanos(PARK_NANOS);
+                    }
+                }
+                reportDropped();
+                return;
+            }
+            sleeping = true;
+            // re-check the queue: a producer might have enqueued a message before noticing we're going to sleep
+            if (!isEmpty()) {
+                sleeping = false;
+                continue;
+            }
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            sleeping = false;
+        }
+    }
+
+    private boolean isEmpty() {
+        final long pos = head;
+        return sequences.get((int) pos & mask) != pos + 1;
+    }
+
+    /**
+     * Writes all messages currently in the queue.
+     * @return true if at least one message was written.
+     */
+    private boolean drain() {
+        boolean any = false;
+        long pos = head;
+        while (true) {
+            final int index = (int) pos & mask;
+            if (sequences.get(index) != pos + 1) {
+                return any;
+            }
+            final LogEvent event = buffer.get(index);
+            write(event);
+            buffer.lazySet(index, null);
+            sequences.lazySet(index, pos + mask + 1);
+            head = ++pos;
+            any = true;
+        }
+    }
+
+    private void reportDropped() {
+        final long droppedNow = dropped.get();
+        if (droppedNow != droppedReported) {
+            write(new LogEvent(Log.WARN, "slf4j-handroid", "Dropped " + (droppedNow - droppedReported)
+                    + " log message(s) since the async logging queue was full", null));
+            droppedReported = droppedNow;
+        }
+    }
+
+    private static void write(@NotNull LogEvent event) {
+        try {
+            LogSinks.write(event);
+        } catch (RuntimeException e) {
+            // don't let a single failing message kill the drainer thread
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+/**
+ * Tells what to do with a log message when the async logging queue is full. See
+ * {@link HandroidLoggerAdapter#enableAsyncLogging(int, AsyncOverflowPolicy)} for details.
+ * @author mvy
+ */
+public enum AsyncOverflowPolicy {
+    /**
+     * The logging thread waits until there is room in the queue. Nothing is lost, but the logging thread may stall.
+     */
+    BLOCK,
+    /**
+     * The message being logged is dropped. The logging thread never stalls.
+     */
+    DROP_NEWEST,
+    /**
+     * Once the queue is 3/4 full, messages below {@link android.util.Log#WARN} are dropped; the remaining room is reserved
+     * for warnings and errors. When the queue is completely full, warnings and errors wait until there is room in the queue.
+     */
+    DROP_LOWER_PRIORITY
+}
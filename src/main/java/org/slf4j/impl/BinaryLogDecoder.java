@@ -0,0 +1,289 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Converts the files written by {@link BinaryLogSink} back to text, in the same format as {@link RollingFileSink} uses:
+ * <code>2015-10-17 22:19:00.123 W/MyTag: message</code>. The messages are formatted exactly as
+ * {@link HandroidLoggerAdapter} would have formatted them on the device, in the time zone of the device. Runs on a
+ * desktop JVM:
+ * <pre>
+ * java -cp handroid.jar:slf4j-api.jar org.slf4j.impl.BinaryLogDecoder app.hlog &gt; app.log
+ * </pre>
+ * @author mvy
+ */
+public final class BinaryLogDecoder {
+    private static final char[] PRIORITY_LETTERS = {'?', '?', 'V', 'D', 'I', 'W', 'E', 'A'};
+
+    @NotNull
+    private final InputStream in;
+    @NotNull
+    private final Appendable out;
+    @NotNull
+    private final List<String> dictionary = new ArrayList<String>();
+    @Nullable
+    private SimpleDateFormat dateFormat;
+    private long lastTimestamp;
+
+    private BinaryLogDecoder(@NotNull InputStream in, @NotNull Appendable out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    /**
+     * Decodes given files and prints them to the standard output.
+     * @param args the file names.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: java org.slf4j.impl.BinaryLogDecoder file...");
+            System.exit(1);
+        }
+        final Writer out = new OutputStreamWriter(System.out, "UTF-8");
+        for (String arg : args) {
+            final InputStream in = new BufferedInputStream(new FileInputStream(arg));
+            try {
+                decode(in, out);
+            } finally {
+                in.close();
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Decodes the binary log and writes it as text lines.
+     * @param in the data written by {@link BinaryLogSink}, possibly several sessions appended to each other. Not closed.
+     * @param out receives the lines, each terminated by <code>\n</code>.
+     * @throws IOException if the data is not in the binary log format. A record truncated by a process kill at the end
+     * of the stream is ignored.
+     */
+    public static void decode(@NotNull InputStream in, @NotNull Appendable out) throws IOException {
+        new BinaryLogDecoder(in, out).decode();
+    }
+
+    private void decode() throws IOException {
+        try {
+            int type;
+            while ((type = in.read()) >= 0) {
+                if (type == BinaryLogSink.MAGIC[0]) {
+                    readHeader();
+                } else if (dateFormat == null) {
+                    throw new IOException("Not a binary log: missing header");
+                } else if (type == BinaryLogSink.RECORD_DEFINE) {
+                    final int id = readVarint();
+                    if (id != dictionary.size() + 1) {
+                        throw new IOException("Invalid dictionary id " + id + ", expected " + (dictionary.size() + 1));
+                    }
+                    dictionary.add(readString());
+                } else if (type == BinaryLogSink.RECORD_EVENT || type == BinaryLogSink.RECORD_EVENT_MDC) {
+                    final int priority = readByte();
+                    final String tag = readRef();
+                    final long timestamp = readTimestamp();
+                    final String format = readRef();
+                    final Object[] arguments = new Object[readVarint()];
+                    for (int i = 0; i < arguments.length; i++) {
+                        arguments[i] = readArgument();
+                    }
+                    String message = HandroidMessageFormatter.format(format, arguments, arguments.length);
+                    if (type == BinaryLogSink.RECORD_EVENT_MDC) {
+                        message = readMdcPrefix() + message;
+                    }
+                    println(priority, tag, timestamp, LogMessageSanitizer.sanitize(message));
+                } else if (type == BinaryLogSink.RECORD_TEXT) {
+                    final int priority = readByte();
+                    final String tag = readRef();
+                    final long timestamp = readTimestamp();
+                    println(priority, tag, timestamp, readString());
+                } else {
+                    throw new IOException("Invalid record type " + type);
+                }
+            }
+        } catch (EOFException e) {
+            // the process was killed while writing the last record
+        }
+    }
+
+    /**
+     * A new session: the dictionary and the timestamp start from scratch.
+     */
+    private void readHeader() throws IOException {
+        for (int i = 1; i < BinaryLogSink.MAGIC.length; i++) {
+            if (readByte() != BinaryLogSink.MAGIC[i]) {
+                throw new IOException("Not a binary log: invalid magic");
+            }
+        }
+        final int version = readByte();
+        if (version < 1 || version > BinaryLogSink.VERSION) {
+            throw new IOException("Unsupported binary log version " + version);
+        }
+        dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+        dateFormat.setTimeZone(TimeZone.getTimeZone(readString()));
+        dictionary.clear();
+        lastTimestamp = 0;
+    }
+
+    private void println(int priority, @NotNull String tag, long timestamp, @NotNull String message) throws IOException {
+        out.append(dateFormat.format(new Date(timestamp)))
+                .append(' ')
+                .append(priority >= 0 && priority < PRIORITY_LETTERS.length ? PRIORITY_LETTERS[priority] : '?')
+                .append('/')
+                .append(tag)
+                .append(": ")
+                .append(message)
+                .append('\n');
+    }
+
+    /**
+     * Reads the MDC entries of the EVENT_MDC record.
+     * @return the MDC rendered the same way as {@link HandroidMDCAdapter.Context#getPrefix()} does.
+     */
+    @NotNull
+    private String readMdcPrefix() throws IOException {
+        final int count = readVarint();
+        final StringBuilder sb = new StringBuilder().append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(readRef()).append('=').append(readString());
+        }
+        return sb.append("] ").toString();
+    }
+
+    @Nullable
+    private Object readArgument() throws IOException {
+        final int type = readByte();
+        switch (type) {
+            case BinaryLogSink.ARG_NULL:
+                return null;
+            case BinaryLogSink.ARG_STRING:
+                return readString();
+            case BinaryLogSink.ARG_INT:
+                return (int) unZigZag(readVarlong());
+            case BinaryLogSink.ARG_LONG:
+                return unZigZag(readVarlong());
+            case BinaryLogSink.ARG_FLOAT:
+                return Float.intBitsToFloat((int) readFixed(4));
+            case BinaryLogSink.ARG_DOUBLE:
+                return Double.longBitsToDouble(readFixed(8));
+            case BinaryLogSink.ARG_TRUE:
+                return Boolean.TRUE;
+            case BinaryLogSink.ARG_FALSE:
+                return Boolean.FALSE;
+            case BinaryLogSink.ARG_CHAR:
+                return (char) readVarint();
+            default:
+                throw new IOException("Invalid argument type " + type);
+        }
+    }
+
+    @NotNull
+    private String readRef() throws IOException {
+        final int id = readVarint();
+        if (id == 0) {
+            return readString();
+        }
+        if (id > dictionary.size()) {
+            throw new IOException("Undefined dictionary id " + id);
+        }
+        return dictionary.get(id - 1);
+    }
+
+    private long readTimestamp() throws IOException {
+        lastTimestamp += unZigZag(readVarlong());
+        return lastTimestamp;
+    }
+
+    @NotNull
+    private String readString() throws IOException {
+        final byte[] bytes = new byte[readVarint()];
+        int read = 0;
+        while (read < bytes.length) {
+            final int count = in.read(bytes, read, bytes.length - read);
+            if (count < 0) {
+                throw new EOFException();
+            }
+            read += count;
+        }
+        return new String(bytes, "UTF-8");
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private int readVarint() throws IOException {
+        final long value = readVarlong();
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("Invalid varint " + value);
+        }
+        return (int) value;
+    }
+
+    private long readVarlong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid varint: too long");
+    }
+
+    private long readFixed(int bytes) throws IOException {
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            value |= (long) readByte() << (i * 8);
+        }
+        return value;
+    }
+
+    private int readByte() throws IOException {
+        final int b = in.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+}
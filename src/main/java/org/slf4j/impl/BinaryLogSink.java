@@ -0,0 +1,406 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Writes the log messages in a compact binary format, to be converted back to text offline by {@link BinaryLogDecoder}.
+ * The messages are not formatted at all: the tags and the message patterns are stored into a dictionary when seen for
+ * the first time and then referenced by id, the arguments are stored as they are. Register via
+ * {@link HandroidLoggerAdapter#addSink(LogSink, int)}:
+ * <pre>
+ * HandroidLoggerAdapter.addSink(new BinaryLogSink(new FileOutputStream(new File(getFilesDir(), "app.hlog"), true)), Log.INFO);
+ * </pre>
+ * The messages are buffered in memory; call {@link #flush()} e.g. in <code>Activity.onPause()</code>. If the stream
+ * fails, the failure is reported once to <code>System.err</code>, the buffered messages are discarded and further
+ * messages are ignored.
+ * <p></p>
+ * The format: the <code>HLOG</code> magic, the version byte and the time zone id of the device, followed by the records:
+ * <ul>
+ * <li><code>DEFINE</code>: the record type byte, the varint id, the string</li>
+ * <li><code>EVENT</code>: the record type byte, the priority byte, the tag ref, the timestamp delta, the pattern ref,
+ * the varint argument count and the type-tagged arguments</li>
+ * <li><code>EVENT_MDC</code>: the <code>EVENT</code> record followed by the varint MDC entry count and the entries, each
+ * a key ref and a value string. Used instead of <code>EVENT</code> if the message is prefixed by the MDC, see
+ * {@link HandroidConfig#isRenderMdc()}.</li>
+ * <li><code>TEXT</code>: the record type byte, the priority byte, the tag ref, the timestamp delta and the rendered message.
+ * Used for messages with an exception, with a null pattern or with arguments which can not be stored as a value, e.g. arrays.</li>
+ * </ul>
+ * A string is stored as a varint UTF-8 length followed by the UTF-8 bytes. A ref is a varint dictionary id; 0 means
+ * that the dictionary is full and the string follows inline. The timestamp delta is the zig-zag varint of the
+ * difference to the timestamp of the previous record. Appending to an existing file starts a new header, the decoder
+ * handles that.
+ * @author mvy
+ */
+public final class BinaryLogSink implements LogSink, Closeable {
+    static final byte[] MAGIC = {'H', 'L', 'O', 'G'};
+    static final int VERSION = 2;
+
+    static final int RECORD_DEFINE = 1;
+    static final int RECORD_EVENT = 2;
+    static final int RECORD_TEXT = 3;
+    static final int RECORD_EVENT_MDC = 4;
+
+    static final int ARG_NULL = 0;
+    static final int ARG_STRING = 1;
+    static final int ARG_INT = 2;
+    static final int ARG_LONG = 3;
+    static final int ARG_FLOAT = 4;
+    static final int ARG_DOUBLE = 5;
+    static final int ARG_TRUE = 6;
+    static final int ARG_FALSE = 7;
+    static final int ARG_CHAR = 8;
+
+    /**
+     * Limits the memory used by the dictionary; further strings are stored inline.
+     */
+    private static final int MAX_DICTIONARY_SIZE = 4096;
+    /**
+     * Only short strings are worth storing in the dictionary.
+     */
+    private static final int MAX_DICTIONARY_STRING_LENGTH = 256;
+
+    @NotNull
+    private final OutputStream out;
+    @NotNull
+    private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+    @NotNull
+    private byte[] buffer = new byte[8192];
+    private int position;
+    private long lastTimestamp;
+    private boolean closed;
+    /**
+     * Set when the stream fails; the messages are dropped from then on.
+     */
+    private boolean failed;
+
+    /**
+     * Creates the sink and writes the header.
+     * @param out written to in large chunks, no need to wrap it in a {@link java.io.BufferedOutputStream}. Closed by {@link #close()}.
+     */
+    public BinaryLogSink(@NotNull OutputStream out) throws IOException {
+        this.out = out;
+        for (byte b : MAGIC) {
+            putByte(b);
+        }
+        putByte(VERSION);
+        putString(TimeZone.getDefault().getID());
+        flushBuffer();
+    }
+
+    @Override
+    public synchronized void write(@NotNull LogEvent event) {
+        if (closed || failed) {
+            return;
+        }
+        final String format = event.format;
+        if (event.throwable != null || format == null || !putEvent(event, format, event.isMdcRendered())) {
+            putText(event);
+        }
+        if (position >= buffer.length / 2) {
+            try {
+                flushBuffer();
+            } catch (IOException e) {
+                // already reported
+            }
+        }
+    }
+
+    /**
+     * Writes the EVENT record, or the EVENT_MDC record if the MDC is to be rendered.
+     * @return false if some argument can not be stored as a value; only the dictionary definitions are written in such case.
+     */
+    private boolean putEvent(@NotNull LogEvent event, @NotNull String format, boolean withMdc) {
+        final Object[] arguments = event.arguments;
+        // the dictionary definitions must precede the record
+        final int tagId = define(event.tag);
+        final int formatId = define(format);
+        if (withMdc) {
+            for (String key : event.mdc.keySet()) {
+                define(key);
+            }
+        }
+        // the dictionary definitions are kept even if the event is rolled back
+        final int start = position;
+        final long startTimestamp = lastTimestamp;
+        putByte(withMdc ? RECORD_EVENT_MDC : RECORD_EVENT);
+        putByte(event.priority);
+        putRef(tagId, event.tag);
+        putTimestamp(event.timestamp);
+        putRef(formatId, format);
+        putVarint(arguments.length);
+        for (Object argument : arguments) {
+            if (!putArgument(argument)) {
+                position = start;
+                lastTimestamp = startTimestamp;
+                return false;
+            }
+        }
+        if (withMdc) {
+            putVarint(event.mdc.size());
+            for (Map.Entry<String, String> entry : event.mdc.entrySet()) {
+                putRef(define(entry.getKey()), entry.getKey());
+                // values are mostly unique, e.g. request ids: not worth the dictionary
+                putString(String.valueOf(entry.getValue()));
+            }
+        }
+        return true;
+    }
+
+    private void putText(@NotNull LogEvent event) {
+        final int tagId = define(event.tag);
+        putByte(RECORD_TEXT);
+        putByte(event.priority);
+        putRef(tagId, event.tag);
+        putTimestamp(event.timestamp);
+        putString(event.getRenderedMessage());
+    }
+
+    private boolean putArgument(@Nullable Object argument) {
+        if (argument == null) {
+            putByte(ARG_NULL);
+        } else if (argument instanceof String) {
+            putByte(ARG_STRING);
+            putString((String) argument);
+        } else if (argument instanceof Integer || argument instanceof Short || argument instanceof Byte) {
+            putByte(ARG_INT);
+            putVarlong(zigZag(((Number) argument).intValue()));
+        } else if (argument instanceof Long) {
+            putByte(ARG_LONG);
+            putVarlong(zigZag((Long) argument));
+        } else if (argument instanceof Float) {
+            putByte(ARG_FLOAT);
+            putFixed(Float.floatToRawIntBits((Float) argument), 4);
+        } else if (argument instanceof Double) {
+            putByte(ARG_DOUBLE);
+            putFixed(Double.doubleToRawLongBits((Double) argument), 8);
+        } else if (argument instanceof Boolean) {
+            putByte((Boolean) argument ? ARG_TRUE : ARG_FALSE);
+        } else if (argument instanceof Character) {
+            putByte(ARG_CHAR);
+            putVarint((Character) argument);
+        } else if (argument.getClass().isArray()) {
+            // formatted specially and possibly mutable
+            return false;
+        } else {
+            // other objects are stored as their toString(), which is what the formatter would print
+            final String string;
+            try {
+                string = argument.toString();
+            } catch (RuntimeException e) {
+                // let the formatter report the failure
+                return false;
+            }
+            if (string == null) {
+                return false;
+            }
+            putByte(ARG_STRING);
+            putString(string);
+        }
+        return true;
+    }
+
+    /**
+     * Writes the DEFINE record if the string is not yet in the dictionary.
+     * @return the dictionary id, 0 if the string is not stored in the dictionary.
+     */
+    private int define(@NotNull String string) {
+        final Integer id = dictionary.get(string);
+        if (id != null) {
+            return id;
+        }
+        if (dictionary.size() >= MAX_DICTIONARY_SIZE || string.length() > MAX_DICTIONARY_STRING_LENGTH) {
+            return 0;
+        }
+        final int newId = dictionary.size() + 1;
+        dictionary.put(string, newId);
+        putByte(RECORD_DEFINE);
+        putVarint(newId);
+        putString(string);
+        return newId;
+    }
+
+    private void putRef(int id, @NotNull String string) {
+        putVarint(id);
+        if (id == 0) {
+            putString(string);
+        }
+    }
+
+    private void putTimestamp(long timestamp) {
+        putVarlong(zigZag(timestamp - lastTimestamp));
+        lastTimestamp = timestamp;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void putVarint(int value) {
+        putVarlong(value & 0xFFFFFFFFL);
+    }
+
+    private void putVarlong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void putFixed(long value, int bytes) {
+        ensureCapacity(bytes);
+        for (int i = 0; i < bytes; i++) {
+            buffer[position++] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private void putByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * Writes the varint UTF-8 length followed by the UTF-8 bytes. Unpaired surrogates are written as '?', the same as
+     * {@link String#getBytes(String)} does.
+     */
+    private void putString(@NotNull String s) {
+        final int length = s.length();
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        putVarint(bytes);
+        ensureCapacity(bytes);
+        for (int i = 0; i < length; i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                buffer[position++] = (byte) '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Grows the buffer so that at least given number of bytes fits. The buffer is flushed by {@link #write(LogEvent)}
+     * between the records only, so that a record is never split by a failed write.
+     */
+    private void ensureCapacity(int bytes) {
+        if (position + bytes > buffer.length) {
+            final byte[] newBuffer = new byte[Math.max(buffer.length * 2, position + bytes)];
+            System.arraycopy(buffer, 0, newBuffer, 0, position);
+            buffer = newBuffer;
+        }
+    }
+
+    /**
+     * Writes the buffered records to the stream. If that fails, the sink is closed: a partially written record would
+     * make the rest of the stream undecodable, and the buffer must not grow forever.
+     */
+    private void flushBuffer() throws IOException {
+        try {
+            out.write(buffer, 0, position);
+        } catch (IOException e) {
+            fail(e);
+            throw e;
+        }
+        position = 0;
+    }
+
+    private void fail(@NotNull IOException e) {
+        if (!failed) {
+            failed = true;
+            System.err.println("slf4j-handroid: failed to write the binary log, dropping log messages");
+            e.printStackTrace();
+        }
+        position = 0;
+        buffer = new byte[0];
+        // the definitions have been discarded: no record may refer to them
+        dictionary.clear();
+    }
+
+    /**
+     * Writes the buffered records to the underlying stream and flushes it.
+     */
+    public synchronized void flush() throws IOException {
+        if (!closed && !failed) {
+            flushBuffer();
+            out.flush();
+        }
+    }
+
+    /**
+     * Writes the buffered records and closes the underlying stream. Further messages are ignored.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            try {
+                if (!failed) {
+                    flushBuffer();
+                }
+            } finally {
+                out.close();
+            }
+        }
+    }
+}
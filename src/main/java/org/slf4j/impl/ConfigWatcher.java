@@ -0,0 +1,113 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Polls the configuration file for changes and reloads it, see {@link HandroidLoggerAdapter#watchConfiguration(File, long)}.
+ * Polls the modification time and the size of the file rather than using <code>java.nio.file.WatchService</code>,
+ * which is only available on Android 8 and newer.
+ * @author mvy
+ */
+final class ConfigWatcher implements Runnable {
+    @NotNull
+    private final File file;
+    private final long periodMillis;
+    private final Thread thread;
+    private volatile boolean running = true;
+    /**
+     * Only accessed by the watcher thread.
+     */
+    private long lastModified = 0;
+    private long lastLength = 0;
+
+    /**
+     * Creates the watcher and starts the polling thread. The file is checked right away.
+     */
+    ConfigWatcher(@NotNull File file, long periodMillis) {
+        if (periodMillis < 1) {
+            throw new IllegalArgumentException("Parameter periodMillis: invalid value " + periodMillis + ": must be 1 or greater");
+        }
+        this.file = file;
+        this.periodMillis = periodMillis;
+        thread = new Thread(this, "slf4j-handroid-config");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            check();
+            try {
+                Thread.sleep(periodMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reloads the configuration if the file has been modified, created or deleted since the last check.
+     */
+    private void check() {
+        // both are 0 if the file does not exist
+        final long modified = file.lastModified();
+        final long length = file.length();
+        if (modified == lastModified && length == lastLength) {
+            return;
+        }
+        lastModified = modified;
+        lastLength = length;
+        try {
+            HandroidLoggerAdapter.reloadConfiguration(file);
+        } catch (IOException e) {
+            report(e);
+        } catch (RuntimeException e) {
+            report(e);
+        }
+    }
+
+    private void report(@NotNull Exception e) {
+        try {
+            LogSinks.write(new LogEvent(Log.WARN, "slf4j-handroid", "Failed to reload " + file + ", keeping the current configuration", e));
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops the polling thread; does not wait for it to terminate.
+     */
+    void stop() {
+        running = false;
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Receives log messages and stores them into crash reports, e.g. Crashlytics. Register via
+ * {@link HandroidLoggerAdapter#setCrashReporter(CrashReporter, int)}.
+ * <p></p>
+ * The messages are always written to logcat by slf4j-handroid; the crash reporter should only record them, not print them
+ * to logcat again. For example, to integrate with Firebase Crashlytics:
+ * <pre>
+ * HandroidLoggerAdapter.setCrashReporter(new CrashReporter() {
+ *     public void log(int priority, String tag, String message) {
+ *         FirebaseCrashlytics.getInstance().log(tag + ": " + message);
+ *     }
+ *     public void logException(Throwable throwable) {
+ *         FirebaseCrashlytics.getInstance().recordException(throwable);
+ *     }
+ * }, Log.WARN);
+ * </pre>
+ * @author mvy
+ */
+public interface CrashReporter {
+    /**
+     * Records a log message into the crash report.
+     * @param priority the Android priority, {@link android.util.Log#VERBOSE}..{@link android.util.Log#ASSERT}.
+     * @param tag the logger tag
+     * @param message the message, already post-processed, including the stack trace if any.
+     */
+    void log(int priority, @NotNull String tag, @NotNull String message);
+
+    /**
+     * Records a non-fatal exception. Only called for exceptions logged as WARNING or ERROR.
+     */
+    void logException(@NotNull Throwable throwable);
+}
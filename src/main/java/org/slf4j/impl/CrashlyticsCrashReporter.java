@@ -0,0 +1,52 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import com.crashlytics.android.Crashlytics;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Routes the log messages to the Crashlytics library, see {@link HandroidLoggerAdapter#enableLoggingToCrashlytics(int)}.
+ * <p></p>
+ * Crashlytics is only distributed as an aar which we can't link against, so this class is compiled against a stub of the
+ * Crashlytics class and calls it directly, without reflection. The class must therefore not be loaded unless Crashlytics
+ * is on the classpath.
+ * @author mvy
+ */
+final class CrashlyticsCrashReporter implements CrashReporter {
+    private static final char[] PRIORITY_LETTERS = {'?', '?', 'V', 'D', 'I', 'W', 'E', 'A'};
+
+    @Override
+    public void log(int priority, @NotNull String tag, @NotNull String message) {
+        // the same format as Crashlytics.log(int, String, String) uses, but without printing the message into logcat again
+        final char letter = priority >= 0 && priority < PRIORITY_LETTERS.length ? PRIORITY_LETTERS[priority] : '?';
+        Crashlytics.log(letter + "/" + tag + " " + message);
+    }
+
+    @Override
+    public void logException(@NotNull Throwable throwable) {
+        Crashlytics.logException(throwable);
+    }
+}
@@ -0,0 +1,419 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.helpers.MarkerIgnoringBase;
+
+import java.io.ObjectStreamException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The logger handed out by {@link AndroidLoggerFactory}: forwards all calls to a {@link ThresholdLogger} specialized
+ * to the current configuration. A configuration change (see {@link HandroidLoggerAdapter#refreshLogLevels()} and
+ * {@link HandroidLoggerAdapter#setConfig(HandroidConfig)}) drops the delegates of all loggers, and the delegate is
+ * created again on the next call, so that a disabled <code>debug()</code> call costs a single field read plus a call to
+ * an empty method, which the JIT inlines away. The tag is resolved lazily, and again when the {@link HandroidConfig}
+ * changes, so that the loggers created before the app name is configured get re-tagged on their next call.
+ * @author mvy
+ */
+class DelegatingLogger extends MarkerIgnoringBase implements LazyLogger {
+    private static final long serialVersionUID = -3206421848391612839L;
+
+    /**
+     * All loggers, so that {@link #invalidateAll()} can reach them; weak, so that loggers not cached by a factory may be
+     * garbage-collected. Guarded by itself.
+     */
+    private static final Map<DelegatingLogger, Boolean> INSTANCES = new WeakHashMap<DelegatingLogger, Boolean>();
+
+    /**
+     * The original logger name, as passed to {@link org.slf4j.LoggerFactory#getLogger(String)}; the tag is in {@link #name}.
+     */
+    @NotNull
+    final String loggerName;
+
+    /**
+     * The logger specialized to the current configuration; null if it needs to be created, see {@link #invalidateAll()}.
+     */
+    @Nullable
+    private transient volatile ThresholdLogger delegate;
+    /**
+     * The last delegate, even if invalidated: its tag is reused while the {@link HandroidConfig} stays the same.
+     */
+    @Nullable
+    private transient volatile ThresholdLogger last;
+
+    DelegatingLogger(@NotNull String loggerName) {
+        // getName() returns the tag of the current configuration
+        this.name = loggerName;
+        this.loggerName = loggerName;
+        synchronized (INSTANCES) {
+            INSTANCES.put(this, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Drops the delegates of all loggers; called by {@link HandroidLoggerAdapter#refreshLogLevels()} after the
+     * {@link HandroidLoggerAdapter#levelStamp()} changes.
+     */
+    static void invalidateAll() {
+        final List<DelegatingLogger> loggers;
+        synchronized (INSTANCES) {
+            loggers = new ArrayList<DelegatingLogger>(INSTANCES.keySet());
+        }
+        for (DelegatingLogger logger : loggers) {
+            logger.delegate = null;
+        }
+    }
+
+    /**
+     * @return the logger specialized to the current configuration.
+     */
+    @NotNull
+    final ThresholdLogger delegate() {
+        final ThresholdLogger current = delegate;
+        return current != null ? current : refresh();
+    }
+
+    @NotNull
+    private ThresholdLogger refresh() {
+        ThresholdLogger specialized;
+        int stamp;
+        do {
+            HandroidConfig.applyDeprecatedFields();
+            stamp = HandroidLoggerAdapter.levelStamp();
+            // the config is published before the stamp changes, so it's at least as new as the stamp
+            final HandroidConfig config = HandroidConfig.current;
+            final ThresholdLogger previous = last;
+            final String tag = previous != null && previous.config == config ? previous.getName() : AndroidLoggerFactory.loggerNameToTag(loggerName, config);
+            specialized = ThresholdLogger.create(loggerName, tag, ThresholdLogger.getThreshold(loggerName, tag, config), config);
+            last = specialized;
+            delegate = specialized;
+            // invalidated meanwhile: invalidateAll() may have run before the delegate was set, compute it again
+        } while (stamp != HandroidLoggerAdapter.levelStamp());
+        return specialized;
+    }
+
+    /**
+     * @return the tag; changes when {@link HandroidConfig#getAppName()} or {@link HandroidConfig#getAndroidApiLevel()} changes.
+     */
+    @Override
+    public String getName() {
+        return delegate().getName();
+    }
+
+    /**
+     * Resolves by the logger name: the inherited implementation resolves by {@link #getName()}, which is the tag.
+     */
+    @Override
+    protected Object readResolve() throws ObjectStreamException {
+        return LoggerFactory.getLogger(loggerName);
+    }
+
+    public boolean isTraceEnabled() {
+        return delegate().isTraceEnabled();
+    }
+
+    public boolean isTraceEnabled(Marker marker) {
+        return delegate().isTraceEnabled(marker);
+    }
+
+    public void trace(String msg) {
+        delegate().trace(msg);
+    }
+
+    public void trace(String format, Object arg) {
+        delegate().trace(format, arg);
+    }
+
+    public void trace(String format, Object arg1, Object arg2) {
+        delegate().trace(format, arg1, arg2);
+    }
+
+    public void trace(String format, Object... arguments) {
+        delegate().trace(format, arguments);
+    }
+
+    public void trace(String msg, Throwable t) {
+        delegate().trace(msg, t);
+    }
+
+    public void trace(Marker marker, String msg) {
+        delegate().trace(marker, msg);
+    }
+
+    public void trace(Marker marker, String format, Object arg) {
+        delegate().trace(marker, format, arg);
+    }
+
+    public void trace(Marker marker, String format, Object arg1, Object arg2) {
+        delegate().trace(marker, format, arg1, arg2);
+    }
+
+    public void trace(Marker marker, String format, Object... arguments) {
+        delegate().trace(marker, format, arguments);
+    }
+
+    public void trace(Marker marker, String msg, Throwable t) {
+        delegate().trace(marker, msg, t);
+    }
+
+    public void trace(@NotNull LogSupplier message) {
+        delegate().trace(message);
+    }
+
+    public <T> void trace(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        delegate().trace(message, input);
+    }
+
+    public boolean isDebugEnabled() {
+        return delegate().isDebugEnabled();
+    }
+
+    public boolean isDebugEnabled(Marker marker) {
+        return delegate().isDebugEnabled(marker);
+    }
+
+    public void debug(String msg) {
+        delegate().debug(msg);
+    }
+
+    public void debug(String format, Object arg) {
+        delegate().debug(format, arg);
+    }
+
+    public void debug(String format, Object arg1, Object arg2) {
+        delegate().debug(format, arg1, arg2);
+    }
+
+    public void debug(String format, Object... arguments) {
+        delegate().debug(format, arguments);
+    }
+
+    public void debug(String msg, Throwable t) {
+        delegate().debug(msg, t);
+    }
+
+    public void debug(Marker marker, String msg) {
+        delegate().debug(marker, msg);
+    }
+
+    public void debug(Marker marker, String format, Object arg) {
+        delegate().debug(marker, format, arg);
+    }
+
+    public void debug(Marker marker, String format, Object arg1, Object arg2) {
+        delegate().debug(marker, format, arg1, arg2);
+    }
+
+    public void debug(Marker marker, String format, Object... arguments) {
+        delegate().debug(marker, format, arguments);
+    }
+
+    public void debug(Marker marker, String msg, Throwable t) {
+        delegate().debug(marker, msg, t);
+    }
+
+    public void debug(@NotNull LogSupplier message) {
+        delegate().debug(message);
+    }
+
+    public <T> void debug(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        delegate().debug(message, input);
+    }
+
+    public boolean isInfoEnabled() {
+        return delegate().isInfoEnabled();
+    }
+
+    public boolean isInfoEnabled(Marker marker) {
+        return delegate().isInfoEnabled(marker);
+    }
+
+    public void info(String msg) {
+        delegate().info(msg);
+    }
+
+    public void info(String format, Object arg) {
+        delegate().info(format, arg);
+    }
+
+    public void info(String format, Object arg1, Object arg2) {
+        delegate().info(format, arg1, arg2);
+    }
+
+    public void info(String format, Object... arguments) {
+        delegate().info(format, arguments);
+    }
+
+    public void info(String msg, Throwable t) {
+        delegate().info(msg, t);
+    }
+
+    public void info(Marker marker, String msg) {
+        delegate().info(marker, msg);
+    }
+
+    public void info(Marker marker, String format, Object arg) {
+        delegate().info(marker, format, arg);
+    }
+
+    public void info(Marker marker, String format, Object arg1, Object arg2) {
+        delegate().info(marker, format, arg1, arg2);
+    }
+
+    public void info(Marker marker, String format, Object... arguments) {
+        delegate().info(marker, format, arguments);
+    }
+
+    public void info(Marker marker, String msg, Throwable t) {
+        delegate().info(marker, msg, t);
+    }
+
+    public void info(@NotNull LogSupplier message) {
+        delegate().info(message);
+    }
+
+    public <T> void info(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        delegate().info(message, input);
+    }
+
+    public boolean isWarnEnabled() {
+        return delegate().isWarnEnabled();
+    }
+
+    public boolean isWarnEnabled(Marker marker) {
+        return delegate().isWarnEnabled(marker);
+    }
+
+    public void warn(String msg) {
+        delegate().warn(msg);
+    }
+
+    public void warn(String format, Object arg) {
+        delegate().warn(format, arg);
+    }
+
+    public void warn(String format, Object arg1, Object arg2) {
+        delegate().warn(format, arg1, arg2);
+    }
+
+    public void warn(String format, Object... arguments) {
+        delegate().warn(format, arguments);
+    }
+
+    public void warn(String msg, Throwable t) {
+        delegate().warn(msg, t);
+    }
+
+    public void warn(Marker marker, String msg) {
+        delegate().warn(marker, msg);
+    }
+
+    public void warn(Marker marker, String format, Object arg) {
+        delegate().warn(marker, format, arg);
+    }
+
+    public void warn(Marker marker, String format, Object arg1, Object arg2) {
+        delegate().warn(marker, format, arg1, arg2);
+    }
+
+    public void warn(Marker marker, String format, Object... arguments) {
+        delegate().warn(marker, format, arguments);
+    }
+
+    public void warn(Marker marker, String msg, Throwable t) {
+        delegate().warn(marker, msg, t);
+    }
+
+    public void warn(@NotNull LogSupplier message) {
+        delegate().warn(message);
+    }
+
+    public <T> void warn(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        delegate().warn(message, input);
+    }
+
+    public boolean isErrorEnabled() {
+        return delegate().isErrorEnabled();
+    }
+
+    public boolean isErrorEnabled(Marker marker) {
+        return delegate().isErrorEnabled(marker);
+    }
+
+    public void error(String msg) {
+        delegate().error(msg);
+    }
+
+    public void error(String format, Object arg) {
+        delegate().error(format, arg);
+    }
+
+    public void error(String format, Object arg1, Object arg2) {
+        delegate().error(format, arg1, arg2);
+    }
+
+    public void error(String format, Object... arguments) {
+        delegate().error(format, arguments);
+    }
+
+    public void error(String msg, Throwable t) {
+        delegate().error(msg, t);
+    }
+
+    public void error(Marker marker, String msg) {
+        delegate().error(marker, msg);
+    }
+
+    public void error(Marker marker, String format, Object arg) {
+        delegate().error(marker, format, arg);
+    }
+
+    public void error(Marker marker, String format, Object arg1, Object arg2) {
+        delegate().error(marker, format, arg1, arg2);
+    }
+
+    public void error(Marker marker, String format, Object... arguments) {
+        delegate().error(marker, format, arguments);
+    }
+
+    public void error(Marker marker, String msg, Throwable t) {
+        delegate().error(marker, msg, t);
+    }
+
+    public void error(@NotNull LogSupplier message) {
+        delegate().error(message);
+    }
+
+    public <T> void error(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        delegate().error(message, input);
+    }
+}
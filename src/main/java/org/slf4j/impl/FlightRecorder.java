@@ -0,0 +1,206 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Remembers the last N log calls at all levels, including the levels which are not loggable, so that the messages leading
+ * to a crash can be dumped even if they were never written to logcat. See {@link HandroidLoggerAdapter#enableFlightRecorder(int)}.
+ * <p></p>
+ * Recording a call only allocates a small immutable {@link Record} holding the references to the format string and the
+ * arguments; the message is formatted only when the buffer is dumped. Therefore, if an argument is modified after the
+ * log call, the dump shows the modified value.
+ * <p></p>
+ * The records are published through an {@link AtomicReferenceArray}, so the dump always sees a complete record; it skips
+ * the slots which have been overwritten by a newer call or which haven't been written yet.
+ * @author mvy
+ */
+final class FlightRecorder {
+    /**
+     * {@link Record#argCount} value for a plain message with an optional throwable stored in {@link Record#arg1}.
+     */
+    private static final int PLAIN_MESSAGE = -1;
+    /**
+     * {@link Record#argCount} value for a message with the arguments stored in {@link Record#args}.
+     */
+    private static final int ARG_ARRAY = -2;
+    /**
+     * {@link Record#argCount} value for a {@link LogFunction} stored in {@link Record#arg1} with its input stored in {@link Record#arg2}.
+     */
+    private static final int LAZY_FUNCTION = -3;
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    /**
+     * The active flight recorder, null if none. Checked by {@link AndroidLoggerAdapter} on every log call.
+     */
+    @Nullable
+    static volatile FlightRecorder current;
+
+    /**
+     * A single recorded log call. Immutable, so that it can be safely read by the thread dumping the recorder.
+     */
+    private static final class Record {
+        /**
+         * The position of the call in the sequence of all recorded calls.
+         */
+        final long pos;
+        final long timestamp;
+        final int priority;
+        @NotNull
+        final String tag;
+        @Nullable
+        final String format;
+        final int argCount;
+        @Nullable
+        final Object arg1;
+        @Nullable
+        final Object arg2;
+        @Nullable
+        final Object[] args;
+
+        Record(long pos, long timestamp, int priority, @NotNull String tag, @Nullable String format, int argCount,
+               @Nullable Object arg1, @Nullable Object arg2, @Nullable Object[] args) {
+            this.pos = pos;
+            this.timestamp = timestamp;
+            this.priority = priority;
+            this.tag = tag;
+            this.format = format;
+            this.argCount = argCount;
+            this.arg1 = arg1;
+            this.arg2 = arg2;
+            this.args = args;
+        }
+    }
+
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+    private final AtomicReferenceArray<Record> records;
+
+    /**
+     * @param capacity the number of log calls to remember, rounded up to the nearest power of two.
+     */
+    FlightRecorder(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Parameter capacity: invalid value " + capacity + ": must be 1 or greater");
+        }
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        mask = size - 1;
+        records = new AtomicReferenceArray<Record>(size);
+    }
+
+    /**
+     * Records a plain message.
+     */
+    void record(int priority, @NotNull String tag, @Nullable String message, @Nullable Throwable throwable) {
+        record(priority, tag, message, PLAIN_MESSAGE, throwable, null, null);
+    }
+
+    /**
+     * Records a message with one or two arguments.
+     */
+    void record(int priority, @NotNull String tag, @Nullable String format, int argCount, @Nullable Object arg1, @Nullable Object arg2) {
+        record(priority, tag, format, argCount, arg1, arg2, null);
+    }
+
+    /**
+     * Records a message with the arguments in an array.
+     */
+    void record(int priority, @NotNull String tag, @Nullable String format, @Nullable Object[] args) {
+        record(priority, tag, format, ARG_ARRAY, null, null, args);
+    }
+
+    /**
+     * Records a message computed by given function; the function is called when the recorder is dumped.
+     */
+    void record(int priority, @NotNull String tag, @NotNull LogFunction<?> message, @Nullable Object input) {
+        record(priority, tag, null, LAZY_FUNCTION, message, input, null);
+    }
+
+    private void record(int priority, @NotNull String tag, @Nullable String format, int argCount, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object[] args) {
+        final long pos = next.getAndIncrement();
+        // the final fields make the record safely published even by the ordered store; the dump needs no stronger guarantee
+        records.lazySet((int) pos & mask, new Record(pos, System.currentTimeMillis(), priority, tag, format, argCount, arg1, arg2, args));
+    }
+
+    /**
+     * Formats the recorded messages and passes them to given sink, oldest first. The recorder keeps the messages, so
+     * it's possible to dump them multiple times.
+     */
+    void dump(@NotNull LogSink sink) {
+        final long end = next.get();
+        for (long pos = Math.max(0, end - mask - 1); pos < end; pos++) {
+            final Record record = records.get((int) pos & mask);
+            if (record == null || record.pos != pos) {
+                // not written yet, or already overwritten by a newer call
+                continue;
+            }
+            sink.write(toEvent(record));
+        }
+    }
+
+    /**
+     * Splits off the trailing throwable the same way {@link AndroidLoggerAdapter} does.
+     */
+    @NotNull
+    private static LogEvent toEvent(@NotNull Record record) {
+        final long timestamp = record.timestamp;
+        final int priority = record.priority;
+        final String tag = record.tag;
+        final String format = record.format;
+        final Object arg1 = record.arg1;
+        final Object arg2 = record.arg2;
+        final Object[] args = record.args;
+        switch (record.argCount) {
+            case PLAIN_MESSAGE:
+                return new LogEvent(priority, tag, format, NO_ARGUMENTS, (Throwable) arg1, timestamp);
+            case LAZY_FUNCTION:
+                return new LogEvent(priority, tag, "{}", new Object[]{HandroidMessageFormatter.apply((LogFunction<?>) arg1, arg2)}, null, timestamp);
+            case 1:
+                if (arg1 instanceof Throwable) {
+                    return new LogEvent(priority, tag, format, NO_ARGUMENTS, (Throwable) arg1, timestamp);
+                }
+                return new LogEvent(priority, tag, format, new Object[]{arg1}, null, timestamp);
+            case 2:
+                if (arg2 instanceof Throwable) {
+                    return new LogEvent(priority, tag, format, new Object[]{arg1}, (Throwable) arg2, timestamp);
+                }
+                return new LogEvent(priority, tag, format, new Object[]{arg1, arg2}, null, timestamp);
+            default:
+                if (args == null) {
+                    return new LogEvent(priority, tag, format, NO_ARGUMENTS, null, timestamp);
+                }
+                final int count = args.length;
+                if (count > 0 && args[count - 1] instanceof Throwable) {
+                    return new LogEvent(priority, tag, format, Arrays.copyOf(args, count - 1), (Throwable) args[count - 1], timestamp);
+                }
+                return new LogEvent(priority, tag, format, args.clone(), null, timestamp);
+        }
+    }
+}
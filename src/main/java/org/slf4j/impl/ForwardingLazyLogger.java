@@ -0,0 +1,106 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+/**
+ * Adapts a logger of another SLF4J binding to {@link LazyLogger}, see {@link HandroidLoggerAdapter#lazy(Logger)}.
+ * @author mvy
+ */
+final class ForwardingLazyLogger implements LazyLogger {
+    @NotNull
+    private final Logger logger;
+
+    ForwardingLazyLogger(@NotNull Logger logger) {
+        this.logger = logger;
+    }
+
+    @NotNull
+    private static String toMessage(@Nullable Object value) {
+        return HandroidMessageFormatter.format("{}", value);
+    }
+
+    public void trace(@NotNull LogSupplier message) {
+        if (logger.isTraceEnabled()) {
+            logger.trace(toMessage(message));
+        }
+    }
+
+    public <T> void trace(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        if (logger.isTraceEnabled()) {
+            logger.trace(toMessage(HandroidMessageFormatter.apply(message, input)));
+        }
+    }
+
+    public void debug(@NotNull LogSupplier message) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(toMessage(message));
+        }
+    }
+
+    public <T> void debug(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        if (logger.isDebugEnabled()) {
+            logger.debug(toMessage(HandroidMessageFormatter.apply(message, input)));
+        }
+    }
+
+    public void info(@NotNull LogSupplier message) {
+        if (logger.isInfoEnabled()) {
+            logger.info(toMessage(message));
+        }
+    }
+
+    public <T> void info(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        if (logger.isInfoEnabled()) {
+            logger.info(toMessage(HandroidMessageFormatter.apply(message, input)));
+        }
+    }
+
+    public void warn(@NotNull LogSupplier message) {
+        if (logger.isWarnEnabled()) {
+            logger.warn(toMessage(message));
+        }
+    }
+
+    public <T> void warn(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        if (logger.isWarnEnabled()) {
+            logger.warn(toMessage(HandroidMessageFormatter.apply(message, input)));
+        }
+    }
+
+    public void error(@NotNull LogSupplier message) {
+        if (logger.isErrorEnabled()) {
+            logger.error(toMessage(message));
+        }
+    }
+
+    public <T> void error(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        if (logger.isErrorEnabled()) {
+            logger.error(toMessage(HandroidMessageFormatter.apply(message, input)));
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The handroid configuration: an immutable snapshot, published atomically by {@link HandroidLoggerAdapter#setConfig(HandroidConfig)}.
+ * The loggers never see a partially applied configuration, and read it just once per configuration change rather than
+ * on every log call. Put this into your android.app.Application's constructor:
+ * <pre>
+ * HandroidLoggerAdapter.setConfig(HandroidConfig.builder()
+ *         .setDebug(BuildConfig.DEBUG)
+ *         .setAppName("MyApp")
+ *         .setAndroidApiLevel(Build.VERSION.SDK_INT)
+ *         .build());
+ * </pre>
+ * The loggers created before the configuration is set pick up the new tag on their next log call.
+ * <p></p>
+ * The deprecated {@link HandroidLoggerAdapter#DEBUG}, {@link HandroidLoggerAdapter#APP_NAME} and
+ * {@link HandroidLoggerAdapter#ANDROID_API_LEVEL} are still honored: {@link #builder()} starts with their values, and
+ * when a logger computes its levels or its tag, a change of those fields is published as a new configuration. Since
+ * they are not read on every log call, a change is picked up by the loggers which have already logged only after
+ * {@link HandroidLoggerAdapter#refreshLogLevels()}.
+ * @author mvy
+ */
+public final class HandroidConfig {
+    /**
+     * The default configuration: no debug messages, tags derived from the logger names and limited to 23 characters.
+     */
+    @NotNull
+    public static final HandroidConfig DEFAULT = new Builder(false).build();
+
+    /**
+     * The active configuration.
+     */
+    @NotNull
+    static volatile HandroidConfig current = DEFAULT;
+
+    private final boolean debug;
+    @Nullable
+    private final String appName;
+    private final int androidApiLevel;
+    private final boolean renderMdc;
+    /**
+     * The values of the deprecated {@link HandroidLoggerAdapter} fields when this configuration was built, to detect
+     * changes, see {@link #applyDeprecatedFields()}.
+     */
+    private final boolean deprecatedDebug;
+    @Nullable
+    private final String deprecatedAppName;
+    private final int deprecatedAndroidApiLevel;
+    /**
+     * Resolved from {@link #androidApiLevel}: androids 25 and earlier fail if the tag is longer than 23 characters.
+     * See https://github.com/mvysny/slf4j-handroid/issues/2 for more details.
+     */
+    final int tagMaxLength;
+
+    @SuppressWarnings("deprecation")
+    private HandroidConfig(@NotNull Builder builder) {
+        debug = builder.debug;
+        appName = builder.appName;
+        androidApiLevel = builder.androidApiLevel;
+        renderMdc = builder.renderMdc;
+        tagMaxLength = androidApiLevel >= 26 ? 1000 : 23;
+        if (builder.readDeprecatedFields) {
+            deprecatedDebug = HandroidLoggerAdapter.DEBUG;
+            deprecatedAppName = HandroidLoggerAdapter.APP_NAME;
+            deprecatedAndroidApiLevel = HandroidLoggerAdapter.ANDROID_API_LEVEL;
+        } else {
+            // DEFAULT: the initial values of the fields, without initializing HandroidLoggerAdapter from our static initializer
+            deprecatedDebug = false;
+            deprecatedAppName = null;
+            deprecatedAndroidApiLevel = 1;
+        }
+    }
+
+    /**
+     * @return a builder of the default configuration, initialized with the deprecated {@link HandroidLoggerAdapter#DEBUG},
+     * {@link HandroidLoggerAdapter#APP_NAME} and {@link HandroidLoggerAdapter#ANDROID_API_LEVEL}.
+     */
+    @NotNull
+    @SuppressWarnings("deprecation")
+    public static Builder builder() {
+        return new Builder(true).setDebug(HandroidLoggerAdapter.DEBUG).setAppName(HandroidLoggerAdapter.APP_NAME)
+                .setAndroidApiLevel(HandroidLoggerAdapter.ANDROID_API_LEVEL);
+    }
+
+    /**
+     * @return a builder initialized with this configuration, to change just some of the settings.
+     */
+    @NotNull
+    public Builder toBuilder() {
+        return new Builder(true).setDebug(debug).setAppName(appName).setAndroidApiLevel(androidApiLevel).setRenderMdc(renderMdc);
+    }
+
+    /**
+     * Publishes a new configuration if the deprecated {@link HandroidLoggerAdapter} fields have been assigned since the
+     * active configuration was built. Called when a logger computes its levels or its tag, never on every log call.
+     */
+    @SuppressWarnings("deprecation")
+    static void applyDeprecatedFields() {
+        final HandroidConfig config = current;
+        final boolean debug = HandroidLoggerAdapter.DEBUG;
+        final String appName = HandroidLoggerAdapter.APP_NAME;
+        final int androidApiLevel = HandroidLoggerAdapter.ANDROID_API_LEVEL;
+        if (debug == config.deprecatedDebug && androidApiLevel == config.deprecatedAndroidApiLevel
+                && (appName == null ? config.deprecatedAppName == null : appName.equals(config.deprecatedAppName))) {
+            return;
+        }
+        synchronized (HandroidConfig.class) {
+            final HandroidConfig active = current;
+            final Builder builder = active.toBuilder();
+            if (debug != active.deprecatedDebug) {
+                builder.setDebug(debug);
+            }
+            if (appName == null ? active.deprecatedAppName != null : !appName.equals(active.deprecatedAppName)) {
+                builder.setAppName(appName);
+            }
+            if (androidApiLevel != active.deprecatedAndroidApiLevel) {
+                builder.setAndroidApiLevel(androidApiLevel);
+            }
+            HandroidLoggerAdapter.setConfig(builder.build());
+        }
+    }
+
+    /**
+     * @return true if the debug messages are logged, see {@link Builder#setDebug(boolean)}.
+     */
+    public boolean isDebug() {
+        return debug;
+    }
+
+    /**
+     * @return the app name prefixing the tags, null if none. See {@link Builder#setAppName(String)}.
+     */
+    @Nullable
+    public String getAppName() {
+        return appName;
+    }
+
+    /**
+     * @return the API level of the device, see {@link Builder#setAndroidApiLevel(int)}.
+     */
+    public int getAndroidApiLevel() {
+        return androidApiLevel;
+    }
+
+    /**
+     * @return true if the messages are prefixed by the MDC, see {@link Builder#setRenderMdc(boolean)}.
+     */
+    public boolean isRenderMdc() {
+        return renderMdc;
+    }
+
+    @Override
+    public String toString() {
+        return "HandroidConfig{debug=" + debug + ", appName=" + appName + ", androidApiLevel=" + androidApiLevel + ", renderMdc=" + renderMdc + '}';
+    }
+
+    /**
+     * Builds {@link HandroidConfig}. Not thread-safe.
+     */
+    public static final class Builder {
+        private boolean debug = false;
+        @Nullable
+        private String appName = null;
+        private int androidApiLevel = 1;
+        private boolean renderMdc = false;
+        /**
+         * False only for {@link #DEFAULT}, see {@link HandroidConfig#HandroidConfig(Builder)}.
+         */
+        private final boolean readDeprecatedFields;
+
+        private Builder(boolean readDeprecatedFields) {
+            this.readDeprecatedFields = readDeprecatedFields;
+        }
+
+        /**
+         * True if the debug messages should be logged, false if not. Defaults to false.
+         * <p></p>
+         * Good practice is to log debug during development, while not logging debug messages during production:
+         * pass <code>BuildConfig.DEBUG</code>.
+         */
+        @NotNull
+        public Builder setDebug(boolean debug) {
+            this.debug = debug;
+            return this;
+        }
+
+        /**
+         * Set this to non-null app name (preferably max 10 characters), to have <code>MyApp:MainActivity</code> instead of
+         * <code>s*.b*.a*.u*.k*.MainAct*</code> in your code. Defaults to null.
+         */
+        @NotNull
+        public Builder setAppName(@Nullable String appName) {
+            this.appName = appName;
+            return this;
+        }
+
+        /**
+         * Set this to 26 or higher (e.g. <code>Build.VERSION.SDK_INT</code>), to notify Handroid that Android finally dropped
+         * the 23 character limit on the tag. Defaults to 1.
+         */
+        @NotNull
+        public Builder setAndroidApiLevel(int androidApiLevel) {
+            this.androidApiLevel = androidApiLevel;
+            return this;
+        }
+
+        /**
+         * Set this to true to prefix every message with the MDC of the logging thread, e.g. <code>[requestId=42] Hello</code>.
+         * The prefix is rendered just once per MDC change. Defaults to false; the sinks receive the MDC in {@link LogEvent#mdc}
+         * regardless of this setting.
+         */
+        @NotNull
+        public Builder setRenderMdc(boolean renderMdc) {
+            this.renderMdc = renderMdc;
+            return this;
+        }
+
+        @NotNull
+        public HandroidConfig build() {
+            return new HandroidConfig(this);
+        }
+    }
+}
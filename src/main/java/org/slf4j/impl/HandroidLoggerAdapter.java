@@ -26,15 +26,23 @@ package org.slf4j.impl;
 import android.util.Log;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class handles three issues:
  * <ul>
- *     <li>It allows you to log or suppress DEBUG messages, simply by setting {@link #DEBUG} appropriately. See the field doc for more info.</li>
+ *     <li>It allows you to log or suppress DEBUG messages, simply by setting {@link HandroidConfig.Builder#setDebug(boolean)} appropriately, see {@link #setConfig(HandroidConfig)}.</li>
  *     <li>Logs ALL exceptions, including UnknownHostException and all exceptions caused by this exception. Android filters out any exceptions which were caused by UnknownHostException.
  *     See http://stackoverflow.com/questions/28897239/log-e-does-not-print-the-stack-trace-of-unknownhostexception for details.
  *     </li>
@@ -43,31 +51,58 @@ import java.lang.reflect.Method;
  * @author mvy
  */
 public class HandroidLoggerAdapter extends AndroidLoggerAdapter {
+    private static final long serialVersionUID = -1922207981498245738L;
 
     /**
      * True if the debug messages should be logged, false if not. Defaults to false.
-     * <p></p>
-     * Good practice is to log debug during development, while not logging debug messages during production.
-     * Put this into your android.app.Application's constructor to achieve this:
-     * <pre>
-     * HandroidLoggerAdapter.DEBUG = BuildConfig.DEBUG;
-     * </pre>
+     * @deprecated use {@link HandroidConfig.Builder#setDebug(boolean)}: replace
+     * <code>HandroidLoggerAdapter.DEBUG = BuildConfig.DEBUG;</code> with
+     * <code>HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setDebug(BuildConfig.DEBUG).build());</code>.
+     * Assigning this field still works, see {@link HandroidConfig}, but is not thread-safe.
      */
+    @Deprecated
     public static boolean DEBUG = false;
 
     /**
      * Set this to non-null app name (preferably max 10 characters), to have <code>MyApp:MainActivity</code> instead of
      * <code>s*.b*.a*.u*.k*.MainAct*</code> in your code.
+     * @deprecated use {@link HandroidConfig.Builder#setAppName(String)}, the same way as {@link #DEBUG}.
      */
+    @Deprecated
     public static String APP_NAME = null;
 
     /**
-     * Set this to 26 or higher, to notify Handroid that Android finally dropped the retarded 23 character limit on logger name.
+     * Set this to 26 or higher, to notify Handroid that Android finally dropped the 23 character limit on logger name.
+     * @deprecated use {@link HandroidConfig.Builder#setAndroidApiLevel(int)}, the same way as {@link #DEBUG}.
      */
+    @Deprecated
     public static int ANDROID_API_LEVEL = 1;
 
     /**
-     * If called, the log messages are routed to the Crashlytics library. You must call this AFTER Crashlytics is initialized in your code;
+     * Publishes the new configuration, e.g. whether the debug messages are logged or the app name to prefix the tags with.
+     * The configuration is applied atomically: the loggers, including the already created ones, pick it up on their next
+     * log call. See {@link HandroidConfig} for an example.
+     * @param config the new configuration; {@link HandroidConfig#DEFAULT} to restore the defaults.
+     */
+    public static void setConfig(@NotNull HandroidConfig config) {
+        synchronized (HandroidConfig.class) {
+            HandroidConfig.current = config;
+            // publish the config before the loggers are told to re-read it
+            refreshLogLevels();
+        }
+    }
+
+    /**
+     * @return the active configuration, see {@link #setConfig(HandroidConfig)}. Use {@link HandroidConfig#toBuilder()} to
+     * change just some of the settings.
+     */
+    @NotNull
+    public static HandroidConfig getConfig() {
+        return HandroidConfig.current;
+    }
+
+    /**
+     * If called, the log messages are also routed to the Crashlytics library. You must call this AFTER Crashlytics is initialized in your code;
      * see https://github.com/mvysny/slf4j-handroid/issues/5 for more details. Example of proper initialization in your App:
      * <code><pre>
      *     &#64;Override
@@ -78,26 +113,452 @@ public class HandroidLoggerAdapter extends AndroidLoggerAdapter {
      *         ...
      * </pre></code>
      * <p></p>
-     * Warning: only exception stacktraces logged as WARNING or ERROR are logged into Crashlytics. See {@link #logInternal(int, String, Throwable)}
+     * Warning: only exception stacktraces logged as WARNING or ERROR are logged into Crashlytics. See {@link CrashReporter#logException(Throwable)}
      * for details.
      * @throws RuntimeException if the Crashlytics library is not on your classpath.
      */
     public static void enableLoggingToCrashlytics() {
+        enableLoggingToCrashlytics(Log.VERBOSE);
+    }
+
+    /**
+     * Same as {@link #enableLoggingToCrashlytics()}, but only the messages with given or higher priority are routed to Crashlytics.
+     * For example, pass {@link Log#WARN} to avoid paying for the Crashlytics call on every INFO and DEBUG message.
+     * @param minPriority the minimum priority, {@link Log#VERBOSE}..{@link Log#ASSERT}.
+     * @throws RuntimeException if the Crashlytics library is not on your classpath.
+     */
+    public static void enableLoggingToCrashlytics(int minPriority) {
         try {
-            final Class<?> crashlyticsClass = Class.forName("com.crashlytics.android.Crashlytics");
-            // yes I know, reflection is slower. Yet crashlytics doesn't seem to provide jars, only aar which I can't link against.
-            crashlyticsLog = crashlyticsClass.getDeclaredMethod("log", int.class, String.class, String.class);
-            crashlyticsLogException = crashlyticsClass.getDeclaredMethod("logException", Throwable.class);
-            System.out.println("slf4j-handroid: enabling integration with Crashlytics");
-        } catch (Exception e) {
+            Class.forName("com.crashlytics.android.Crashlytics");
+        } catch (ClassNotFoundException e) {
             throw new RuntimeException(e);
         }
+        setCrashReporter(new CrashlyticsCrashReporter(), minPriority);
+        System.out.println("slf4j-handroid: enabling integration with Crashlytics");
+    }
+
+    /**
+     * Routes the log messages to given crash reporter, in addition to logcat. See {@link CrashReporter} for an example.
+     * @param reporter the crash reporter, null to disable the routing.
+     * @param minPriority only the messages with this or higher priority are routed to the crash reporter,
+     *                    {@link Log#VERBOSE}..{@link Log#ASSERT}.
+     */
+    public static synchronized void setCrashReporter(@Nullable CrashReporter reporter, int minPriority) {
+        if (crashReporterSink != null) {
+            removeSink(crashReporterSink);
+            crashReporterSink = null;
+        }
+        if (reporter != null) {
+            crashReporterSink = new CrashReporterSink(reporter);
+            addSink(crashReporterSink, minPriority);
+        }
+    }
+
+    private static CrashReporterSink crashReporterSink;
+
+    /**
+     * Registers a destination of the log messages, or changes the minimum priority of an already registered sink.
+     * {@link LogcatSink} is registered by default, with {@link Log#VERBOSE} priority.
+     * <p></p>
+     * Note that the messages still need to pass the logger's own threshold, see {@link HandroidConfig#isDebug()}. The messages not accepted
+     * by any sink are not even formatted.
+     * @param sink the sink
+     * @param minPriority only the messages with this or higher priority are passed to the sink, {@link Log#VERBOSE}..{@link Log#ASSERT}.
+     */
+    public static void addSink(@NotNull LogSink sink, int minPriority) {
+        LogSinks.add(sink, minPriority);
+    }
+
+    /**
+     * Unregisters given sink. Pass {@link LogcatSink#INSTANCE} to stop logging into logcat.
+     * @return true if the sink was registered, false if it wasn't.
+     */
+    public static boolean removeSink(@NotNull LogSink sink) {
+        return LogSinks.remove(sink);
+    }
+
+    /**
+     * Forces all loggers to re-query {@link Log#isLoggable(String, int)} on their next call. The loggers cache the outcome
+     * of {@link Log#isLoggable(String, int)} since it is a rather expensive JNI call; call this after you have changed
+     * the log level of a tag at runtime, e.g. via <code>adb shell setprop log.tag.MyTag DEBUG</code>.
+     * <p></p>
+     * There is no need to call this after {@link #setConfig(HandroidConfig)} - that is done automatically.
+     */
+    public static void refreshLogLevels() {
+        LEVEL_GENERATION.incrementAndGet();
+        DelegatingLogger.invalidateAll();
+    }
+
+    /**
+     * Sets the log level threshold of all loggers whose name starts with given prefix, log4j-style: e.g. <code>setLevel("com.acme.net", Log.DEBUG)</code>
+     * logs DEBUG and higher from <code>com.acme.net.Client</code> and <code>com.acme.net.http.Request</code>. The prefix matches
+     * whole name segments against the original logger name, not the (possibly truncated) tag. The most specific prefix wins.
+     * <p></p>
+     * A configured threshold overrides both {@link HandroidConfig#isDebug()} and {@link Log#isLoggable(String, int)} for the loggers it applies to.
+     * The initial thresholds are loaded from the <code>slf4j-handroid.properties</code> classpath resource, if present:
+     * <pre>
+     * level=INFO
+     * level.com.acme.net=DEBUG
+     * </pre>
+     * The loggers cache the resolved threshold, so the level check stays a single compare.
+     * @param loggerNamePrefix the logger name prefix; empty string for all loggers.
+     * @param priority the minimum priority to log, {@link Log#VERBOSE}..{@link Log#ASSERT}; {@link Log#ASSERT} + 1 turns
+     *                 the loggers off. Pass 0 to remove the threshold.
+     */
+    public static synchronized void setLevel(@NotNull String loggerNamePrefix, int priority) {
+        if (priority != LevelConfig.UNSET && (priority < Log.VERBOSE || priority > Log.ASSERT + 1)) {
+            throw new IllegalArgumentException("Parameter priority: invalid value " + priority + ": must be 0 or " + Log.VERBOSE + ".." + (Log.ASSERT + 1));
+        }
+        LevelConfig.current = LevelConfig.current.with(loggerNamePrefix, priority);
+        refreshLogLevels();
+    }
+
+    /**
+     * Replaces all thresholds set by {@link #setLevel(String, int)} by the thresholds from given properties, in the
+     * <code>slf4j-handroid.properties</code> format. Pass empty properties to remove all thresholds.
+     * @throws IllegalArgumentException if a level is not valid; the current thresholds are kept in such case.
+     */
+    public static synchronized void setLevels(@NotNull Properties properties) {
+        LevelConfig.current = LevelConfig.parse(properties);
+        refreshLogLevels();
     }
-    private static Method crashlyticsLog;
-    private static Method crashlyticsLogException;
+
+    /**
+     * Replaces all level thresholds by the thresholds loaded from given file, in the <code>slf4j-handroid.properties</code>
+     * format, see {@link #setLevel(String, int)}. If the file does not exist, the thresholds from the
+     * <code>slf4j-handroid.properties</code> classpath resource are restored.
+     * <p></p>
+     * The new configuration is published as a single immutable snapshot: the existing loggers pick it up on their next
+     * log call, never seeing a partially applied configuration. The log calls never block.
+     * @throws IOException if the file can not be read; the current thresholds are kept in such case.
+     * @throws IllegalArgumentException if a level is not valid; the current thresholds are kept in such case.
+     */
+    public static void reloadConfiguration(@NotNull File file) throws IOException {
+        final LevelConfig config;
+        if (file.exists()) {
+            final InputStream in = new FileInputStream(file);
+            try {
+                config = LevelConfig.load(in);
+            } finally {
+                in.close();
+            }
+        } else {
+            config = LevelConfig.loadResource();
+        }
+        synchronized (HandroidLoggerAdapter.class) {
+            LevelConfig.current = config;
+            refreshLogLevels();
+        }
+    }
+
+    /**
+     * Starts watching given configuration file: a daemon thread checks the file every <code>periodMillis</code> milliseconds
+     * and calls {@link #reloadConfiguration(File)} when the file is modified, created or deleted. This allows changing the
+     * log levels of a running app without restarting it, e.g.:
+     * <pre>
+     * HandroidLoggerAdapter.watchConfiguration(new File(getFilesDir(), "slf4j-handroid.properties"), 2000);
+     * </pre>
+     * and then <code>adb shell run-as com.acme.app sh -c 'echo level.com.acme.net=DEBUG &gt; files/slf4j-handroid.properties'</code>.
+     * A file which fails to load is reported to the sinks as a warning; the current configuration is kept.
+     * @param file the file to watch, null to stop watching. Replaces the file watched previously.
+     * @param periodMillis how often to check the file, 1 or greater.
+     */
+    public static synchronized void watchConfiguration(@Nullable File file, long periodMillis) {
+        if (configWatcher != null) {
+            configWatcher.stop();
+            configWatcher = null;
+        }
+        if (file != null) {
+            configWatcher = new ConfigWatcher(file, periodMillis);
+        }
+    }
+
+    /**
+     * Guarded by the class lock.
+     */
+    private static ConfigWatcher configWatcher;
+
+    /**
+     * If called, the log messages are written to the {@link LogSink}s by a dedicated daemon thread, so that the logging
+     * thread (typically the UI thread) only formats the message and puts it into a queue. Messages logged by a single thread
+     * are written in the order they were logged; messages logged concurrently by different threads may be written in any order.
+     * <p></p>
+     * The message is formatted by the logging thread, therefore the arguments may be freely modified after the log call returns.
+     * Call {@link #flush()} to wait until all pending messages are written, e.g. before the app is killed.
+     * <p></p>
+     * Calling this function again replaces the previous queue; pending messages are written first.
+     * @param capacity the maximum number of messages waiting to be written, rounded up to the nearest power of two, 2..2<sup>30</sup>. 1024 is a good start.
+     * @param policy what to do when the queue is full.
+     */
+    public static synchronized void enableAsyncLogging(int capacity, @NotNull AsyncOverflowPolicy policy) {
+        final AsyncLogDispatcher replacement = new AsyncLogDispatcher(capacity, policy);
+        shutdownAsyncLogging();
+        asyncDispatcher = replacement;
+    }
+
+    /**
+     * Writes all pending messages and reverts to writing the log messages from the logging thread. Does nothing if
+     * {@link #enableAsyncLogging(int, AsyncOverflowPolicy)} hasn't been called.
+     */
+    public static synchronized void disableAsyncLogging() {
+        shutdownAsyncLogging();
+        asyncDispatcher = null;
+    }
+
+    /**
+     * Drains the current queue before the dispatcher is replaced: the dispatcher stays published meanwhile, so that
+     * a thread's new messages are written after its messages still in the queue.
+     */
+    private static void shutdownAsyncLogging() {
+        final AsyncLogDispatcher old = asyncDispatcher;
+        if (old != null) {
+            old.shutdown();
+        }
+    }
+
+    /**
+     * Blocks until all messages logged before this call have been written. Does nothing if the async logging
+     * is not enabled, see {@link #enableAsyncLogging(int, AsyncOverflowPolicy)}.
+     */
+    public static void flush() {
+        final AsyncLogDispatcher async = asyncDispatcher;
+        if (async != null) {
+            async.flush();
+        }
+    }
+
+    /**
+     * @return the number of log messages dropped so far since the async logging queue was full, see {@link AsyncOverflowPolicy}.
+     * Returns 0 if async logging is not enabled. The count is also reported to logcat as a warning whenever the queue gets drained.
+     */
+    public static long getDroppedLogCount() {
+        final AsyncLogDispatcher async = asyncDispatcher;
+        return async == null ? 0 : async.getDroppedCount();
+    }
+
+    private static volatile AsyncLogDispatcher asyncDispatcher;
+
+    /**
+     * If called, a stack trace logged repeatedly is printed in full only the first time. Further occurrences of the same stack
+     * trace print just the exception, a short reference to the full stack trace and the number of occurrences.
+     * This saves both CPU and logcat space when the same exception is logged over and over, e.g. when a backend is down.
+     * <p></p>
+     * Two stack traces are considered the same if the exception classes and stack frames of the exception and all of its causes
+     * match; exception messages are ignored.
+     * @param maxStackTraces at most this number of recently logged stack traces are remembered. Pass 0 to disable the deduplication.
+     */
+    public static void enableStackTraceDeduplication(int maxStackTraces) {
+        stackTraceDeduplicator = maxStackTraces <= 0 ? null : new StackTraceDeduplicator(maxStackTraces);
+    }
+
+    private static volatile StackTraceDeduplicator stackTraceDeduplicator;
+
+    /**
+     * Starts recording the last <code>capacity</code> log calls at all levels - including the levels which are not loggable,
+     * e.g. DEBUG when {@link HandroidConfig#isDebug()} is false. When something goes wrong, call {@link #dumpFlightRecorder(LogSink)} to
+     * obtain the messages leading to the failure.
+     * <p></p>
+     * Recording is cheap: the buffer is preallocated and only the references to the format string and the arguments are
+     * stored; the messages are formatted only when dumped. Note that the arguments are therefore kept in memory until
+     * overwritten, and that the dump shows the state of the arguments at the time of the dump.
+     * @param capacity the number of log calls to remember, rounded up to the nearest power of two. Pass 0 to stop recording.
+     */
+    public static void enableFlightRecorder(int capacity) {
+        FlightRecorder.current = capacity <= 0 ? null : new FlightRecorder(capacity);
+        // the recorder needs to see the calls of all levels
+        refreshLogLevels();
+    }
+
+    /**
+     * Formats the log calls remembered by the flight recorder and passes them to given sink, oldest first. Pass
+     * {@link LogcatSink#INSTANCE} to dump the messages to logcat, a {@link RollingFileSink} to dump them into a file,
+     * or use {@link #dumpFlightRecorder(CrashReporter)}. Does nothing if the flight recorder is not enabled,
+     * see {@link #enableFlightRecorder(int)}.
+     */
+    public static void dumpFlightRecorder(@NotNull LogSink sink) {
+        final FlightRecorder recorder = FlightRecorder.current;
+        if (recorder != null) {
+            recorder.dump(sink);
+        }
+    }
+
+    /**
+     * Passes the log calls remembered by the flight recorder to given crash reporter, see {@link #dumpFlightRecorder(LogSink)}.
+     * Only {@link CrashReporter#log(int, String, String)} is called: the exceptions have already been reported when logged.
+     */
+    public static void dumpFlightRecorder(@NotNull final CrashReporter reporter) {
+        dumpFlightRecorder(new LogSink() {
+            @Override
+            public void write(@NotNull LogEvent event) {
+                reporter.log(event.priority, event.tag, event.getRenderedMessage());
+            }
+        });
+    }
+
+    /**
+     * Limits the rate of messages logged by a single call site - a logger and a format string - so that e.g. a retry loop
+     * can not flood logcat and drain the battery. Every call site may log <code>burst</code> messages at once, and then
+     * <code>messagesPerSecond</code> messages per second. In addition, a message which repeats the previous message of
+     * the call site with equal arguments is not logged at all.
+     * <p></p>
+     * The check happens before the message is formatted, so the throttled messages cost almost nothing. The number of
+     * throttled and repeated messages is logged just before the next message of the call site which is let through, e.g.
+     * <code>Last message repeated 5 time(s)</code>.
+     * @param messagesPerSecond the sustained rate per call site. Pass 0 to disable the rate limiting.
+     * @param burst the number of messages a call site may log at once, 1 or greater.
+     */
+    public static void enableRateLimiting(int messagesPerSecond, int burst) {
+        RateLimiter.current = messagesPerSecond <= 0 ? null : new RateLimiter(messagesPerSecond, burst);
+    }
+
+    /**
+     * Returns a {@link LazyLogger} view of given logger: the logger itself if it comes from this binding, a thin wrapper
+     * checking the level before computing the message otherwise. Call it once per logger, e.g. when initializing
+     * a <code>static final</code> field, rather than on every log call.
+     * @param logger the logger obtained from {@link org.slf4j.LoggerFactory}.
+     * @return the lazy logger.
+     */
+    @NotNull
+    public static LazyLogger lazy(@NotNull Logger logger) {
+        return logger instanceof LazyLogger ? (LazyLogger) logger : new ForwardingLazyLogger(logger);
+    }
+
+    /**
+     * Starts or stops counting the logged messages per priority and tag, the messages suppressed since their priority
+     * was not loggable, the characters written to logcat, the stack traces rendered and the time spent logging,
+     * see {@link #getMetrics()}. The counters are striped per thread, so that concurrent loggers don't contend on them.
+     * <p></p>
+     * Disabled by default; when disabled, the loggers just check a field.
+     * @param enabled true to start counting from zero, false to stop counting and drop the counters.
+     */
+    public static void enableMetrics(boolean enabled) {
+        LogMetrics.current = enabled ? new LogMetrics() : null;
+        // the metrics count the suppressed calls too
+        refreshLogLevels();
+    }
+
+    /**
+     * @return the snapshot of the counters, see {@link #enableMetrics(boolean)}; null if the metrics are disabled.
+     */
+    @Nullable
+    public static LogMetricsSnapshot getMetrics() {
+        final LogMetrics metrics = LogMetrics.current;
+        return metrics == null ? null : metrics.snapshot();
+    }
+
+    /**
+     * Logs just every n-th message of given priority on average, picked at random, e.g. to keep a tenth of the DEBUG output
+     * in production. The sampling only applies while the priority is not loggable otherwise, see {@link HandroidConfig#isDebug()}
+     * and {@link Log#isLoggable(String, int)}: a debug build still logs all DEBUG messages, unmarked. The sampled messages
+     * are prefixed by <code>[sampled 1/n]</code> so that the counts can be scaled back. A threshold set by
+     * {@link #setLevel(String, int)} and the minimum priority of the sinks still apply.
+     * <p></p>
+     * The decision is made before the message is formatted; the messages which are not picked cost almost nothing.
+     * @param loggerName the name of the logger to sample, as passed to {@link org.slf4j.LoggerFactory#getLogger(String)};
+     *                   null to sample all loggers. The rules for a particular logger take precedence.
+     * @param priority the priority to sample, {@link Log#VERBOSE}..{@link Log#ASSERT}.
+     * @param oneInN log one message in n on average, 1 or greater. Pass 0 to remove the rule.
+     */
+    public static synchronized void setSampling(@Nullable String loggerName, int priority, int oneInN) {
+        if (oneInN < 0) {
+            throw new IllegalArgumentException("Parameter oneInN: invalid value " + oneInN + ": must be 0 or greater");
+        }
+        Sampler.current = Sampler.with(Sampler.current, loggerName, priority, oneInN == 0 ? -1 : 1.0 / oneInN, "[sampled 1/" + oneInN + "] ");
+        refreshLogLevels();
+    }
+
+    /**
+     * Logs just given percentage of the messages of given priority, picked at random. The messages are prefixed by
+     * <code>[sampled 25%]</code>; see {@link #setSampling(String, int, int)} for details.
+     * @param loggerName the name of the logger to sample; null to sample all loggers.
+     * @param priority the priority to sample, {@link Log#VERBOSE}..{@link Log#ASSERT}.
+     * @param percentage 0..100. Pass a negative value to remove the rule.
+     */
+    public static synchronized void setSamplingPercentage(@Nullable String loggerName, int priority, double percentage) {
+        if (percentage > 100 || Double.isNaN(percentage)) {
+            throw new IllegalArgumentException("Parameter percentage: invalid value " + percentage + ": must be 0..100");
+        }
+        final String marker = "[sampled " + (percentage == Math.rint(percentage) ? String.valueOf((long) percentage) : String.valueOf(percentage)) + "%] ";
+        Sampler.current = Sampler.with(Sampler.current, loggerName, priority, percentage < 0 ? -1 : percentage / 100, marker);
+        refreshLogLevels();
+    }
+
+    /**
+     * Removes all rules set by {@link #setSampling(String, int, int)} and {@link #setSamplingPercentage(String, int, double)}.
+     */
+    public static synchronized void clearSampling() {
+        Sampler.current = null;
+        refreshLogLevels();
+    }
+
+    /**
+     * Suppresses or re-enables whole categories of messages by marker, e.g. <code>PERF</code> or <code>NETWORK</code>. A call
+     * with a disabled marker, or with a marker referencing a disabled marker, is not logged at all. All markers are
+     * enabled by default. The calls without a marker are not affected and pay nothing for the check.
+     * <p></p>
+     * The markers are filtered as a bitset: at most 64 markers can be disabled at once.
+     * @param name the marker name, see {@link org.slf4j.MarkerFactory#getMarker(String)}.
+     * @param enabled false to suppress the messages with the marker.
+     */
+    public static void setMarkerEnabled(@NotNull String name, boolean enabled) {
+        StaticMarkerBinder.SINGLETON.markerFactory.setEnabled(name, enabled);
+    }
+
+    /**
+     * Caps the size of the logged stack traces. Deep stack traces (e.g. coming from reactive libraries or Kotlin coroutines)
+     * may otherwise produce tens of kilobytes of text per logged exception. By default the stack traces are not capped.
+     * <p></p>
+     * Note that causes are never dropped completely: when the cap is reached, the causes only print their first line
+     * (the exception class and the message), which means that for example UnknownHostExceptions are still visible.
+     * @param maxFrames print at most this number of stack frames per exception; the remaining frames are summarized in a
+     *                  single line. Pass {@link Integer#MAX_VALUE} to print all frames.
+     * @param maxCauses print stack frames of at most this number of causes (and suppressed exceptions). Pass {@link Integer#MAX_VALUE}
+     *                  to print stack frames of all causes.
+     */
+    public static void setStackTraceLimits(int maxFrames, int maxCauses) {
+        if (maxFrames < 0) {
+            throw new IllegalArgumentException("Parameter maxFrames: invalid value " + maxFrames + ": must be 0 or greater");
+        }
+        if (maxCauses < 0) {
+            throw new IllegalArgumentException("Parameter maxCauses: invalid value " + maxCauses + ": must be 0 or greater");
+        }
+        stackTraceMaxFrames = maxFrames;
+        // the top-level exception itself always prints its frames
+        stackTraceMaxThrowables = maxCauses == Integer.MAX_VALUE ? maxCauses : maxCauses + 1;
+    }
+
+    private static volatile int stackTraceMaxFrames = Integer.MAX_VALUE;
+    private static volatile int stackTraceMaxThrowables = Integer.MAX_VALUE;
+
+    private static final AtomicInteger LEVEL_GENERATION = new AtomicInteger();
+
+    /**
+     * Caches the outcome of {@link #isLoggable(int)} for all priorities. Bit 0 is set if the cache has been computed,
+     * bits 2..7 tell whether the priority of the same value ({@link Log#VERBOSE}..{@link Log#ASSERT}) is loggable,
+     * bits 8..31 hold the {@link #levelStamp()} the cache was computed for. Kept in a single int so that
+     * it is always read and written atomically, without the need for synchronization; at worst two threads compute the
+     * very same value concurrently.
+     */
+    private int levelCache = 0;
+
+    /**
+     * Caches the outcome of {@link #isSamplingAllowed(int)}, in the same layout as {@link #levelCache}.
+     */
+    private int samplingCache = 0;
+
+    /**
+     * The original logger name, as passed to {@link org.slf4j.LoggerFactory#getLogger(String)}; the tag is in {@link #name}.
+     */
+    @NotNull
+    final String loggerName;
 
     HandroidLoggerAdapter(String tag) {
+        this(tag, tag);
+    }
+
+    HandroidLoggerAdapter(@NotNull String loggerName, String tag) {
         super(tag);
+        this.loggerName = loggerName;
     }
 
     /**
@@ -115,50 +576,188 @@ public class HandroidLoggerAdapter extends AndroidLoggerAdapter {
 
     @Override
     protected boolean isLoggable(int priority) {
-        return DEBUG ? true : super.isLoggable(priority);
+        final int expected = (levelStamp() << 8) | 1;
+        int cache = levelCache;
+        if ((cache & 0xFFFFFF01) != expected) {
+            HandroidConfig.applyDeprecatedFields();
+            cache = expected;
+            final int minPriority = LogSinks.getMinPriority();
+            final boolean debug = HandroidConfig.current.isDebug();
+            final int threshold = LevelConfig.current.getThreshold(loggerName);
+            for (int p = Math.max(Log.VERBOSE, minPriority); p <= Log.ASSERT; p++) {
+                if (threshold != LevelConfig.UNSET ? p >= threshold : debug || super.isLoggable(p)) {
+                    cache |= 1 << p;
+                }
+            }
+            levelCache = cache;
+        }
+        return (cache & (1 << priority)) != 0;
+    }
+
+    /**
+     * The sampled messages still need to pass the threshold of {@link #setLevel(String, int)}, if any, and the minimum
+     * priority of the sinks; only {@link HandroidConfig#isDebug()} and {@link Log#isLoggable(String, int)} are replaced
+     * by the sampling.
+     */
+    @Override
+    boolean isSamplingAllowed(int priority) {
+        final int expected = (levelStamp() << 8) | 1;
+        int cache = samplingCache;
+        if ((cache & 0xFFFFFF01) != expected) {
+            cache = expected;
+            final int threshold = LevelConfig.current.getThreshold(loggerName);
+            for (int p = Math.max(Math.max(Log.VERBOSE, LogSinks.getMinPriority()), threshold); p <= Log.ASSERT; p++) {
+                cache |= 1 << p;
+            }
+            samplingCache = cache;
+        }
+        return (cache & (1 << priority)) != 0;
+    }
+
+    @Override
+    String getLoggerName() {
+        return loggerName;
+    }
+
+    /**
+     * @return a value which changes whenever {@link #refreshLogLevels()} is called, e.g. by {@link #setConfig(HandroidConfig)}.
+     */
+    static int levelStamp() {
+        return LEVEL_GENERATION.get();
+    }
+
+    @Override
+    protected void logInternal(int priority, String format, int argCount, Object arg1, Object arg2, Object[] args, Throwable throwable) {
+        final LogMetrics metrics = LogMetrics.current;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        if (asyncDispatcher == null && LogSinks.isLogcatOnly()) {
+            // the default configuration: format right away, no need to create the LogEvent
+            println(priority, format(format, argCount, arg1, arg2, args), throwable);
+        } else {
+            final Object[] arguments;
+            if (args != null) {
+                arguments = argCount == args.length ? args : Arrays.copyOf(args, argCount);
+            } else if (argCount == 1) {
+                arguments = new Object[]{arg1};
+            } else {
+                arguments = new Object[]{arg1, arg2};
+            }
+            dispatch(new LogEvent(priority, name, format, resolveSuppliers(arguments), throwable, System.currentTimeMillis(), HandroidMDCAdapter.getContext()));
+        }
+        if (metrics != null) {
+            metrics.recordEvent(priority, name, System.nanoTime() - start);
+        }
     }
 
     @Override
     protected void logInternal(int priority, String message, Throwable throwable) {
-        if (throwable != null) {
-            message += '\n' + getStackTraceString(throwable);
+        final LogMetrics metrics = LogMetrics.current;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        if (asyncDispatcher == null && LogSinks.isLogcatOnly()) {
+            // the default configuration: no need to create the LogEvent
+            println(priority, message, throwable);
+        } else {
+            dispatch(new LogEvent(priority, name, message, throwable));
         }
-        message = postprocessMessage(message).trim();
-        if (crashlyticsLog != null) {
-            // this also internally calls Log.println(), so no need to do it ourselves
-            try {
-                crashlyticsLog.invoke(null, priority, name, message);
-                if (priority >= Log.WARN && throwable != null) {
-                    crashlyticsLogException.invoke(null, throwable);
+        if (metrics != null) {
+            metrics.recordEvent(priority, name, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Replaces the {@link LogSupplier} arguments by their values, so that every supplier is called just once, by the
+     * logging thread, no matter how many sinks format the event.
+     * @return the arguments, or their copy if there was a supplier to replace.
+     */
+    @NotNull
+    private static Object[] resolveSuppliers(@NotNull Object[] arguments) {
+        Object[] result = arguments;
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i] instanceof LogSupplier) {
+                final Object value;
+                try {
+                    value = ((LogSupplier) arguments[i]).get();
+                } catch (RuntimeException e) {
+                    // keep the supplier, the formatter reports the failure
+                    continue;
+                }
+                if (result == arguments) {
+                    result = arguments.clone();
                 }
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+                result[i] = value;
             }
+        }
+        return result;
+    }
+
+    /**
+     * Renders the message and writes it to logcat right away, the same as {@link LogcatSink} would.
+     */
+    private void println(int priority, String message, Throwable throwable) {
+        if (HandroidConfig.current.isRenderMdc()) {
+            final HandroidMDCAdapter.Context mdc = HandroidMDCAdapter.getContext();
+            if (!mdc.map.isEmpty()) {
+                message = mdc.getPrefix() + message;
+            }
+        }
+        LogcatSink.println(priority, name, render(message, throwable));
+    }
+
+    /**
+     * Writes the message to all {@link LogSink}s, either right away or via the {@link AsyncLogDispatcher} thread.
+     */
+    private static void dispatch(@NotNull LogEvent event) {
+        final AsyncLogDispatcher async = asyncDispatcher;
+        if (async != null) {
+            // the arguments may be modified once the log call returns: format the message now
+            event.getMessage();
+            async.dispatch(event);
         } else {
-            Log.println(priority, name, message);
+            LogSinks.write(event);
         }
     }
 
+    /**
+     * Post-processes the message and appends the stack trace, see {@link LogEvent#getRenderedMessage()}.
+     */
     @NotNull
-    private static String postprocessMessage(@NotNull String message) {
-        // we need to do the following, to work around Android Studio 1.5 bugs:
-        // 1. remove all characters with code point 0..31 (for example \r) - if those characters are present in the message, the message is not simply logged at all by Android (!!!)
-        // see https://code.google.com/p/android/issues/detail?id=194446
-        // see https://code.google.com/p/android/issues/detail?id=194974
-        // 2. remove two or more consecutive \n: https://code.google.com/p/android/issues/detail?id=195164
-        final StringBuilder sb = new StringBuilder(message.length());
-        boolean lastCharWasNewLine = false;
-        for (int i = 0; i < message.length(); i++) {
-            final char c = message.charAt(i);
-            if (c == '\n' && lastCharWasNewLine) {
-                // do nothing
-            } else if (c >= 32 || c == '\n') {
-                sb.append(c);
-            } else {
-                sb.append(' ');
-            }
-            lastCharWasNewLine = c == '\n';
+    static String render(@Nullable String message, @Nullable Throwable throwable) {
+        if (throwable == null) {
+            return LogMessageSanitizer.sanitize(message);
+        }
+        final LogMessageSanitizer buffer = LogMessageSanitizer.acquire();
+        try {
+            buffer.append(message).append('\n');
+            appendStackTrace(buffer, throwable);
+            return buffer.toString();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static void appendStackTrace(@NotNull LogMessageSanitizer buffer, @NotNull Throwable throwable) {
+        final StackTraceDeduplicator deduplicator = stackTraceDeduplicator;
+        if (deduplicator == null) {
+            renderStackTrace(buffer, throwable);
+            return;
+        }
+        final long fingerprint = StackTraceDeduplicator.fingerprint(throwable);
+        final int occurrences = deduplicator.record(fingerprint);
+        final String id = StackTraceDeduplicator.toId(fingerprint);
+        if (occurrences == 1) {
+            renderStackTrace(buffer, throwable);
+            buffer.append("\t(stack trace #").append(id).append(')');
+        } else {
+            buffer.append(throwable.toString()).append("\n\t... stack trace #").append(id).append(" logged earlier, seen ")
+                    .append(String.valueOf(occurrences)).append(" times");
+        }
+    }
+
+    private static void renderStackTrace(@NotNull LogMessageSanitizer buffer, @NotNull Throwable throwable) {
+        StackTraceRenderer.render(buffer, throwable, stackTraceMaxFrames, stackTraceMaxThrowables);
+        final LogMetrics metrics = LogMetrics.current;
+        if (metrics != null) {
+            metrics.recordStackTrace();
         }
-        return sb.toString();
     }
 }
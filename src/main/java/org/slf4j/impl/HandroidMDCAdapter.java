@@ -0,0 +1,152 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.spi.MDCAdapter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The MDC storage: every thread has its own immutable {@link Context}; every modification replaces it with a modified copy.
+ * Thus reading the MDC on the log path allocates nothing, and capturing a snapshot for another thread (see
+ * {@link LogEvent#mdc}) is just a reference copy. The MDC is modified far less often than it is read.
+ * <p></p>
+ * Child threads inherit the MDC of the parent thread, as with {@link org.slf4j.helpers.BasicMDCAdapter}.
+ * Set {@link HandroidConfig.Builder#setRenderMdc(boolean)} to prefix the log messages with the MDC.
+ * @author mvy
+ */
+public final class HandroidMDCAdapter implements MDCAdapter {
+
+    /**
+     * An immutable MDC snapshot.
+     */
+    static final class Context {
+        static final Context EMPTY = new Context(Collections.<String, String>emptyMap());
+
+        /**
+         * Unmodifiable, never null.
+         */
+        @NotNull
+        final Map<String, String> map;
+        /**
+         * Lazily computed by {@link #getPrefix()}. No need for volatile: String is immutable.
+         */
+        @Nullable
+        private String prefix;
+
+        private Context(@NotNull Map<String, String> map) {
+            this.map = map;
+        }
+
+        /**
+         * @return the MDC rendered as <code>[key1=value1 key2=value2] </code>, empty if the MDC is empty. Computed just once.
+         */
+        @NotNull
+        String getPrefix() {
+            String p = prefix;
+            if (p == null) {
+                if (map.isEmpty()) {
+                    p = "";
+                } else {
+                    final StringBuilder sb = new StringBuilder().append('[');
+                    for (Map.Entry<String, String> entry : map.entrySet()) {
+                        if (sb.length() > 1) {
+                            sb.append(' ');
+                        }
+                        sb.append(entry.getKey()).append('=').append(entry.getValue());
+                    }
+                    p = sb.append("] ").toString();
+                }
+                prefix = p;
+            }
+            return p;
+        }
+    }
+
+    private static final ThreadLocal<Context> CONTEXT = new InheritableThreadLocal<Context>() {
+        @Override
+        protected Context initialValue() {
+            return Context.EMPTY;
+        }
+    };
+
+    /**
+     * @return the MDC of the current thread, never null.
+     */
+    @NotNull
+    static Context getContext() {
+        return CONTEXT.get();
+    }
+
+    private static void set(@NotNull Map<String, String> map) {
+        CONTEXT.set(map.isEmpty() ? Context.EMPTY : new Context(Collections.unmodifiableMap(map)));
+    }
+
+    @Override
+    public void put(String key, String val) {
+        if (key == null) {
+            throw new IllegalArgumentException("Parameter key: invalid value null: must not be null");
+        }
+        final Map<String, String> map = new LinkedHashMap<String, String>(getContext().map);
+        map.put(key, val);
+        set(map);
+    }
+
+    @Override
+    public String get(String key) {
+        return getContext().map.get(key);
+    }
+
+    @Override
+    public void remove(String key) {
+        final Map<String, String> current = getContext().map;
+        if (current.containsKey(key)) {
+            final Map<String, String> map = new LinkedHashMap<String, String>(current);
+            map.remove(key);
+            set(map);
+        }
+    }
+
+    @Override
+    public void clear() {
+        CONTEXT.set(Context.EMPTY);
+    }
+
+    @Override
+    public Map getCopyOfContextMap() {
+        final Map<String, String> map = getContext().map;
+        return map.isEmpty() ? null : new HashMap<String, String>(map);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setContextMap(Map contextMap) {
+        set(contextMap == null ? Collections.<String, String>emptyMap() : new LinkedHashMap<String, String>(contextMap));
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Marker;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A marker caching the bits of the disabled markers it consists of, so that the marker filter (see
+ * {@link HandroidLoggerAdapter#setMarkerEnabled(String, boolean)}) is just a bitset test. Behaves as
+ * {@link org.slf4j.helpers.BasicMarker} otherwise. Created by {@link HandroidMarkerFactory}.
+ * <p></p>
+ * The bitmask of the marker and of all its references is cached; any change of any marker's references, and any change
+ * of the marker filter, invalidates the cached bitmasks of all markers.
+ * @author mvy
+ */
+final class HandroidMarker implements Marker {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Incremented whenever a reference is added to or removed from any marker, and whenever the marker bits change.
+     */
+    private static final AtomicInteger GENERATION = new AtomicInteger();
+
+    /**
+     * The cached bitmask, kept together with the generation it was computed for so that both are read atomically.
+     */
+    private static final class MaskCache {
+        final int generation;
+        final long mask;
+
+        MaskCache(int generation, long mask) {
+            this.generation = generation;
+            this.mask = mask;
+        }
+    }
+
+    @NotNull
+    private final String name;
+    private final List<Marker> references = new CopyOnWriteArrayList<Marker>();
+    @Nullable
+    private transient volatile MaskCache maskCache;
+
+    HandroidMarker(@NotNull String name) {
+        this.name = name;
+    }
+
+    /**
+     * Invalidates the cached bitmasks of all markers; called when the bits of the disabled markers change.
+     */
+    static void invalidateMasks() {
+        GENERATION.incrementAndGet();
+    }
+
+    /**
+     * @return the bits of this marker and all of its references, transitively; only disabled markers have a bit,
+     * see {@link HandroidMarkerFactory#getBit(String)}.
+     */
+    long getMask() {
+        final int generation = GENERATION.get();
+        final MaskCache cache = maskCache;
+        if (cache != null && cache.generation == generation) {
+            return cache.mask;
+        }
+        final int bit = HandroidMarkerFactory.getBit(name);
+        long mask = bit < 0 ? 0 : 1L << bit;
+        for (Marker reference : references) {
+            if (reference instanceof HandroidMarker) {
+                mask |= ((HandroidMarker) reference).getMask();
+            }
+        }
+        maskCache = new MaskCache(generation, mask);
+        return mask;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void add(Marker reference) {
+        if (reference == null) {
+            throw new IllegalArgumentException("A null value cannot be added to a Marker as reference.");
+        }
+        // no point in adding the reference multiple times; a reference must not hold its parent, to avoid recursion
+        if (!contains(reference) && !reference.contains(this)) {
+            references.add(reference);
+            GENERATION.incrementAndGet();
+        }
+    }
+
+    @Override
+    public boolean remove(Marker reference) {
+        final boolean removed = references.remove(reference);
+        if (removed) {
+            GENERATION.incrementAndGet();
+        }
+        return removed;
+    }
+
+    @Override
+    @Deprecated
+    public boolean hasChildren() {
+        return hasReferences();
+    }
+
+    @Override
+    public boolean hasReferences() {
+        return !references.isEmpty();
+    }
+
+    @Override
+    public Iterator<Marker> iterator() {
+        return references.iterator();
+    }
+
+    @Override
+    public boolean contains(Marker other) {
+        if (other == null) {
+            throw new IllegalArgumentException("Other cannot be null");
+        }
+        if (equals(other)) {
+            return true;
+        }
+        for (Marker reference : references) {
+            if (reference.contains(other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Other cannot be null");
+        }
+        if (this.name.equals(name)) {
+            return true;
+        }
+        for (Marker reference : references) {
+            if (reference.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof Marker && name.equals(((Marker) obj).getName());
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        if (references.isEmpty()) {
+            return name;
+        }
+        final StringBuilder sb = new StringBuilder(name).append(" [ ");
+        for (Iterator<Marker> it = references.iterator(); it.hasNext(); ) {
+            sb.append(it.next().getName());
+            if (it.hasNext()) {
+                sb.append(", ");
+            }
+        }
+        return sb.append(" ]").toString();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.IMarkerFactory;
+import org.slf4j.Marker;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates {@link HandroidMarker}s.
+ * <p></p>
+ * Also holds the marker filter, see {@link HandroidLoggerAdapter#setMarkerEnabled(String, boolean)}: a bitset of disabled
+ * markers. A marker name is given a bit only when it is disabled, and the bit is released when it is enabled again, so
+ * that any number of markers may exist; at most 64 of them can be disabled at once. Markers without a bit are enabled.
+ * Detached markers share the bit of the attached marker of the same name.
+ * @author mvy
+ */
+final class HandroidMarkerFactory implements IMarkerFactory {
+    /**
+     * The number of markers which can be disabled at once.
+     */
+    static final int MAX_FILTERED_MARKERS = 64;
+
+    private final ConcurrentMap<String, HandroidMarker> markers = new ConcurrentHashMap<String, HandroidMarker>();
+
+    /**
+     * Maps the names of the disabled markers to their bits in {@link #disabledMarkers}. Copy-on-write, modified under
+     * the lock of the factory.
+     */
+    @NotNull
+    private static volatile Map<String, Integer> bits = Collections.emptyMap();
+    /**
+     * The bits of the disabled markers; 0 if all markers are enabled.
+     */
+    private static volatile long disabledMarkers = 0;
+    /**
+     * The names of the disabled markers, used for markers not created by this factory.
+     */
+    @NotNull
+    private static volatile String[] disabledMarkerNames = new String[0];
+
+    /**
+     * @return false if the marker or any of its references is disabled.
+     */
+    static boolean isEnabled(Marker marker) {
+        final long disabled = disabledMarkers;
+        if (disabled == 0 || marker == null) {
+            return true;
+        }
+        if (marker instanceof HandroidMarker) {
+            return (((HandroidMarker) marker).getMask() & disabled) == 0;
+        }
+        // a marker created by other factory, e.g. a BasicMarker: slow path
+        for (String name : disabledMarkerNames) {
+            if (marker.contains(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the bit of given marker, 0..63; -1 if the marker is enabled.
+     */
+    static int getBit(@NotNull String name) {
+        final Integer bit = bits.get(name);
+        return bit == null ? -1 : bit;
+    }
+
+    /**
+     * Enables or disables given marker, see {@link HandroidLoggerAdapter#setMarkerEnabled(String, boolean)}.
+     */
+    synchronized void setEnabled(@NotNull String name, boolean enabled) {
+        final Map<String, Integer> newBits = new HashMap<String, Integer>(bits);
+        if (enabled) {
+            if (newBits.remove(name) == null) {
+                return;
+            }
+        } else {
+            if (newBits.containsKey(name)) {
+                return;
+            }
+            if (newBits.size() >= MAX_FILTERED_MARKERS) {
+                throw new IllegalArgumentException("Parameter name: invalid value " + name + ": at most " + MAX_FILTERED_MARKERS + " markers can be disabled at once");
+            }
+            newBits.put(name, Long.numberOfTrailingZeros(~disabledMarkers));
+        }
+        long disabled = 0;
+        final String[] names = new String[newBits.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : newBits.entrySet()) {
+            disabled |= 1L << entry.getValue();
+            names[i++] = entry.getKey();
+        }
+        bits = newBits;
+        // the cached masks may contain the bit of a marker enabled just now, which may be reused by another marker later
+        HandroidMarker.invalidateMasks();
+        disabledMarkerNames = names;
+        disabledMarkers = disabled;
+    }
+
+    @Override
+    public Marker getMarker(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Marker name cannot be null");
+        }
+        HandroidMarker marker = markers.get(name);
+        if (marker == null) {
+            marker = new HandroidMarker(name);
+            final HandroidMarker old = markers.putIfAbsent(name, marker);
+            if (old != null) {
+                marker = old;
+            }
+        }
+        return marker;
+    }
+
+    @Override
+    public boolean exists(String name) {
+        return name != null && markers.containsKey(name);
+    }
+
+    @Override
+    public boolean detachMarker(String name) {
+        return name != null && markers.remove(name) != null;
+    }
+
+    @Override
+    public Marker getDetachedMarker(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Marker name cannot be null");
+        }
+        return new HandroidMarker(name);
+    }
+}
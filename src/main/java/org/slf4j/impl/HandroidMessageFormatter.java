@@ -0,0 +1,284 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.helpers.MessageFormatter;
+import org.slf4j.helpers.Util;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Produces exactly the same output as {@link MessageFormatter#arrayFormat(String, Object[])}, including the handling of
+ * <code>\{}</code> and <code>\\{}</code> escapes and the rendering of arrays, but with less garbage: there are specialized
+ * methods for one and two arguments so that no varargs array needs to be created, no {@link org.slf4j.helpers.FormattingTuple}
+ * is created and the message is rendered into a per-thread reusable {@link StringBuilder}. The only allocation is the
+ * resulting String; if there is nothing to substitute, the pattern itself is returned.
+ * <p></p>
+ * Unlike {@link MessageFormatter}, these methods do not extract the trailing {@link Throwable} argument - the caller does that.
+ * @author mvy
+ */
+final class HandroidMessageFormatter {
+    private HandroidMessageFormatter() {
+    }
+
+    /**
+     * Buffers larger than this are not kept for reuse, so that a single huge message doesn't occupy the memory forever.
+     */
+    private static final int MAX_REUSED_CAPACITY = 16 * 1024;
+
+    /**
+     * The reusable buffer; null while the buffer is in use. That happens when an argument's toString() logs something
+     * itself - in such case the nested call simply allocates its own buffer.
+     */
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+
+    @Nullable
+    static String format(@Nullable String pattern, @Nullable Object arg) {
+        return format(pattern, 1, arg, null, null);
+    }
+
+    @Nullable
+    static String format(@Nullable String pattern, @Nullable Object arg1, @Nullable Object arg2) {
+        return format(pattern, 2, arg1, arg2, null);
+    }
+
+    /**
+     * Computes the value of a {@link LogSupplier}.
+     * @return the value, or a placeholder if the supplier fails.
+     */
+    @Nullable
+    static Object get(@NotNull LogSupplier supplier) {
+        try {
+            return supplier.get();
+        } catch (Throwable t) {
+            Util.report("SLF4J: Failed get() invocation on an object of type [" + supplier.getClass().getName() + "]", t);
+            return "[FAILED get()]";
+        }
+    }
+
+    /**
+     * Computes the value of a {@link LogFunction}, the same way as {@link #get(LogSupplier)}.
+     * @return the value, or a placeholder if the function fails.
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    static Object apply(@NotNull LogFunction<?> function, @Nullable Object input) {
+        try {
+            return ((LogFunction<Object>) function).apply(input);
+        } catch (Throwable t) {
+            Util.report("SLF4J: Failed apply() invocation on an object of type [" + function.getClass().getName() + "]", t);
+            return "[FAILED apply()]";
+        }
+    }
+
+    /**
+     * Formats the message using first <code>count</code> items of the <code>args</code> array.
+     */
+    @Nullable
+    static String format(@Nullable String pattern, @Nullable Object[] args, int count) {
+        if (args == null) {
+            return pattern;
+        }
+        return format(pattern, count, null, null, args);
+    }
+
+    /**
+     * @param count the number of arguments
+     * @param args if not null, the arguments are taken from this array. Otherwise <code>arg1</code> and <code>arg2</code> are used.
+     */
+    @Nullable
+    private static String format(@Nullable String pattern, int count, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object[] args) {
+        if (pattern == null || count == 0) {
+            return pattern;
+        }
+        int j = pattern.indexOf("{}");
+        if (j < 0) {
+            return pattern;
+        }
+        final StringBuilder sb = acquire();
+        try {
+            int i = 0;
+            int argIndex = 0;
+            while (j >= 0 && argIndex < count) {
+                if (j > 0 && pattern.charAt(j - 1) == '\\') {
+                    if (j > 1 && pattern.charAt(j - 2) == '\\') {
+                        // the escape character is itself escaped: "abc x:\\{}"
+                        sb.append(pattern, i, j - 1);
+                        appendParameter(sb, getArg(argIndex++, arg1, arg2, args), null);
+                        i = j + 2;
+                    } else {
+                        // the {} is escaped and doesn't consume the argument
+                        sb.append(pattern, i, j - 1);
+                        sb.append('{');
+                        i = j + 1;
+                    }
+                } else {
+                    sb.append(pattern, i, j);
+                    appendParameter(sb, getArg(argIndex++, arg1, arg2, args), null);
+                    i = j + 2;
+                }
+                j = pattern.indexOf("{}", i);
+            }
+            sb.append(pattern, i, pattern.length());
+            return sb.toString();
+        } finally {
+            release(sb);
+        }
+    }
+
+    @Nullable
+    private static Object getArg(int index, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object[] args) {
+        if (args != null) {
+            return args[index];
+        }
+        return index == 0 ? arg1 : arg2;
+    }
+
+    @NotNull
+    private static StringBuilder acquire() {
+        final StringBuilder sb = BUFFER.get();
+        if (sb == null) {
+            return new StringBuilder(256);
+        }
+        BUFFER.set(null);
+        return sb;
+    }
+
+    private static void release(@NotNull StringBuilder sb) {
+        if (sb.capacity() <= MAX_REUSED_CAPACITY) {
+            sb.setLength(0);
+            BUFFER.set(sb);
+        } else {
+            BUFFER.remove();
+        }
+    }
+
+    /**
+     * Mirrors MessageFormatter.deeplyAppendParameter(); in addition, a {@link LogSupplier} is rendered as its value.
+     * @param seen the Object arrays currently being rendered, to detect self-referencing arrays. Lazily created.
+     */
+    private static void appendParameter(@NotNull StringBuilder sb, @Nullable Object o, @Nullable Map<Object[], Object> seen) {
+        if (o instanceof LogSupplier) {
+            o = get((LogSupplier) o);
+        }
+        if (o == null) {
+            sb.append("null");
+            return;
+        }
+        if (!o.getClass().isArray()) {
+            try {
+                sb.append(o.toString());
+            } catch (Throwable t) {
+                Util.report("SLF4J: Failed toString() invocation on an object of type [" + o.getClass().getName() + "]", t);
+                sb.append("[FAILED toString()]");
+            }
+        } else if (o instanceof Object[]) {
+            appendObjectArray(sb, (Object[]) o, seen);
+        } else {
+            appendPrimitiveArray(sb, o);
+        }
+    }
+
+    private static void appendObjectArray(@NotNull StringBuilder sb, @NotNull Object[] a, @Nullable Map<Object[], Object> seen) {
+        sb.append('[');
+        if (seen == null) {
+            seen = new IdentityHashMap<Object[], Object>();
+        }
+        if (!seen.containsKey(a)) {
+            seen.put(a, null);
+            for (int i = 0; i < a.length; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                appendParameter(sb, a[i], seen);
+            }
+            seen.remove(a);
+        } else {
+            sb.append("...");
+        }
+        sb.append(']');
+    }
+
+    private static void appendPrimitiveArray(@NotNull StringBuilder sb, @NotNull Object a) {
+        sb.append('[');
+        if (a instanceof boolean[]) {
+            final boolean[] array = (boolean[]) a;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(array[i]);
+            }
+        } else if (a instanceof byte[]) {
+            final byte[] array = (byte[]) a;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(array[i]);
+            }
+        } else if (a instanceof char[]) {
+            final char[] array = (char[]) a;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(array[i]);
+            }
+        } else if (a instanceof short[]) {
+            final short[] array = (short[]) a;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(array[i]);
+            }
+        } else if (a instanceof int[]) {
+            final int[] array = (int[]) a;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(array[i]);
+            }
+        } else if (a instanceof long[]) {
+            final long[] array = (long[]) a;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(array[i]);
+            }
+        } else if (a instanceof float[]) {
+            final float[] array = (float[]) a;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(array[i]);
+            }
+        } else {
+            final double[] array = (double[]) a;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(array[i]);
+            }
+        }
+        sb.append(']');
+    }
+}
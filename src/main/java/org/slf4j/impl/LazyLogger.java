@@ -0,0 +1,60 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Logs lazily computed messages: the message is computed only if the priority is loggable. The loggers returned by
+ * {@link org.slf4j.LoggerFactory#getLogger(String)} implement this interface, so a cast is enough:
+ * <pre>
+ * private static final Logger logger = LoggerFactory.getLogger(MyClass.class);
+ * private static final LazyLogger lazyLogger = (LazyLogger) logger;
+ * </pre>
+ * Use {@link HandroidLoggerAdapter#lazy(org.slf4j.Logger)} instead of the cast if the code may run with another SLF4J binding
+ * (e.g. in unit tests).
+ * @author mvy
+ */
+public interface LazyLogger {
+    void trace(@NotNull LogSupplier message);
+
+    <T> void trace(@NotNull LogFunction<? super T> message, @Nullable T input);
+
+    void debug(@NotNull LogSupplier message);
+
+    <T> void debug(@NotNull LogFunction<? super T> message, @Nullable T input);
+
+    void info(@NotNull LogSupplier message);
+
+    <T> void info(@NotNull LogFunction<? super T> message, @Nullable T input);
+
+    void warn(@NotNull LogSupplier message);
+
+    <T> void warn(@NotNull LogFunction<? super T> message, @Nullable T input);
+
+    void error(@NotNull LogSupplier message);
+
+    <T> void error(@NotNull LogFunction<? super T> message, @Nullable T input);
+}
@@ -0,0 +1,240 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Log level thresholds by logger name prefix, e.g. <code>com.acme.net=DEBUG</code>, resolved against the original logger
+ * name rather than the (possibly truncated) tag. Immutable: every configuration change creates a new instance. The
+ * thresholds are stored in a trie of the dot-separated name segments; the most specific prefix wins.
+ * <p></p>
+ * The initial configuration is loaded from the {@value #RESOURCE} classpath resource, if present:
+ * <pre>
+ * level=INFO
+ * level.com.acme=WARN
+ * level.com.acme.net=DEBUG
+ * level.com.acme.net.Chatty=OFF
+ * </pre>
+ * The <code>level</code> key sets the threshold of all loggers. See {@link HandroidLoggerAdapter#setLevel(String, int)} for details.
+ * @author mvy
+ */
+final class LevelConfig {
+    /**
+     * The classpath resource the configuration is loaded from.
+     */
+    static final String RESOURCE = "slf4j-handroid.properties";
+    /**
+     * The prefix of the level keys in the {@link #RESOURCE}.
+     */
+    static final String KEY_PREFIX = "level";
+    /**
+     * No threshold configured: the logger is governed by {@link HandroidConfig#isDebug()} and {@link Log#isLoggable(String, int)}.
+     */
+    static final int UNSET = 0;
+
+    static final LevelConfig EMPTY = new LevelConfig(Collections.<String, Integer>emptyMap());
+
+    /**
+     * The active configuration, never null.
+     */
+    @NotNull
+    static volatile LevelConfig current = loadResource();
+
+    /**
+     * A trie node: the name segment children and the threshold of the prefix ending at this node.
+     */
+    private static final class Node {
+        @NotNull
+        final Map<String, Node> children = new HashMap<String, Node>();
+        int threshold = UNSET;
+    }
+
+    /**
+     * Maps the prefix to the threshold; the empty prefix applies to all loggers. Sorted, so that {@link #toString()} is stable.
+     */
+    @NotNull
+    private final Map<String, Integer> thresholds;
+    @NotNull
+    private final Node root = new Node();
+
+    private LevelConfig(@NotNull Map<String, Integer> thresholds) {
+        this.thresholds = thresholds;
+        for (Map.Entry<String, Integer> entry : thresholds.entrySet()) {
+            Node node = root;
+            final String prefix = entry.getKey();
+            if (!prefix.isEmpty()) {
+                for (String segment : prefix.split("\\.", -1)) {
+                    Node child = node.children.get(segment);
+                    if (child == null) {
+                        child = new Node();
+                        node.children.put(segment, child);
+                    }
+                    node = child;
+                }
+            }
+            node.threshold = entry.getValue();
+        }
+    }
+
+    /**
+     * Finds the threshold of the longest configured prefix of given logger name. A prefix matches whole name segments
+     * only: <code>com.acme</code> matches <code>com.acme.net.Client</code> but not <code>com.acmesoft.Client</code>.
+     * @param loggerName the original logger name, may be null for the anonymous logger.
+     * @return the minimum loggable priority, {@link Log#ASSERT} + 1 if the logger is off, or {@link #UNSET}.
+     */
+    int getThreshold(@Nullable String loggerName) {
+        Node node = root;
+        int threshold = node.threshold;
+        if (loggerName == null || node.children.isEmpty()) {
+            return threshold;
+        }
+        int start = 0;
+        while (start <= loggerName.length()) {
+            int end = loggerName.indexOf('.', start);
+            if (end < 0) {
+                end = loggerName.length();
+            }
+            node = node.children.get(loggerName.substring(start, end));
+            if (node == null) {
+                break;
+            }
+            if (node.threshold != UNSET) {
+                threshold = node.threshold;
+            }
+            start = end + 1;
+        }
+        return threshold;
+    }
+
+    /**
+     * @param prefix the logger name prefix, empty for all loggers.
+     * @param threshold the minimum loggable priority, or {@link #UNSET} to remove the threshold.
+     * @return a copy of this configuration with given threshold.
+     */
+    @NotNull
+    LevelConfig with(@NotNull String prefix, int threshold) {
+        final Map<String, Integer> map = new TreeMap<String, Integer>(thresholds);
+        if (threshold == UNSET) {
+            map.remove(prefix);
+        } else {
+            map.put(prefix, threshold);
+        }
+        return new LevelConfig(map);
+    }
+
+    /**
+     * Parses the <code>level</code> and <code>level.*</code> keys; other keys are ignored.
+     * @throws IllegalArgumentException if a level is not valid.
+     */
+    @NotNull
+    static LevelConfig parse(@NotNull Properties properties) {
+        final Map<String, Integer> map = new TreeMap<String, Integer>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.equals(KEY_PREFIX)) {
+                map.put("", parseLevel(key, properties.getProperty(key)));
+            } else if (key.startsWith(KEY_PREFIX + ".")) {
+                map.put(key.substring(KEY_PREFIX.length() + 1), parseLevel(key, properties.getProperty(key)));
+            }
+        }
+        return new LevelConfig(map);
+    }
+
+    /**
+     * Parses the SLF4J level name (TRACE, DEBUG, INFO, WARN, ERROR), the Android priority name (VERBOSE, ASSERT) or OFF.
+     */
+    static int parseLevel(@NotNull String key, @NotNull String level) {
+        final String l = level.trim().toUpperCase(Locale.US);
+        if (l.equals("TRACE") || l.equals("VERBOSE")) {
+            return Log.VERBOSE;
+        } else if (l.equals("DEBUG")) {
+            return Log.DEBUG;
+        } else if (l.equals("INFO")) {
+            return Log.INFO;
+        } else if (l.equals("WARN")) {
+            return Log.WARN;
+        } else if (l.equals("ERROR")) {
+            return Log.ERROR;
+        } else if (l.equals("ASSERT")) {
+            return Log.ASSERT;
+        } else if (l.equals("OFF")) {
+            return Log.ASSERT + 1;
+        }
+        throw new IllegalArgumentException("Parameter " + key + ": invalid value " + level + ": must be one of TRACE, VERBOSE, DEBUG, INFO, WARN, ERROR, ASSERT, OFF");
+    }
+
+    /**
+     * Loads the configuration in the {@link #RESOURCE} format.
+     * @param in not closed.
+     * @throws IllegalArgumentException if a level is not valid.
+     */
+    @NotNull
+    static LevelConfig load(@NotNull InputStream in) throws IOException {
+        final Properties properties = new Properties();
+        properties.load(in);
+        return parse(properties);
+    }
+
+    /**
+     * Loads the configuration from the {@link #RESOURCE}. Never fails: a broken configuration must not crash the app.
+     */
+    @NotNull
+    static LevelConfig loadResource() {
+        try {
+            final InputStream in = LevelConfig.class.getClassLoader().getResourceAsStream(RESOURCE);
+            if (in == null) {
+                return EMPTY;
+            }
+            try {
+                return load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            System.err.println("slf4j-handroid: failed to load " + RESOURCE);
+            e.printStackTrace();
+        } catch (RuntimeException e) {
+            System.err.println("slf4j-handroid: failed to load " + RESOURCE);
+            e.printStackTrace();
+        }
+        return EMPTY;
+    }
+
+    @Override
+    public String toString() {
+        return "LevelConfig" + thresholds;
+    }
+}
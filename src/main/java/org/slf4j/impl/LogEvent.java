@@ -0,0 +1,174 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+/**
+ * An immutable log message. Passed to the {@link LogSink}s and handed over to other threads, see
+ * {@link HandroidLoggerAdapter#enableAsyncLogging(int, AsyncOverflowPolicy)}.
+ * <p></p>
+ * The message is formatted lazily, upon the first call to {@link #getMessage()}: sinks which don't need the text
+ * (e.g. {@link BinaryLogSink}) may use the {@link #format} and the {@link #arguments} directly.
+ * @author mvy
+ */
+public final class LogEvent {
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    /**
+     * The Android priority, {@link android.util.Log#VERBOSE}..{@link android.util.Log#ASSERT}.
+     */
+    public final int priority;
+    /**
+     * The logger tag, never null.
+     */
+    @NotNull
+    public final String tag;
+    /**
+     * The SLF4J message pattern, e.g. <code>Hello {}</code>; for messages logged without arguments, the message itself.
+     * May be null if null was logged.
+     */
+    @Nullable
+    public final String format;
+    /**
+     * The arguments for the {@link #format}, never null, may be empty. Doesn't contain the {@link #throwable}. Must not be modified.
+     */
+    @NotNull
+    public final Object[] arguments;
+    /**
+     * The exception to log, may be null.
+     */
+    @Nullable
+    public final Throwable throwable;
+
+    /**
+     * The time the message was logged, in milliseconds since the epoch, see {@link System#currentTimeMillis()}.
+     */
+    public final long timestamp;
+
+    /**
+     * The MDC of the thread which logged the message, unmodifiable, never null. See {@link HandroidMDCAdapter}.
+     */
+    @NotNull
+    public final Map<String, String> mdc;
+
+    @NotNull
+    private final HandroidMDCAdapter.Context mdcContext;
+
+    /**
+     * Whether the message is prefixed by the {@link #mdc}; captured when the event is created, so that an event
+     * written later by another thread follows the configuration active when it was logged.
+     */
+    private final boolean mdcRendered;
+
+    /**
+     * Lazily computed by {@link #getMessage()}. No need for volatile: String is immutable, at worst two threads
+     * format the message concurrently.
+     */
+    @Nullable
+    private String message;
+
+    /**
+     * Lazily computed by {@link #getRenderedMessage()}, see {@link #message} for details.
+     */
+    @Nullable
+    private String renderedMessage;
+
+    /**
+     * Creates the event logged by the current thread right now.
+     */
+    LogEvent(int priority, @NotNull String tag, @Nullable String message, @Nullable Throwable throwable) {
+        this(priority, tag, message, NO_ARGUMENTS, throwable, System.currentTimeMillis(), HandroidMDCAdapter.getContext());
+    }
+
+    /**
+     * Creates the event with an empty MDC.
+     */
+    LogEvent(int priority, @NotNull String tag, @Nullable String format, @NotNull Object[] arguments, @Nullable Throwable throwable, long timestamp) {
+        this(priority, tag, format, arguments, throwable, timestamp, HandroidMDCAdapter.Context.EMPTY);
+    }
+
+    LogEvent(int priority, @NotNull String tag, @Nullable String format, @NotNull Object[] arguments, @Nullable Throwable throwable,
+             long timestamp, @NotNull HandroidMDCAdapter.Context mdc) {
+        this.priority = priority;
+        this.tag = tag;
+        this.format = format;
+        this.arguments = arguments;
+        this.throwable = throwable;
+        this.timestamp = timestamp;
+        this.mdc = mdc.map;
+        this.mdcContext = mdc;
+        mdcRendered = !mdc.map.isEmpty() && HandroidConfig.current.isRenderMdc();
+        if (arguments.length == 0) {
+            message = format;
+        }
+    }
+
+    /**
+     * Returns the formatted message, without the stack trace. Not yet processed by the workarounds of {@link HandroidLoggerAdapter}.
+     * The message is formatted just once, upon the first call of this method.
+     * @return the formatted message, may be null if null was logged.
+     */
+    @Nullable
+    public String getMessage() {
+        String formatted = message;
+        if (formatted == null && format != null) {
+            formatted = HandroidMessageFormatter.format(format, arguments, arguments.length);
+            message = formatted;
+        }
+        return formatted;
+    }
+
+    /**
+     * Returns the message post-processed by handroid, with the stack trace appended and prefixed by the {@link #mdc} if
+     * {@link HandroidConfig#isRenderMdc()} was set when the event was logged. The message is rendered just once, upon the first call of this
+     * method, and then shared by all sinks.
+     * @return the message as written into logcat.
+     */
+    @NotNull
+    public String getRenderedMessage() {
+        String rendered = renderedMessage;
+        if (rendered == null) {
+            final String message = getMessage();
+            rendered = HandroidLoggerAdapter.render(isMdcRendered() ? mdcContext.getPrefix() + message : message, throwable);
+            renderedMessage = rendered;
+        }
+        return rendered;
+    }
+
+    /**
+     * @return true if {@link #getRenderedMessage()} is prefixed by the {@link #mdc}.
+     */
+    boolean isMdcRendered() {
+        return mdcRendered;
+    }
+
+    @Override
+    public String toString() {
+        return "LogEvent{" + priority + " " + tag + ": " + getMessage() + (throwable == null ? "" : ", " + throwable) + '}';
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A lazily computed log message which depends on an input, see {@link LazyLogger#debug(LogFunction, Object)}. Unlike an
+ * anonymous {@link LogSupplier} reading a local variable, a <code>static final</code> function takes the variable as
+ * the input and captures nothing, so that the call site allocates nothing:
+ * <pre>
+ * private static final LogFunction&lt;Request&gt; DUMP = new LogFunction&lt;Request&gt;() {
+ *     public Object apply(Request request) {
+ *         return request.dumpHeaders();
+ *     }
+ * };
+ * ...
+ * lazyLogger.debug(DUMP, request);
+ * </pre>
+ * @param <T> the input type.
+ * @author mvy
+ */
+public interface LogFunction<T> {
+    /**
+     * @param input the value passed to the logger along with this function.
+     * @return the value to log.
+     */
+    @Nullable
+    Object apply(@Nullable T input);
+}
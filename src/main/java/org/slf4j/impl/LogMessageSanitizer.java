@@ -0,0 +1,206 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Post-processes log messages, to work around Android Studio 1.5 bugs:
+ * <ol>
+ *     <li>removes all characters with code point 0..31 (for example \r) - if those characters are present in the message,
+ *     the message is not simply logged at all by Android (!!!). See https://code.google.com/p/android/issues/detail?id=194446
+ *     and https://code.google.com/p/android/issues/detail?id=194974 . The characters are replaced by a space.</li>
+ *     <li>removes two or more consecutive \n: https://code.google.com/p/android/issues/detail?id=195164</li>
+ * </ol>
+ * The result is also trimmed, as if by {@link String#trim()}.
+ * <p></p>
+ * The message and the stack trace are processed in a single pass, into a per-thread reusable buffer. Use
+ * {@link #sanitize(String)} for messages without stack traces - it returns the message itself if there's nothing to fix.
+ * Otherwise obtain the buffer via {@link #acquire()}, {@link #append(CharSequence)} the message parts, call {@link #toString()}
+ * and {@link #release()} the buffer.
+ * @author mvy
+ */
+final class LogMessageSanitizer {
+    /**
+     * Buffers larger than this are not kept for reuse, so that a single huge stack trace doesn't occupy the memory forever.
+     */
+    private static final int MAX_REUSED_CAPACITY = 32 * 1024;
+
+    /**
+     * The reusable buffer; null while the buffer is in use - in such case {@link #acquire()} allocates a new one.
+     */
+    private static final ThreadLocal<LogMessageSanitizer> BUFFER = new ThreadLocal<LogMessageSanitizer>() {
+        @Override
+        protected LogMessageSanitizer initialValue() {
+            return new LogMessageSanitizer();
+        }
+    };
+
+    private final StringBuilder sb = new StringBuilder(256);
+    /**
+     * True if the last appended raw character was \n.
+     */
+    private boolean lastCharWasNewLine = false;
+
+    private LogMessageSanitizer() {
+    }
+
+    /**
+     * Sanitizes a single message.
+     * @param message the message, null is treated as "null".
+     * @return the message itself if it needs no post-processing, or the post-processed copy.
+     */
+    @NotNull
+    static String sanitize(@Nullable String message) {
+        if (message == null) {
+            return "null";
+        }
+        if (isClean(message)) {
+            return message;
+        }
+        final LogMessageSanitizer buffer = acquire();
+        try {
+            return buffer.append(message).toString();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * @return true if the message contains no control characters apart from a single \n and is already trimmed.
+     */
+    private static boolean isClean(@NotNull String message) {
+        final int length = message.length();
+        if (length == 0) {
+            return true;
+        }
+        if (message.charAt(0) <= ' ' || message.charAt(length - 1) <= ' ') {
+            return false;
+        }
+        boolean lastCharWasNewLine = false;
+        for (int i = 1; i < length - 1; i++) {
+            final char c = message.charAt(i);
+            if (c < ' ') {
+                if (c != '\n' || lastCharWasNewLine) {
+                    return false;
+                }
+                lastCharWasNewLine = true;
+            } else {
+                lastCharWasNewLine = false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Obtains the per-thread buffer. Don't forget to {@link #release()} it afterwards.
+     */
+    @NotNull
+    static LogMessageSanitizer acquire() {
+        final LogMessageSanitizer buffer = BUFFER.get();
+        if (buffer == null) {
+            return new LogMessageSanitizer();
+        }
+        BUFFER.set(null);
+        return buffer;
+    }
+
+    /**
+     * Returns this buffer for reuse by the current thread.
+     */
+    void release() {
+        if (sb.capacity() <= MAX_REUSED_CAPACITY) {
+            sb.setLength(0);
+            lastCharWasNewLine = false;
+            BUFFER.set(this);
+        } else {
+            BUFFER.remove();
+        }
+    }
+
+    /**
+     * Post-processes and appends given characters. Leading whitespaces of the message are dropped right away.
+     * @param s the characters to append, null is treated as "null".
+     * @return this
+     */
+    @NotNull
+    LogMessageSanitizer append(@Nullable CharSequence s) {
+        if (s == null) {
+            s = "null";
+        }
+        final int length = s.length();
+        for (int i = 0; i < length; i++) {
+            append(s.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Post-processes and appends given character. Leading whitespaces of the message are dropped right away.
+     * @return this
+     */
+    @NotNull
+    LogMessageSanitizer append(char c) {
+        if (c == '\n') {
+            if (!lastCharWasNewLine && sb.length() > 0) {
+                sb.append(c);
+            }
+            lastCharWasNewLine = true;
+        } else {
+            if (c > ' ') {
+                sb.append(c);
+            } else if (sb.length() > 0) {
+                // control characters are replaced by a space
+                sb.append(' ');
+            }
+            lastCharWasNewLine = false;
+        }
+        return this;
+    }
+
+    /**
+     * Appends given number. Allocates no String.
+     * @return this
+     */
+    @NotNull
+    LogMessageSanitizer append(int i) {
+        sb.append(i);
+        lastCharWasNewLine = false;
+        return this;
+    }
+
+    /**
+     * @return the post-processed message with trailing whitespaces removed.
+     */
+    @NotNull
+    @Override
+    public String toString() {
+        int length = sb.length();
+        while (length > 0 && sb.charAt(length - 1) <= ' ') {
+            length--;
+        }
+        return sb.substring(0, length);
+    }
+}
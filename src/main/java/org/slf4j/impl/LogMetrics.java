@@ -0,0 +1,155 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The logging counters, see {@link HandroidLoggerAdapter#enableMetrics(boolean)}.
+ * <p></p>
+ * The counters are striped: every thread updates the stripe selected by its id, and the stripes are far enough apart not
+ * to share a cache line, so that threads logging concurrently don't contend. {@link #snapshot()} sums the stripes up.
+ * @author mvy
+ */
+final class LogMetrics {
+    /**
+     * The active metrics, null if disabled. Checked by the loggers; when null, the loggers skip the metrics altogether.
+     */
+    @Nullable
+    static volatile LogMetrics current;
+
+    /**
+     * Latencies of 2<sup>i-1</sup>..2<sup>i</sup>-1 nanoseconds are counted in bucket i; the last bucket takes the rest.
+     */
+    static final int LATENCY_BUCKETS = 40;
+    private static final int EVENTS = 0;
+    private static final int SUPPRESSED = EVENTS + Log.ASSERT + 1;
+    private static final int CHARACTERS = SUPPRESSED + Log.ASSERT + 1;
+    private static final int STACK_TRACES = CHARACTERS + 1;
+    private static final int LATENCY = STACK_TRACES + 1;
+    /**
+     * The stripe size in longs: all counters plus at least a cache line of padding.
+     */
+    private static final int STRIDE = LATENCY + LATENCY_BUCKETS + 8;
+    /**
+     * The stride of the per-tag counters: one counter plus padding up to a cache line.
+     */
+    private static final int TAG_STRIDE = 8;
+
+    private final int stripeMask;
+    private final AtomicLongArray counters;
+    private final ConcurrentMap<String, AtomicLongArray> tagCounters = new ConcurrentHashMap<String, AtomicLongArray>();
+
+    LogMetrics() {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final int stripes = Math.min(16, Integer.highestOneBit(Math.max(1, processors)) << 1);
+        stripeMask = stripes - 1;
+        counters = new AtomicLongArray(stripes * STRIDE);
+    }
+
+    private int stripe() {
+        final long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & stripeMask;
+    }
+
+    /**
+     * A message was not logged since its priority is not loggable.
+     */
+    void recordSuppressed(int priority) {
+        counters.incrementAndGet(stripe() * STRIDE + SUPPRESSED + priority);
+    }
+
+    /**
+     * A message was logged.
+     * @param latencyNanos the time spent by the logging thread formatting and writing the message.
+     */
+    void recordEvent(int priority, @NotNull String tag, long latencyNanos) {
+        final int stripe = stripe();
+        final int base = stripe * STRIDE;
+        counters.incrementAndGet(base + EVENTS + priority);
+        final int bucket = Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, latencyNanos)));
+        counters.incrementAndGet(base + LATENCY + bucket);
+        AtomicLongArray tagCounter = tagCounters.get(tag);
+        if (tagCounter == null) {
+            tagCounter = new AtomicLongArray((stripeMask + 1) * TAG_STRIDE);
+            final AtomicLongArray old = tagCounters.putIfAbsent(tag, tagCounter);
+            if (old != null) {
+                tagCounter = old;
+            }
+        }
+        tagCounter.incrementAndGet(stripe * TAG_STRIDE);
+    }
+
+    /**
+     * Characters were written to logcat.
+     */
+    void recordCharacters(int count) {
+        counters.addAndGet(stripe() * STRIDE + CHARACTERS, count);
+    }
+
+    /**
+     * A stack trace was rendered in full.
+     */
+    void recordStackTrace() {
+        counters.incrementAndGet(stripe() * STRIDE + STACK_TRACES);
+    }
+
+    /**
+     * Sums the stripes up. The counters are read one by one while the other threads keep logging, so the snapshot is
+     * not necessarily consistent across counters.
+     */
+    @NotNull
+    LogMetricsSnapshot snapshot() {
+        final long[] totals = new long[STRIDE];
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            for (int i = 0; i < STRIDE; i++) {
+                totals[i] += counters.get(stripe * STRIDE + i);
+            }
+        }
+        final Map<String, Long> tags = new HashMap<String, Long>();
+        for (Map.Entry<String, AtomicLongArray> entry : tagCounters.entrySet()) {
+            long count = 0;
+            for (int stripe = 0; stripe <= stripeMask; stripe++) {
+                count += entry.getValue().get(stripe * TAG_STRIDE);
+            }
+            tags.put(entry.getKey(), count);
+        }
+        final long[] events = new long[Log.ASSERT + 1];
+        System.arraycopy(totals, EVENTS, events, 0, events.length);
+        final long[] suppressed = new long[Log.ASSERT + 1];
+        System.arraycopy(totals, SUPPRESSED, suppressed, 0, suppressed.length);
+        final long[] latency = new long[LATENCY_BUCKETS];
+        System.arraycopy(totals, LATENCY, latency, 0, latency.length);
+        return new LogMetricsSnapshot(events, suppressed, tags, totals[CHARACTERS], totals[STACK_TRACES], latency);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the logging counters, see {@link HandroidLoggerAdapter#getMetrics()}. Export it to your own
+ * telemetry, e.g. periodically or when the app goes to background. The counters start at zero when the metrics are enabled.
+ * @author mvy
+ */
+public final class LogMetricsSnapshot {
+    @NotNull
+    private final long[] events;
+    @NotNull
+    private final long[] suppressed;
+    @NotNull
+    private final Map<String, Long> eventsByTag;
+    private final long characters;
+    private final long stackTraces;
+    @NotNull
+    private final long[] latencyHistogram;
+
+    LogMetricsSnapshot(@NotNull long[] events, @NotNull long[] suppressed, @NotNull Map<String, Long> eventsByTag,
+                       long characters, long stackTraces, @NotNull long[] latencyHistogram) {
+        this.events = events;
+        this.suppressed = suppressed;
+        this.eventsByTag = Collections.unmodifiableMap(eventsByTag);
+        this.characters = characters;
+        this.stackTraces = stackTraces;
+        this.latencyHistogram = latencyHistogram;
+    }
+
+    private static void checkPriority(int priority) {
+        if (priority < Log.VERBOSE || priority > Log.ASSERT) {
+            throw new IllegalArgumentException("Parameter priority: invalid value " + priority + ": must be " + Log.VERBOSE + ".." + Log.ASSERT);
+        }
+    }
+
+    /**
+     * @param priority {@link Log#VERBOSE}..{@link Log#ASSERT}
+     * @return the number of messages of given priority which were logged.
+     */
+    public long getEventCount(int priority) {
+        checkPriority(priority);
+        return events[priority];
+    }
+
+    /**
+     * @return the number of messages of all priorities which were logged.
+     */
+    public long getEventCount() {
+        long count = 0;
+        for (long e : events) {
+            count += e;
+        }
+        return count;
+    }
+
+    /**
+     * @param priority {@link Log#VERBOSE}..{@link Log#ASSERT}
+     * @return the number of messages of given priority which were not logged since the priority was not loggable.
+     */
+    public long getSuppressedCount(int priority) {
+        checkPriority(priority);
+        return suppressed[priority];
+    }
+
+    /**
+     * @return maps the tag to the number of messages logged with the tag. Unmodifiable.
+     */
+    @NotNull
+    public Map<String, Long> getEventCountByTag() {
+        return eventsByTag;
+    }
+
+    /**
+     * @return the number of characters written to logcat, including the stack traces.
+     */
+    public long getCharactersEmitted() {
+        return characters;
+    }
+
+    /**
+     * @return the number of stack traces rendered in full; see {@link HandroidLoggerAdapter#enableStackTraceDeduplication(int)}.
+     */
+    public long getStackTracesRendered() {
+        return stackTraces;
+    }
+
+    /**
+     * Returns the histogram of the time the logging thread spent formatting and writing a message. Bucket 0 counts the
+     * latencies of 0 ns; bucket i counts the latencies of 2<sup>i-1</sup> to 2<sup>i</sup>-1 nanoseconds; the last bucket
+     * counts all longer latencies.
+     * @return a copy of the histogram.
+     */
+    @NotNull
+    public long[] getLatencyHistogram() {
+        return latencyHistogram.clone();
+    }
+
+    /**
+     * Estimates the latency percentile from the histogram.
+     * @param percentile 0..100, e.g. 99 for the 99th percentile.
+     * @return the upper bound of the histogram bucket containing the percentile, in nanoseconds; 0 if nothing was logged.
+     */
+    public long getLatencyPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100 || Double.isNaN(percentile)) {
+            throw new IllegalArgumentException("Parameter percentile: invalid value " + percentile + ": must be 0..100");
+        }
+        long total = 0;
+        for (long count : latencyHistogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < latencyHistogram.length; i++) {
+            seen += latencyHistogram[i];
+            if (seen >= rank) {
+                return i == 0 ? 0 : (1L << i) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LogMetricsSnapshot{events=[");
+        for (int p = Log.VERBOSE; p <= Log.ASSERT; p++) {
+            sb.append(p == Log.VERBOSE ? "" : ", ").append(events[p]);
+        }
+        sb.append("], suppressed=[");
+        for (int p = Log.VERBOSE; p <= Log.ASSERT; p++) {
+            sb.append(p == Log.VERBOSE ? "" : ", ").append(suppressed[p]);
+        }
+        return sb.append("], characters=").append(characters).append(", stackTraces=").append(stackTraces)
+                .append(", p50=").append(getLatencyPercentileNanos(50)).append("ns, p99=").append(getLatencyPercentileNanos(99))
+                .append("ns, tags=").append(eventsByTag).append('}').toString();
+    }
+}
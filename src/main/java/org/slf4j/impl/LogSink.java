@@ -0,0 +1,47 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A destination of log messages, e.g. logcat, a file or an in-memory buffer. Register via
+ * {@link HandroidLoggerAdapter#addSink(LogSink, int)}; {@link LogcatSink} is registered by default.
+ * <p></p>
+ * The message is formatted just once and the very same {@link LogEvent} is passed to all sinks. If no sink accepts
+ * the priority of the message, the message is not formatted at all.
+ * <p></p>
+ * The sinks are called by the logging thread, or by the async logging thread if
+ * {@link HandroidLoggerAdapter#enableAsyncLogging(int, AsyncOverflowPolicy)} is active; the implementation must therefore
+ * be thread-safe.
+ * @author mvy
+ */
+public interface LogSink {
+    /**
+     * Writes the log message.
+     * @param event the message, never null. Use {@link LogEvent#getRenderedMessage()} to obtain the message post-processed
+     *              by handroid, including the stack trace.
+     */
+    void write(@NotNull LogEvent event);
+}
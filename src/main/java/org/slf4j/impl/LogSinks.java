@@ -0,0 +1,148 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * The registry of {@link LogSink}s. The registrations are kept in a copy-on-write array, so that writing a message
+ * requires no locking.
+ * @author mvy
+ */
+final class LogSinks {
+    private LogSinks() {
+    }
+
+    /**
+     * A sink, along with the minimum priority of the messages it accepts.
+     */
+    static final class Registration {
+        @NotNull
+        final LogSink sink;
+        final int minPriority;
+
+        Registration(@NotNull LogSink sink, int minPriority) {
+            this.sink = sink;
+            this.minPriority = minPriority;
+        }
+    }
+
+    private static volatile Registration[] registrations = {new Registration(LogcatSink.INSTANCE, Log.VERBOSE)};
+
+    /**
+     * The lowest {@link Registration#minPriority} of all registrations; {@link Integer#MAX_VALUE} if there are no sinks.
+     */
+    private static volatile int minPriority = Log.VERBOSE;
+
+    /**
+     * Registers the sink, or changes its minimum priority if it is already registered.
+     */
+    static synchronized void add(@NotNull LogSink sink, int minPriority) {
+        Registration[] newRegistrations = registrations;
+        final int index = indexOf(sink);
+        if (index < 0) {
+            newRegistrations = Arrays.copyOf(newRegistrations, newRegistrations.length + 1);
+            newRegistrations[newRegistrations.length - 1] = new Registration(sink, minPriority);
+        } else {
+            newRegistrations = newRegistrations.clone();
+            newRegistrations[index] = new Registration(sink, minPriority);
+        }
+        publish(newRegistrations);
+    }
+
+    /**
+     * Unregisters the sink.
+     * @return true if the sink was registered, false if it wasn't.
+     */
+    static synchronized boolean remove(@NotNull LogSink sink) {
+        final int index = indexOf(sink);
+        if (index < 0) {
+            return false;
+        }
+        final Registration[] newRegistrations = new Registration[registrations.length - 1];
+        System.arraycopy(registrations, 0, newRegistrations, 0, index);
+        System.arraycopy(registrations, index + 1, newRegistrations, index, newRegistrations.length - index);
+        publish(newRegistrations);
+        return true;
+    }
+
+    private static int indexOf(@NotNull LogSink sink) {
+        for (int i = 0; i < registrations.length; i++) {
+            if (registrations[i].sink == sink) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void publish(@NotNull Registration[] newRegistrations) {
+        int newMinPriority = Integer.MAX_VALUE;
+        for (Registration registration : newRegistrations) {
+            newMinPriority = Math.min(newMinPriority, registration.minPriority);
+        }
+        registrations = newRegistrations;
+        minPriority = newMinPriority;
+        // the loggers need to take the new minimum priority into account
+        HandroidLoggerAdapter.refreshLogLevels();
+    }
+
+    @NotNull
+    static Registration[] get() {
+        return registrations;
+    }
+
+    /**
+     * @return true if the only sink is {@link LogcatSink} accepting all priorities - the default configuration.
+     */
+    static boolean isLogcatOnly() {
+        final Registration[] r = registrations;
+        return r.length == 1 && r[0].sink == LogcatSink.INSTANCE && r[0].minPriority <= Log.VERBOSE;
+    }
+
+    /**
+     * @return messages with lower priority are not accepted by any sink.
+     */
+    static int getMinPriority() {
+        return minPriority;
+    }
+
+    /**
+     * Passes the message to all sinks accepting its priority. A failing sink doesn't prevent other sinks from receiving the message.
+     */
+    static void write(@NotNull LogEvent event) {
+        for (Registration registration : registrations) {
+            if (event.priority >= registration.minPriority) {
+                try {
+                    registration.sink.write(event);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
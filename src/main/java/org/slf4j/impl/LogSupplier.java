@@ -0,0 +1,47 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A lazily computed log message or message argument. The value is computed only if the message is actually logged,
+ * i.e. after the level check, so there is no need to guard the call by <code>isDebugEnabled()</code>.
+ * <p></p>
+ * Pass it either as an argument of the regular SLF4J methods, e.g. <code>logger.debug("State: {}", DUMP_STATE)</code>,
+ * or as the whole message to {@link LazyLogger}. Prefer a <code>static final</code> instance which captures nothing,
+ * so that the call site allocates nothing; use {@link LogFunction} if the value depends on a local variable.
+ * <p></p>
+ * The value is rendered the same way as any other argument, i.e. arrays are rendered element by element. If
+ * {@link HandroidLoggerAdapter#enableFlightRecorder(int)} is active, the supplier is also called when the recorder
+ * is dumped, possibly by a different thread.
+ * @author mvy
+ */
+public interface LogSupplier {
+    /**
+     * @return the value to log.
+     */
+    @Nullable
+    Object get();
+}
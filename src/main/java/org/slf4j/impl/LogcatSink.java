@@ -0,0 +1,115 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes the log messages to logcat. Registered by default, with {@link Log#VERBOSE} priority; remove it via
+ * {@link HandroidLoggerAdapter#removeSink(LogSink)} if you don't want the messages in logcat.
+ * <p></p>
+ * Logcat silently truncates log entries longer than roughly 4 kilobytes, therefore longer messages are split into multiple
+ * log entries.
+ * @author mvy
+ */
+public final class LogcatSink implements LogSink {
+    /**
+     * The one and only instance.
+     */
+    public static final LogcatSink INSTANCE = new LogcatSink();
+
+    private LogcatSink() {
+    }
+
+    @Override
+    public void write(@NotNull LogEvent event) {
+        println(event.priority, event.tag, event.getRenderedMessage());
+    }
+
+    /**
+     * Logcat silently truncates log entries longer than roughly 4 kilobytes (LOGGER_ENTRY_MAX_PAYLOAD is 4068 bytes,
+     * including the tag). We keep some room for the tag.
+     */
+    static final int LOGCAT_MAX_MESSAGE_BYTES = 4000;
+
+    /**
+     * Passes the message to {@link Log#println(int, String, String)}, splitting it into multiple log entries if it's too long
+     * for logcat. The message is preferably split at a line boundary (the \n itself is not logged); a surrogate pair is never split.
+     * @param message the already post-processed message.
+     */
+    static void println(int priority, @NotNull String tag, @NotNull String message) {
+        final int length = message.length();
+        final LogMetrics metrics = LogMetrics.current;
+        if (metrics != null) {
+            metrics.recordCharacters(length);
+        }
+        // a char takes at most 3 bytes in UTF-8 (a surrogate pair takes 4 bytes for two chars)
+        if (length <= LOGCAT_MAX_MESSAGE_BYTES / 3) {
+            Log.println(priority, tag, message);
+            return;
+        }
+        int start = 0;
+        while (true) {
+            int end = getChunkEnd(message, start);
+            if (end == length) {
+                Log.println(priority, tag, start == 0 ? message : message.substring(start));
+                return;
+            }
+            int newLine = end - 1;
+            while (newLine > start && message.charAt(newLine) != '\n') {
+                newLine--;
+            }
+            if (newLine > start) {
+                Log.println(priority, tag, message.substring(start, newLine));
+                start = newLine + 1;
+            } else {
+                if (Character.isHighSurrogate(message.charAt(end - 1))) {
+                    end--;
+                }
+                Log.println(priority, tag, message.substring(start, end));
+                start = end;
+            }
+        }
+    }
+
+    /**
+     * @return the end index (exclusive) of the longest substring starting at <code>start</code> which fits into
+     * {@link #LOGCAT_MAX_MESSAGE_BYTES} when encoded to UTF-8.
+     */
+    private static int getChunkEnd(@NotNull String message, int start) {
+        final int length = message.length();
+        int bytes = 0;
+        for (int i = start; i < length; i++) {
+            final char c = message.charAt(i);
+            // a surrogate pair is 4 bytes in UTF-8; count 2 bytes per surrogate
+            bytes += c < 0x80 ? 1 : c < 0x800 || (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) ? 2 : 3;
+            if (bytes > LOGCAT_MAX_MESSAGE_BYTES) {
+                return i;
+            }
+        }
+        return length;
+    }
+}
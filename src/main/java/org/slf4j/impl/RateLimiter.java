@@ -0,0 +1,252 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Limits the rate of messages per call site, so that a misbehaving loop can not flood logcat. See
+ * {@link HandroidLoggerAdapter#enableRateLimiting(int, int)}. A call site is identified by the logger name and the format
+ * string.
+ * <p></p>
+ * Every call site has a token bucket, implemented as the generic cell rate algorithm: a single timestamp of the moment
+ * the bucket will be full again. A message which repeats the previous message of the call site (same priority, same format
+ * and equal arguments) is not logged at all, nor does it take a token. When the call site logs a message again, the number
+ * of repeated and throttled messages is logged first; a message repeated for longer than {@link #REPEAT_FLUSH_NANOS}
+ * has the number of repeats logged right away.
+ * <p></p>
+ * The state is kept in a fixed number of slots indexed by the call site hash, updated by compare-and-set only. When two
+ * call sites map to the same slot, the latter one takes the slot over and the repeat count of the former one is lost;
+ * the token bucket and the throttled count stay with the slot, so that colliding call sites share the budget rather
+ * than refilling each other's bucket.
+ * @author mvy
+ */
+final class RateLimiter {
+    private static final int SLOTS = 256;
+    /**
+     * How long a message may be repeated before the number of repeats is logged, as syslogd does: 30 seconds.
+     */
+    static final long REPEAT_FLUSH_NANOS = 30000000000L;
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    /**
+     * The active rate limiter, null if none. Checked by {@link AndroidLoggerAdapter} on every loggable log call.
+     */
+    @Nullable
+    static volatile RateLimiter current;
+
+    /**
+     * The last message logged by a call site.
+     */
+    private static final class CallSite {
+        @NotNull
+        final String name;
+        @Nullable
+        final String format;
+        final int priority;
+        /**
+         * The arguments of the message; null if some argument is not an immutable value and thus can not be compared.
+         */
+        @Nullable
+        final Object[] arguments;
+
+        CallSite(@NotNull String name, @Nullable String format, int priority, @Nullable Object[] arguments) {
+            this.name = name;
+            this.format = format;
+            this.priority = priority;
+            this.arguments = arguments;
+        }
+
+        boolean isSameSite(@NotNull String name, @Nullable String format) {
+            return this.name.equals(name) && (this.format == null ? format == null : this.format.equals(format));
+        }
+    }
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicReferenceArray<CallSite> callSites = new AtomicReferenceArray<CallSite>(SLOTS);
+    /**
+     * The moment the token bucket of the slot will be full, in {@link System#nanoTime()}.
+     */
+    private final AtomicLongArray fullAt = new AtomicLongArray(SLOTS);
+    private final AtomicIntegerArray repeated = new AtomicIntegerArray(SLOTS);
+    /**
+     * The moment the first of the {@link #repeated} messages was suppressed, in {@link System#nanoTime()}.
+     */
+    private final AtomicLongArray repeatedSince = new AtomicLongArray(SLOTS);
+    private final AtomicIntegerArray throttled = new AtomicIntegerArray(SLOTS);
+
+    /**
+     * @param messagesPerSecond the rate the tokens are refilled at.
+     * @param burst the bucket size: the number of messages a call site may log at once.
+     */
+    RateLimiter(int messagesPerSecond, int burst) {
+        if (messagesPerSecond < 1) {
+            throw new IllegalArgumentException("Parameter messagesPerSecond: invalid value " + messagesPerSecond + ": must be 1 or greater");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("Parameter burst: invalid value " + burst + ": must be 1 or greater");
+        }
+        intervalNanos = 1000000000L / messagesPerSecond;
+        burstNanos = intervalNanos * burst;
+    }
+
+    /**
+     * Checks whether the message may be logged. If so, logs the number of messages suppressed since the last message of the
+     * call site first. The arguments are the same as for {@link AndroidLoggerAdapter#logInternal(int, String, int, Object, Object, Object[], Throwable)}.
+     * @return true if the message should be logged, false if it is throttled or repeated.
+     */
+    boolean tryAcquire(@NotNull AndroidLoggerAdapter logger, int priority, @Nullable String format, int argCount,
+                       @Nullable Object arg1, @Nullable Object arg2, @Nullable Object[] args, @Nullable Throwable throwable) {
+        return tryAcquire(logger, priority, format, argCount, arg1, arg2, args, throwable, System.nanoTime());
+    }
+
+    boolean tryAcquire(@NotNull AndroidLoggerAdapter logger, int priority, @Nullable String format, int argCount,
+                       @Nullable Object arg1, @Nullable Object arg2, @Nullable Object[] args, @Nullable Throwable throwable, long now) {
+        final String name = logger.getLoggerName();
+        final int slot = getSlot(name, format);
+        final CallSite last = callSites.get(slot);
+        final boolean sameSite = last != null && last.isSameSite(name, format);
+        if (!sameSite) {
+            // the repeats of the former call site can not be collapsed into this one's; the bucket is kept
+            repeated.set(slot, 0);
+        } else if (throwable == null && last.priority == priority && isSame(last.arguments, argCount, arg1, arg2, args)) {
+            if (repeated.incrementAndGet(slot) == 1) {
+                repeatedSince.set(slot, now);
+            } else if (now - repeatedSince.get(slot) >= REPEAT_FLUSH_NANOS) {
+                final int repeats = repeated.getAndSet(slot, 0);
+                if (repeats > 0) {
+                    logger.logInternal(priority, "Last message repeated " + repeats + " time(s)", null);
+                }
+            }
+            return false;
+        }
+        long full;
+        long newFull;
+        do {
+            full = fullAt.get(slot);
+            newFull = (full - now > 0 ? full : now) + intervalNanos;
+            if (newFull - now > burstNanos) {
+                throttled.incrementAndGet(slot);
+                return false;
+            }
+        } while (!fullAt.compareAndSet(slot, full, newFull));
+        if (!sameSite || last.priority != priority || !remembers(last, argCount, arg1, arg2, args, throwable)) {
+            callSites.set(slot, new CallSite(name, format, priority, throwable == null ? getValues(argCount, arg1, arg2, args) : null));
+        }
+        final int repeats = repeated.getAndSet(slot, 0);
+        if (repeats > 0) {
+            logger.logInternal(sameSite ? last.priority : priority, "Last message repeated " + repeats + " time(s)", null);
+        }
+        final int drops = throttled.getAndSet(slot, 0);
+        if (drops > 0) {
+            logger.logInternal(priority, "Suppressed " + drops + " log message(s) since the rate limit was exceeded", null);
+        }
+        return true;
+    }
+
+    static int getSlot(@NotNull String name, @Nullable String format) {
+        int hash = name.hashCode() * 31 + (format == null ? 0 : format.hashCode());
+        hash ^= hash >>> 16;
+        return hash & (SLOTS - 1);
+    }
+
+    /**
+     * @return true if the remembered arguments are immutable values equal to given arguments.
+     */
+    private static boolean isSame(@Nullable Object[] arguments, int argCount, @Nullable Object arg1, @Nullable Object arg2,
+                                  @Nullable Object[] args) {
+        if (arguments == null || arguments.length != argCount) {
+            return false;
+        }
+        for (int i = 0; i < argCount; i++) {
+            final Object arg = args != null ? args[i] : i == 0 ? arg1 : arg2;
+            final Object previous = arguments[i];
+            if (!isValue(arg) || (previous == null ? arg != null : !previous.equals(arg))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the call site already holds what {@link #getValues(int, Object, Object, Object[])} would
+     * compute for the message, so that it doesn't need to be replaced.
+     */
+    private static boolean remembers(@NotNull CallSite last, int argCount, @Nullable Object arg1, @Nullable Object arg2,
+                                     @Nullable Object[] args, @Nullable Throwable throwable) {
+        if (throwable == null) {
+            if (isSame(last.arguments, argCount, arg1, arg2, args)) {
+                return true;
+            }
+            if (areValues(argCount, arg1, arg2, args)) {
+                // new values to remember
+                return false;
+            }
+        }
+        // the message can not be compared: the call site must not remember any arguments
+        return last.arguments == null;
+    }
+
+    private static boolean areValues(int argCount, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object[] args) {
+        for (int i = 0; i < argCount; i++) {
+            if (!isValue(args != null ? args[i] : i == 0 ? arg1 : arg2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return a copy of the arguments, null if some argument is not an immutable value.
+     */
+    @Nullable
+    private static Object[] getValues(int argCount, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object[] args) {
+        if (argCount == 0) {
+            return NO_ARGUMENTS;
+        }
+        if (!areValues(argCount, arg1, arg2, args)) {
+            return null;
+        }
+        final Object[] values = new Object[argCount];
+        for (int i = 0; i < argCount; i++) {
+            values[i] = args != null ? args[i] : i == 0 ? arg1 : arg2;
+        }
+        return values;
+    }
+
+    /**
+     * Only immutable values are compared: a mutable object logged repeatedly may print differently every time.
+     */
+    private static boolean isValue(@Nullable Object arg) {
+        return arg == null || arg instanceof String || arg instanceof Integer || arg instanceof Long || arg instanceof Boolean
+                || arg instanceof Character || arg instanceof Double || arg instanceof Float || arg instanceof Short
+                || arg instanceof Byte;
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.TimeZone;
+
+/**
+ * Writes the log messages into a set of rolling files, so that the logs survive longer than the logcat ring buffer which
+ * is overwritten by other apps within minutes. Register via {@link HandroidLoggerAdapter#addSink(LogSink, int)}:
+ * <pre>
+ * HandroidLoggerAdapter.addSink(new RollingFileSink(new File(getFilesDir(), "logs"), "app", 1024 * 1024, 5), Log.INFO);
+ * </pre>
+ * The current file is <code>baseName.log</code>; when it reaches <code>maxFileBytes</code>, it is renamed to
+ * <code>baseName.1.log</code> (the older files are shifted to <code>baseName.2.log</code> etc.) and a new file is started.
+ * At most <code>maxFiles</code> files are kept.
+ * <p></p>
+ * Every line looks like <code>2015-10-17 22:19:00.123 W/MyTag: message</code>; the messages are encoded to UTF-8 directly
+ * into a memory-mapped file, so writing a line involves no syscall and no allocation. The OS writes the mapped memory
+ * to the file even if the process is killed, therefore a process kill loses at most the message being written.
+ * The mapped file is pre-sized to <code>maxFileBytes</code>: until the file is rolled over or {@link #close() closed},
+ * its tail is filled with zero bytes.
+ * @author mvy
+ */
+public final class RollingFileSink implements LogSink, Closeable {
+    private static final char[] PRIORITY_LETTERS = {'?', '?', 'V', 'D', 'I', 'W', 'E', 'A'};
+    /**
+     * The length of the <code>yyyy-MM-dd HH:mm:ss.SSS P/</code> header.
+     */
+    private static final int HEADER_BYTES = 26;
+
+    @NotNull
+    private final File directory;
+    @NotNull
+    private final String baseName;
+    private final int maxFileBytes;
+    private final int maxFiles;
+    @NotNull
+    private final TimeZone timeZone = TimeZone.getDefault();
+
+    private RandomAccessFile file;
+    /**
+     * The mapped current file; null if the sink has been {@link #close() closed} or if the file could not be rolled
+     * over or opened. In the latter case, the next message opens the file again.
+     */
+    private MappedByteBuffer buffer;
+    private boolean closed = false;
+    /**
+     * Set once a failure to roll over or open the file has been reported, so that a broken storage doesn't flood
+     * {@link System#err}; cleared once a message has been written again.
+     */
+    private boolean failureReported = false;
+
+    /**
+     * Opens the current log file; appends to it if it already exists.
+     * @param directory the directory to store the files in, created if it doesn't exist.
+     * @param baseName the base name of the log files.
+     * @param maxFileBytes the maximum size of a single file, in bytes. Messages longer than this are truncated.
+     * @param maxFiles the maximum number of files to keep, including the current one.
+     * @throws IOException if the file cannot be opened.
+     */
+    public RollingFileSink(@NotNull File directory, @NotNull String baseName, int maxFileBytes, int maxFiles) throws IOException {
+        if (maxFileBytes < 1024) {
+            throw new IllegalArgumentException("Parameter maxFileBytes: invalid value " + maxFileBytes + ": must be 1024 or greater");
+        }
+        if (maxFiles < 1) {
+            throw new IllegalArgumentException("Parameter maxFiles: invalid value " + maxFiles + ": must be 1 or greater");
+        }
+        this.directory = directory;
+        this.baseName = baseName;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create " + directory);
+        }
+        open();
+    }
+
+    /**
+     * @param index 0 for the current file, 1 for the previous one etc.
+     * @return the log file
+     */
+    @NotNull
+    public File getFile(int index) {
+        return new File(directory, index == 0 ? baseName + ".log" : baseName + "." + index + ".log");
+    }
+
+    private void open() throws IOException {
+        file = new RandomAccessFile(getFile(0), "rw");
+        final long existingLength;
+        try {
+            existingLength = Math.min(file.length(), maxFileBytes);
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, maxFileBytes);
+        } catch (IOException e) {
+            file.close();
+            file = null;
+            throw e;
+        }
+        // find the end of the data written previously: the rest of the mapped file is zeroed. UTF-8 encoded messages
+        // contain no zero bytes since the control characters have been replaced by handroid.
+        int position = (int) existingLength;
+        while (position > 0 && buffer.get(position - 1) == 0) {
+            position--;
+        }
+        buffer.position(position);
+        if (position > 0 && buffer.get(position - 1) != '\n') {
+            // the process has been killed while writing the last message; terminate the broken line
+            if (buffer.hasRemaining()) {
+                buffer.put((byte) '\n');
+            }
+        }
+    }
+
+    @Override
+    public synchronized void write(@NotNull LogEvent event) {
+        if (buffer == null && (closed || !reopen())) {
+            return;
+        }
+        final String message = event.getRenderedMessage();
+        final int length = HEADER_BYTES + getUtf8Length(event.tag) + 2 + getUtf8Length(message) + 1;
+        if (length > buffer.remaining() && buffer.position() > 0) {
+            try {
+                roll();
+            } catch (IOException e) {
+                // the current file has been closed; the roll is retried with the next message
+                reportFailure(e);
+                return;
+            }
+        }
+        putHeader(event.timestamp, event.priority);
+        putUtf8(event.tag);
+        putUtf8(": ");
+        putUtf8(message);
+        if (!buffer.hasRemaining()) {
+            // a message longer than the whole file: terminate the truncated line
+            buffer.position(buffer.position() - 1);
+        }
+        buffer.put((byte) '\n');
+        failureReported = false;
+    }
+
+    /**
+     * Opens the current file again after {@link #roll()} has failed. If the file is still full, the next message rolls it over.
+     * @return true if the file has been opened, false if it failed again.
+     */
+    private boolean reopen() {
+        try {
+            open();
+        } catch (IOException e) {
+            reportFailure(e);
+            return false;
+        }
+        return true;
+    }
+
+    private void reportFailure(@NotNull IOException e) {
+        if (!failureReported) {
+            failureReported = true;
+            System.err.println("slf4j-handroid: failed to roll over " + getFile(0) + ", dropping log messages until it can be opened");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Truncates the current file to the data actually written, shifts the older files and starts a new file.
+     */
+    private void roll() throws IOException {
+        closeFile();
+        getFile(maxFiles - 1).delete();
+        for (int i = maxFiles - 2; i >= 0; i--) {
+            final File f = getFile(i);
+            if (f.exists() && !f.renameTo(getFile(i + 1))) {
+                throw new IOException("Failed to rename " + f + " to " + getFile(i + 1));
+            }
+        }
+        open();
+    }
+
+    private void closeFile() throws IOException {
+        final int length = buffer.position();
+        buffer.force();
+        buffer = null;
+        try {
+            // this works even when the mapped buffer is not yet garbage-collected on Linux (and thus Android)
+            file.setLength(length);
+        } finally {
+            file.close();
+            file = null;
+        }
+    }
+
+    /**
+     * Forces the data to the storage device. Not necessary to survive a process kill; only needed to survive an OS crash
+     * or a power loss.
+     */
+    public synchronized void flush() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Truncates the current file to the data actually written and closes it. Further messages are ignored.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (buffer != null) {
+            closeFile();
+        }
+    }
+
+    private static int getUtf8Length(@NotNull String s) {
+        final int length = s.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            final char c = s.charAt(i);
+            if (c >= 0x80) {
+                // a surrogate pair takes 4 bytes: count 2 bytes per surrogate
+                bytes += c < 0x800 || (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) ? 1 : 2;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Encodes the string to UTF-8 into the buffer, as many characters as fit. Unpaired surrogates are written as '?',
+     * the same as {@link String#getBytes(String)} does.
+     */
+    private void putUtf8(@NotNull String s) {
+        final int length = s.length();
+        for (int i = 0; i < length; i++) {
+            final char c = s.charAt(i);
+            final int remaining = buffer.remaining();
+            if (c < 0x80) {
+                if (remaining < 1) {
+                    return;
+                }
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                if (remaining < 2) {
+                    return;
+                }
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                if (remaining < 4) {
+                    return;
+                }
+                final int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                if (remaining < 1) {
+                    return;
+                }
+                buffer.put((byte) '?');
+            } else {
+                if (remaining < 3) {
+                    return;
+                }
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    /**
+     * Writes <code>yyyy-MM-dd HH:mm:ss.SSS P/</code> in the local time zone, without allocating anything.
+     */
+    private void putHeader(long timestamp, int priority) {
+        if (buffer.remaining() < HEADER_BYTES) {
+            return;
+        }
+        final long local = timestamp + timeZone.getOffset(timestamp);
+        long days = local / 86400000L;
+        if (local < 0 && days * 86400000L != local) {
+            days--;
+        }
+        final int millisOfDay = (int) (local - days * 86400000L);
+        // converts days since epoch to the civil date, see http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+        final long z = days + 719468;
+        final long era = (z >= 0 ? z : z - 146096) / 146097;
+        final long dayOfEra = z - era * 146097;
+        final long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final long mp = (5 * dayOfYear + 2) / 153;
+        final int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        final int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        final int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        putDigits(year, 4);
+        buffer.put((byte) '-');
+        putDigits(month, 2);
+        buffer.put((byte) '-');
+        putDigits(day, 2);
+        buffer.put((byte) ' ');
+        putDigits(millisOfDay / 3600000, 2);
+        buffer.put((byte) ':');
+        putDigits(millisOfDay / 60000 % 60, 2);
+        buffer.put((byte) ':');
+        putDigits(millisOfDay / 1000 % 60, 2);
+        buffer.put((byte) '.');
+        putDigits(millisOfDay % 1000, 3);
+        buffer.put((byte) ' ');
+        buffer.put((byte) (priority >= 0 && priority < PRIORITY_LETTERS.length ? PRIORITY_LETTERS[priority] : '?'));
+        buffer.put((byte) '/');
+    }
+
+    private void putDigits(int value, int digits) {
+        for (int divisor = digits == 4 ? 1000 : digits == 3 ? 100 : 10; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Logs just a random fraction of the messages of given priorities, so that e.g. a fraction of the DEBUG output can be kept
+ * in production. See {@link HandroidLoggerAdapter#setSampling(String, int, int)}. Only the priorities which a logger
+ * would not log otherwise are sampled; the loggable ones are logged in full. The rules are keyed by the logger name,
+ * not by the tag which may be shared by several loggers. Immutable: every configuration change creates a new instance.
+ * <p></p>
+ * The decision is made before the message is formatted, using a xorshift generator kept per thread.
+ * @author mvy
+ */
+final class Sampler {
+    /**
+     * The probability is expressed as a threshold for a 24-bit random number.
+     */
+    private static final int PRECISION_BITS = 24;
+
+    /**
+     * The active sampler, null if none. Checked by {@link AndroidLoggerAdapter} on every log call.
+     */
+    @Nullable
+    static volatile Sampler current;
+
+    private static final ThreadLocal<long[]> RANDOM = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            // must not be zero, the xorshift generator would produce zeroes forever
+            return new long[]{(System.nanoTime() ^ Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) | 1};
+        }
+    };
+
+    /**
+     * Tells how many messages of given priority are logged.
+     */
+    static final class Rule {
+        private final int threshold;
+        /**
+         * Prepended to the sampled messages, so that the counts can be scaled back, e.g. <code>[sampled 1/10] </code>.
+         */
+        @NotNull
+        private final String marker;
+
+        Rule(int threshold, @NotNull String marker) {
+            this.threshold = threshold;
+            this.marker = marker;
+        }
+
+        /**
+         * @return true if the message should be logged.
+         */
+        boolean sample() {
+            final long[] state = RANDOM.get();
+            long x = state[0];
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            state[0] = x;
+            return (int) (x >>> (64 - PRECISION_BITS)) < threshold;
+        }
+
+        @NotNull
+        String mark(@Nullable String message) {
+            return marker + message;
+        }
+    }
+
+    /**
+     * Rules applying to all loggers, indexed by the priority. Null items: the priority is not sampled.
+     */
+    @NotNull
+    private final Rule[] defaultRules;
+    /**
+     * Maps logger name to its rules; a non-null rule overrides the {@link #defaultRules}.
+     */
+    @NotNull
+    private final Map<String, Rule[]> loggerRules;
+
+    private Sampler(@NotNull Rule[] defaultRules, @NotNull Map<String, Rule[]> loggerRules) {
+        this.defaultRules = defaultRules;
+        this.loggerRules = loggerRules;
+    }
+
+    /**
+     * @param loggerName the original logger name, see {@link AndroidLoggerAdapter#getLoggerName()}.
+     * @return the sampling rule for given logger and priority, null if the messages are not sampled and the usual
+     * {@link AndroidLoggerAdapter#isLoggable(int)} applies.
+     */
+    @Nullable
+    static Rule getRule(@NotNull String loggerName, int priority) {
+        final Sampler sampler = current;
+        if (sampler == null) {
+            return null;
+        }
+        if (!sampler.loggerRules.isEmpty()) {
+            final Rule[] rules = sampler.loggerRules.get(loggerName);
+            if (rules != null && rules[priority] != null) {
+                return rules[priority];
+            }
+        }
+        return sampler.defaultRules[priority];
+    }
+
+    /**
+     * Creates a new sampler with given rule added.
+     * @param sampler the current sampler, may be null.
+     * @param loggerName the logger to sample, null for all loggers.
+     * @param priority the priority to sample.
+     * @param probability 0..1, or -1 to remove the rule.
+     * @param marker prepended to the sampled messages.
+     * @return the new sampler, null if there are no rules.
+     */
+    @Nullable
+    static Sampler with(@Nullable Sampler sampler, @Nullable String loggerName, int priority, double probability, @NotNull String marker) {
+        if (priority < Log.VERBOSE || priority > Log.ASSERT) {
+            throw new IllegalArgumentException("Parameter priority: invalid value " + priority + ": must be " + Log.VERBOSE + ".." + Log.ASSERT);
+        }
+        final Rule rule = probability < 0 ? null : new Rule((int) Math.round(probability * (1 << PRECISION_BITS)), marker);
+        Rule[] defaultRules = sampler == null ? new Rule[Log.ASSERT + 1] : sampler.defaultRules.clone();
+        final Map<String, Rule[]> loggerRules = sampler == null ? new HashMap<String, Rule[]>() : new HashMap<String, Rule[]>(sampler.loggerRules);
+        if (loggerName == null) {
+            defaultRules[priority] = rule;
+        } else {
+            Rule[] rules = loggerRules.get(loggerName);
+            rules = rules == null ? new Rule[Log.ASSERT + 1] : rules.clone();
+            rules[priority] = rule;
+            if (isEmpty(rules)) {
+                loggerRules.remove(loggerName);
+            } else {
+                loggerRules.put(loggerName, rules);
+            }
+        }
+        if (isEmpty(defaultRules) && loggerRules.isEmpty()) {
+            return null;
+        }
+        return new Sampler(defaultRules, loggerRules.isEmpty() ? Collections.<String, Rule[]>emptyMap() : loggerRules);
+    }
+
+    private static boolean isEmpty(@NotNull Rule[] rules) {
+        for (Rule rule : rules) {
+            if (rule != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
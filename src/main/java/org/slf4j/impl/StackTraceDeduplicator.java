@@ -0,0 +1,106 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the stack traces logged recently, so that a stack trace logged repeatedly (e.g. because a backend is down)
+ * can be printed in full just once; further occurrences print only a short reference. The stack traces are identified
+ * by a fingerprint of the exception types and stack frames of the whole cause chain; the exception messages are ignored.
+ * <p></p>
+ * At most <code>maxSize</code> fingerprints are remembered; the least recently logged ones are forgotten first.
+ * See {@link HandroidLoggerAdapter#enableStackTraceDeduplication(int)}.
+ * @author mvy
+ */
+final class StackTraceDeduplicator {
+    /**
+     * Guards against causes referencing each other in a cycle.
+     */
+    private static final int MAX_CAUSES = 64;
+
+    private final Map<Long, int[]> occurrences;
+
+    StackTraceDeduplicator(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Parameter maxSize: invalid value " + maxSize + ": must be 1 or greater");
+        }
+        occurrences = new LinkedHashMap<Long, int[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Records an occurrence of the stack trace with given fingerprint.
+     * @param fingerprint the {@link #fingerprint(Throwable)}
+     * @return the number of occurrences including this one; 1 if the stack trace is seen for the first time (or was forgotten since).
+     */
+    synchronized int record(long fingerprint) {
+        final Long key = fingerprint;
+        int[] count = occurrences.get(key);
+        if (count == null) {
+            count = new int[1];
+            occurrences.put(key, count);
+        }
+        if (count[0] < Integer.MAX_VALUE) {
+            count[0]++;
+        }
+        return count[0];
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a-style hash of the exception classes and stack frames of the throwable and all of its causes.
+     */
+    static long fingerprint(@NotNull Throwable throwable) {
+        long hash = 0xcbf29ce484222325L;
+        Throwable t = throwable;
+        for (int i = 0; t != null && i < MAX_CAUSES; i++, t = t.getCause()) {
+            hash = mix(hash, t.getClass().getName().hashCode());
+            for (StackTraceElement frame : t.getStackTrace()) {
+                hash = mix(hash, frame.getClassName().hashCode());
+                hash = mix(hash, frame.getMethodName().hashCode());
+                hash = mix(hash, frame.getLineNumber());
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+    /**
+     * @return a short human-readable id of given fingerprint.
+     */
+    @NotNull
+    static String toId(long fingerprint) {
+        return Integer.toHexString((int) (fingerprint ^ (fingerprint >>> 32)));
+    }
+}
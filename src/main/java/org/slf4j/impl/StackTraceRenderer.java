@@ -0,0 +1,154 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Renders a stack trace in the format of {@link Throwable#printStackTrace()} directly into a {@link LogMessageSanitizer},
+ * without the synchronized {@link java.io.PrintWriter} and the intermediate String. As opposed to the Android
+ * logging mechanism, all exceptions are printed, including UnknownHostExceptions and all exceptions caused by them.
+ * <p></p>
+ * The output may be capped:
+ * <ul>
+ *     <li>at most <code>maxFrames</code> frames are printed per throwable, the rest is summarized as <code>... n frames omitted</code>;</li>
+ *     <li>the frames of at most <code>maxThrowables</code> throwables (the throwable itself, its causes and suppressed
+ *     exceptions) are printed. The remaining throwables print just their first line, so that the type and the message of
+ *     the root cause is never lost.</li>
+ * </ul>
+ * @author mvy
+ */
+final class StackTraceRenderer {
+    private static final StackTraceElement[] NO_FRAMES = new StackTraceElement[0];
+
+    /**
+     * {@link Throwable#getSuppressed()} is only available since Android 4.4 (API 19).
+     */
+    private static final boolean SUPPRESSED_SUPPORTED = isSuppressedSupported();
+
+    private static boolean isSuppressedSupported() {
+        try {
+            Throwable.class.getMethod("getSuppressed");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    @NotNull
+    private final LogMessageSanitizer out;
+    private final int maxFrames;
+    private int remainingThrowables;
+    /**
+     * Guards against circular references; created lazily since most exceptions have no cause.
+     */
+    @Nullable
+    private Set<Throwable> dejaVu;
+
+    private StackTraceRenderer(@NotNull LogMessageSanitizer out, int maxFrames, int maxThrowables) {
+        this.out = out;
+        this.maxFrames = maxFrames;
+        this.remainingThrowables = maxThrowables;
+    }
+
+    /**
+     * Renders the stack trace of given throwable, including the causes and suppressed exceptions.
+     * @param maxFrames at most this number of frames are printed per throwable. Pass {@link Integer#MAX_VALUE} to print all frames.
+     * @param maxThrowables print frames of at most this number of throwables. Pass {@link Integer#MAX_VALUE} to print all of them.
+     */
+    static void render(@NotNull LogMessageSanitizer out, @NotNull Throwable throwable, int maxFrames, int maxThrowables) {
+        new StackTraceRenderer(out, maxFrames, maxThrowables).render(throwable, NO_FRAMES, "", "");
+    }
+
+    private void render(@NotNull Throwable t, @NotNull StackTraceElement[] enclosingTrace, @NotNull String caption, @NotNull String prefix) {
+        final Throwable cause = t.getCause();
+        final Throwable[] suppressed = SUPPRESSED_SUPPORTED ? t.getSuppressed() : null;
+        final boolean hasChildren = cause != null || (suppressed != null && suppressed.length > 0);
+        if (dejaVu == null && (hasChildren || enclosingTrace != NO_FRAMES)) {
+            dejaVu = Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+        }
+        if (dejaVu != null && !dejaVu.add(t)) {
+            out.append(prefix).append(caption).append("[CIRCULAR REFERENCE:").append(t.toString()).append("]\n");
+            return;
+        }
+        out.append(prefix).append(caption).append(t.toString()).append('\n');
+        StackTraceElement[] trace = NO_FRAMES;
+        if (remainingThrowables > 0) {
+            remainingThrowables--;
+            trace = t.getStackTrace();
+            // frames in common with the enclosing trace are printed just once, in the enclosing trace
+            int m = trace.length - 1;
+            int n = enclosingTrace.length - 1;
+            while (m >= 0 && n >= 0 && trace[m].equals(enclosingTrace[n])) {
+                m--;
+                n--;
+            }
+            final int framesInCommon = trace.length - 1 - m;
+            final int framesToPrint = Math.min(m + 1, maxFrames);
+            for (int i = 0; i < framesToPrint; i++) {
+                out.append(prefix).append("\tat ");
+                appendFrame(trace[i]);
+                out.append('\n');
+            }
+            if (framesToPrint < m + 1) {
+                out.append(prefix).append("\t... ").append(m + 1 - framesToPrint).append(" frames omitted\n");
+            }
+            if (framesInCommon != 0) {
+                out.append(prefix).append("\t... ").append(framesInCommon).append(" more\n");
+            }
+        }
+        if (suppressed != null) {
+            for (Throwable s : suppressed) {
+                render(s, trace, "Suppressed: ", prefix + "\t");
+            }
+        }
+        if (cause != null) {
+            render(cause, trace, "Caused by: ", prefix);
+        }
+    }
+
+    /**
+     * Mirrors {@link StackTraceElement#toString()}, without allocating the String.
+     */
+    private void appendFrame(@NotNull StackTraceElement frame) {
+        out.append(frame.getClassName()).append('.').append(frame.getMethodName());
+        final String fileName = frame.getFileName();
+        if (frame.isNativeMethod()) {
+            out.append("(Native Method)");
+        } else if (fileName == null) {
+            out.append("(Unknown Source)");
+        } else {
+            out.append('(').append(fileName);
+            if (frame.getLineNumber() >= 0) {
+                out.append(':').append(frame.getLineNumber());
+            }
+            out.append(')');
+        }
+    }
+}
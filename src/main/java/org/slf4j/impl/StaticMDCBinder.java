@@ -24,11 +24,10 @@
  */
 package org.slf4j.impl;
 
-import org.slf4j.helpers.NOPMDCAdapter;
 import org.slf4j.spi.MDCAdapter;
 
 /**
- * This implementation is bound to {@link NOPMDCAdapter}.
+ * This implementation is bound to {@link HandroidMDCAdapter}.
  *
  * @author Ceki G&uuml;lc&uuml;
  * @author Andrey Korzhevskiy <a.korzhevskiy@gmail.com>
@@ -54,14 +53,13 @@ public class StaticMDCBinder {
     }
 
     /**
-     * Currently this method always returns an instance of 
-     * {@link NOPMDCAdapter}.
+     * Always returns an instance of {@link HandroidMDCAdapter}. All instances share the same per-thread storage.
      */
     public MDCAdapter getMDCA() {
-        return new NOPMDCAdapter();
+        return new HandroidMDCAdapter();
     }
 
     public String getMDCAdapterClassStr() {
-        return NOPMDCAdapter.class.getName();
+        return HandroidMDCAdapter.class.getName();
     }
 }
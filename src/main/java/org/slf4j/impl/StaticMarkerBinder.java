@@ -26,7 +26,6 @@ package org.slf4j.impl;
 
 import org.slf4j.IMarkerFactory;
 import org.slf4j.MarkerFactory;
-import org.slf4j.helpers.BasicMarkerFactory;
 import org.slf4j.spi.MarkerFactoryBinder;
 
 /**
@@ -44,7 +43,7 @@ public class StaticMarkerBinder implements MarkerFactoryBinder {
      */
     public static final StaticMarkerBinder SINGLETON = new StaticMarkerBinder();
 
-    final IMarkerFactory markerFactory = new BasicMarkerFactory();
+    final HandroidMarkerFactory markerFactory = new HandroidMarkerFactory();
 
     private StaticMarkerBinder() {
     }
@@ -60,18 +59,16 @@ public class StaticMarkerBinder implements MarkerFactoryBinder {
     }
 
     /**
-     * Currently this method always returns an instance of 
-     * {@link BasicMarkerFactory}.
+     * Always returns the instance of {@link HandroidMarkerFactory}.
      */
     public IMarkerFactory getMarkerFactory() {
         return markerFactory;
     }
 
     /**
-     * Currently, this method returns the class name of
-     * {@link BasicMarkerFactory}.
+     * Returns the class name of {@link HandroidMarkerFactory}.
      */
     public String getMarkerFactoryClassStr() {
-        return BasicMarkerFactory.class.getName();
+        return HandroidMarkerFactory.class.getName();
     }
 }
@@ -0,0 +1,446 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Marker;
+
+/**
+ * A {@link HandroidLoggerAdapter} specialized to a level threshold: the subclasses implement the methods of the levels
+ * below the threshold as empty methods returning right away, so that once the JIT (or ART) inlines such a call through
+ * {@link DelegatingLogger}, nothing is left of it, not even the argument boxing. The methods of the other levels keep
+ * all the checks of {@link HandroidLoggerAdapter}.
+ * <p></p>
+ * The instances are immutable and bound to the configuration they were created for; {@link DelegatingLogger} replaces
+ * the instance when the configuration changes.
+ * @author mvy
+ */
+class ThresholdLogger extends HandroidLoggerAdapter {
+    private static final long serialVersionUID = 7553472043612381195L;
+
+    /**
+     * The configuration the tag has been resolved for.
+     */
+    @NotNull
+    final HandroidConfig config;
+
+    ThresholdLogger(@NotNull String loggerName, String tag, @NotNull HandroidConfig config) {
+        super(loggerName, tag);
+        this.config = config;
+    }
+
+    /**
+     * Creates a logger with the methods below given threshold compiled as empty methods.
+     * @param threshold {@link Log#VERBOSE}..{@link Log#ERROR}, or anything greater to turn all methods off.
+     */
+    @NotNull
+    static ThresholdLogger create(@NotNull String loggerName, String tag, int threshold, @NotNull HandroidConfig config) {
+        switch (threshold) {
+            case Log.VERBOSE:
+                return new ThresholdLogger(loggerName, tag, config);
+            case Log.DEBUG:
+                return new DebugAndAbove(loggerName, tag, config);
+            case Log.INFO:
+                return new InfoAndAbove(loggerName, tag, config);
+            case Log.WARN:
+                return new WarnAndAbove(loggerName, tag, config);
+            case Log.ERROR:
+                return new ErrorOnly(loggerName, tag, config);
+            default:
+                return new Off(loggerName, tag, config);
+        }
+    }
+
+    /**
+     * Finds the lowest priority given logger may log: the methods of the lower priorities can safely do nothing. The
+     * flight recorder and the metrics need to see the calls of all levels, so nothing is specialized while they are on.
+     * Mirrors {@link HandroidLoggerAdapter#isLoggable(int)} and {@link HandroidLoggerAdapter#isSamplingAllowed(int)},
+     * without creating a logger.
+     * @return {@link Log#VERBOSE}..{@link Log#ERROR}, {@link Log#ERROR} + 1 if nothing can be logged.
+     */
+    static int getThreshold(@NotNull String loggerName, String tag, @NotNull HandroidConfig config) {
+        if (FlightRecorder.current != null || LogMetrics.current != null) {
+            return Log.VERBOSE;
+        }
+        final int threshold = LevelConfig.current.getThreshold(loggerName);
+        for (int priority = Math.max(Log.VERBOSE, LogSinks.getMinPriority()); priority <= Log.ERROR; priority++) {
+            if (threshold != LevelConfig.UNSET) {
+                if (priority >= threshold) {
+                    return priority;
+                }
+            } else if (config.isDebug() || Log.isLoggable(tag, priority) || Sampler.getRule(loggerName, priority) != null) {
+                return priority;
+            }
+        }
+        return Log.ERROR + 1;
+    }
+
+    /**
+     * Logs DEBUG and higher.
+     */
+    static class DebugAndAbove extends ThresholdLogger {
+        private static final long serialVersionUID = -2214851960447316458L;
+
+        DebugAndAbove(@NotNull String loggerName, String tag, @NotNull HandroidConfig config) {
+            super(loggerName, tag, config);
+        }
+
+        @Override
+        public boolean isTraceEnabled() {
+            return false;
+        }
+
+        @Override
+        public boolean isTraceEnabled(Marker marker) {
+            return false;
+        }
+
+        @Override
+        public void trace(String msg) {
+        }
+
+        @Override
+        public void trace(String format, Object arg) {
+        }
+
+        @Override
+        public void trace(String format, Object arg1, Object arg2) {
+        }
+
+        @Override
+        public void trace(String format, Object... arguments) {
+        }
+
+        @Override
+        public void trace(String msg, Throwable t) {
+        }
+
+        @Override
+        public void trace(Marker marker, String msg) {
+        }
+
+        @Override
+        public void trace(Marker marker, String format, Object arg) {
+        }
+
+        @Override
+        public void trace(Marker marker, String format, Object arg1, Object arg2) {
+        }
+
+        @Override
+        public void trace(Marker marker, String format, Object... arguments) {
+        }
+
+        @Override
+        public void trace(Marker marker, String msg, Throwable t) {
+        }
+
+        @Override
+        public void trace(@NotNull LogSupplier message) {
+        }
+
+        @Override
+        public <T> void trace(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        }
+    }
+
+    /**
+     * Logs INFO and higher.
+     */
+    static class InfoAndAbove extends DebugAndAbove {
+        private static final long serialVersionUID = 5179384305671127385L;
+
+        InfoAndAbove(@NotNull String loggerName, String tag, @NotNull HandroidConfig config) {
+            super(loggerName, tag, config);
+        }
+
+        @Override
+        public boolean isDebugEnabled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDebugEnabled(Marker marker) {
+            return false;
+        }
+
+        @Override
+        public void debug(String msg) {
+        }
+
+        @Override
+        public void debug(String format, Object arg) {
+        }
+
+        @Override
+        public void debug(String format, Object arg1, Object arg2) {
+        }
+
+        @Override
+        public void debug(String format, Object... arguments) {
+        }
+
+        @Override
+        public void debug(String msg, Throwable t) {
+        }
+
+        @Override
+        public void debug(Marker marker, String msg) {
+        }
+
+        @Override
+        public void debug(Marker marker, String format, Object arg) {
+        }
+
+        @Override
+        public void debug(Marker marker, String format, Object arg1, Object arg2) {
+        }
+
+        @Override
+        public void debug(Marker marker, String format, Object... arguments) {
+        }
+
+        @Override
+        public void debug(Marker marker, String msg, Throwable t) {
+        }
+
+        @Override
+        public void debug(@NotNull LogSupplier message) {
+        }
+
+        @Override
+        public <T> void debug(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        }
+    }
+
+    /**
+     * Logs WARN and higher.
+     */
+    static class WarnAndAbove extends InfoAndAbove {
+        private static final long serialVersionUID = -6610845236402719412L;
+
+        WarnAndAbove(@NotNull String loggerName, String tag, @NotNull HandroidConfig config) {
+            super(loggerName, tag, config);
+        }
+
+        @Override
+        public boolean isInfoEnabled() {
+            return false;
+        }
+
+        @Override
+        public boolean isInfoEnabled(Marker marker) {
+            return false;
+        }
+
+        @Override
+        public void info(String msg) {
+        }
+
+        @Override
+        public void info(String format, Object arg) {
+        }
+
+        @Override
+        public void info(String format, Object arg1, Object arg2) {
+        }
+
+        @Override
+        public void info(String format, Object... arguments) {
+        }
+
+        @Override
+        public void info(String msg, Throwable t) {
+        }
+
+        @Override
+        public void info(Marker marker, String msg) {
+        }
+
+        @Override
+        public void info(Marker marker, String format, Object arg) {
+        }
+
+        @Override
+        public void info(Marker marker, String format, Object arg1, Object arg2) {
+        }
+
+        @Override
+        public void info(Marker marker, String format, Object... arguments) {
+        }
+
+        @Override
+        public void info(Marker marker, String msg, Throwable t) {
+        }
+
+        @Override
+        public void info(@NotNull LogSupplier message) {
+        }
+
+        @Override
+        public <T> void info(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        }
+    }
+
+    /**
+     * Logs ERROR and higher.
+     */
+    static class ErrorOnly extends WarnAndAbove {
+        private static final long serialVersionUID = 3394825501938257617L;
+
+        ErrorOnly(@NotNull String loggerName, String tag, @NotNull HandroidConfig config) {
+            super(loggerName, tag, config);
+        }
+
+        @Override
+        public boolean isWarnEnabled() {
+            return false;
+        }
+
+        @Override
+        public boolean isWarnEnabled(Marker marker) {
+            return false;
+        }
+
+        @Override
+        public void warn(String msg) {
+        }
+
+        @Override
+        public void warn(String format, Object arg) {
+        }
+
+        @Override
+        public void warn(String format, Object arg1, Object arg2) {
+        }
+
+        @Override
+        public void warn(String format, Object... arguments) {
+        }
+
+        @Override
+        public void warn(String msg, Throwable t) {
+        }
+
+        @Override
+        public void warn(Marker marker, String msg) {
+        }
+
+        @Override
+        public void warn(Marker marker, String format, Object arg) {
+        }
+
+        @Override
+        public void warn(Marker marker, String format, Object arg1, Object arg2) {
+        }
+
+        @Override
+        public void warn(Marker marker, String format, Object... arguments) {
+        }
+
+        @Override
+        public void warn(Marker marker, String msg, Throwable t) {
+        }
+
+        @Override
+        public void warn(@NotNull LogSupplier message) {
+        }
+
+        @Override
+        public <T> void warn(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        }
+    }
+
+    /**
+     * Logs nothing.
+     */
+    static class Off extends ErrorOnly {
+        private static final long serialVersionUID = -917263048122937351L;
+
+        Off(@NotNull String loggerName, String tag, @NotNull HandroidConfig config) {
+            super(loggerName, tag, config);
+        }
+
+        @Override
+        public boolean isErrorEnabled() {
+            return false;
+        }
+
+        @Override
+        public boolean isErrorEnabled(Marker marker) {
+            return false;
+        }
+
+        @Override
+        public void error(String msg) {
+        }
+
+        @Override
+        public void error(String format, Object arg) {
+        }
+
+        @Override
+        public void error(String format, Object arg1, Object arg2) {
+        }
+
+        @Override
+        public void error(String format, Object... arguments) {
+        }
+
+        @Override
+        public void error(String msg, Throwable t) {
+        }
+
+        @Override
+        public void error(Marker marker, String msg) {
+        }
+
+        @Override
+        public void error(Marker marker, String format, Object arg) {
+        }
+
+        @Override
+        public void error(Marker marker, String format, Object arg1, Object arg2) {
+        }
+
+        @Override
+        public void error(Marker marker, String format, Object... arguments) {
+        }
+
+        @Override
+        public void error(Marker marker, String msg, Throwable t) {
+        }
+
+        @Override
+        public void error(@NotNull LogSupplier message) {
+        }
+
+        @Override
+        public <T> void error(@NotNull LogFunction<? super T> message, @Nullable T input) {
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Marker;
+import org.slf4j.spi.LoggingEventBuilder;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * The SLF4J 2.x fluent builder of an enabled log call. Every thread reuses its own instance, so that a fluent call with up
+ * to two arguments doesn't allocate anything but the message. The builder is released by <code>log()</code>; if a builder
+ * is requested while the thread's instance is still in use, a fresh instance is created and becomes the thread's instance.
+ * The thread's instance is in use either because it is still being filled (e.g. an argument is computed by a method which
+ * logs fluently itself), or because it has been abandoned without calling <code>log()</code>: in both cases the original
+ * instance is left intact, and an abandoned builder costs a single allocation instead of disabling the reuse for good.
+ * <p></p>
+ * Key-value pairs are rendered as a <code>key=value</code> prefix of the message, the same way slf4j-api's default builder
+ * does. The message is logged only if all markers are enabled, see {@link HandroidLoggerAdapter#setMarkerEnabled(String, boolean)}.
+ * The argument and key-value suppliers are called right away since the level is known to be loggable; the message
+ * supplier is called by <code>log()</code>.
+ * @author mvy
+ */
+final class HandroidEventBuilder implements LoggingEventBuilder {
+    private static final ThreadLocal<HandroidEventBuilder> BUILDER = new ThreadLocal<HandroidEventBuilder>() {
+        @Override
+        protected HandroidEventBuilder initialValue() {
+            return new HandroidEventBuilder();
+        }
+    };
+
+    /**
+     * @return the thread's builder; if the thread's builder is in use, a fresh builder which replaces it.
+     */
+    @NotNull
+    static HandroidEventBuilder acquire(@NotNull AndroidLoggerAdapter logger, int priority) {
+        HandroidEventBuilder builder = BUILDER.get();
+        if (builder.logger != null) {
+            // nested or abandoned: leave it to its owner, if any, and forget it
+            builder = new HandroidEventBuilder();
+            BUILDER.set(builder);
+        }
+        builder.logger = logger;
+        builder.priority = priority;
+        return builder;
+    }
+
+    /**
+     * The logger, null while the builder is not in use.
+     */
+    @Nullable
+    private AndroidLoggerAdapter logger;
+    private int priority;
+    @Nullable
+    private String message;
+    @Nullable
+    private Supplier<String> messageSupplier;
+    @NotNull
+    private Object[] arguments = new Object[4];
+    private int argumentCount;
+    @Nullable
+    private Throwable cause;
+    private boolean markersEnabled = true;
+    /**
+     * The rendered key-value pairs, lazily created.
+     */
+    @Nullable
+    private StringBuilder keyValues;
+
+    private HandroidEventBuilder() {
+    }
+
+    @Override
+    public LoggingEventBuilder setCause(Throwable cause) {
+        this.cause = cause;
+        return this;
+    }
+
+    @Override
+    public LoggingEventBuilder addMarker(Marker marker) {
+        markersEnabled &= HandroidMarkerFactory.isEnabled(marker);
+        return this;
+    }
+
+    @Override
+    public LoggingEventBuilder addArgument(Object p) {
+        if (argumentCount == arguments.length) {
+            arguments = Arrays.copyOf(arguments, argumentCount * 2);
+        }
+        arguments[argumentCount++] = p;
+        return this;
+    }
+
+    @Override
+    public LoggingEventBuilder addArgument(Supplier<?> objectSupplier) {
+        return addArgument(objectSupplier.get());
+    }
+
+    @Override
+    public LoggingEventBuilder addKeyValue(String key, Object value) {
+        if (keyValues == null) {
+            keyValues = new StringBuilder();
+        }
+        keyValues.append(key).append('=').append(value).append(' ');
+        return this;
+    }
+
+    @Override
+    public LoggingEventBuilder addKeyValue(String key, Supplier<Object> valueSupplier) {
+        return addKeyValue(key, valueSupplier.get());
+    }
+
+    @Override
+    public LoggingEventBuilder setMessage(String message) {
+        this.message = message;
+        this.messageSupplier = null;
+        return this;
+    }
+
+    @Override
+    public LoggingEventBuilder setMessage(Supplier<String> messageSupplier) {
+        this.message = null;
+        this.messageSupplier = messageSupplier;
+        return this;
+    }
+
+    @Override
+    public void log() {
+        final AndroidLoggerAdapter logger = this.logger;
+        if (logger == null) {
+            // log() called twice: the builder has already been released
+            return;
+        }
+        if (!markersEnabled) {
+            release();
+            return;
+        }
+        final int priority = this.priority;
+        String message = messageSupplier != null ? messageSupplier.get() : this.message;
+        if (keyValues != null && keyValues.length() > 0) {
+            message = message == null ? keyValues.substring(0, keyValues.length() - 1) : keyValues.append(message).toString();
+        }
+        final int count = argumentCount;
+        final Throwable cause = this.cause;
+        final Object arg1 = arguments[0];
+        final Object arg2 = arguments[1];
+        // the loggers may keep the arguments array (e.g. the flight recorder), never pass them our own array
+        final Object[] args = count + (cause == null ? 0 : 1) > 2 ? copyArguments(cause) : null;
+        // release before logging, so that the logging itself may use the builder again
+        release();
+        if (args != null) {
+            logger.formatAndLog(priority, message, args);
+        } else if (count == 0) {
+            logger.log(priority, message, cause);
+        } else if (count == 1) {
+            if (cause == null) {
+                logger.formatAndLog(priority, message, arg1);
+            } else {
+                logger.formatAndLog(priority, message, arg1, cause);
+            }
+        } else {
+            logger.formatAndLog(priority, message, arg1, arg2);
+        }
+    }
+
+    /**
+     * @return the arguments, followed by the cause if not null.
+     */
+    @NotNull
+    private Object[] copyArguments(@Nullable Throwable cause) {
+        final Object[] args = Arrays.copyOf(arguments, argumentCount + (cause == null ? 0 : 1));
+        if (cause != null) {
+            args[argumentCount] = cause;
+        }
+        return args;
+    }
+
+    private void release() {
+        Arrays.fill(arguments, 0, argumentCount, null);
+        argumentCount = 0;
+        logger = null;
+        message = null;
+        messageSupplier = null;
+        cause = null;
+        markersEnabled = true;
+        if (keyValues != null) {
+            keyValues.setLength(0);
+        }
+    }
+
+    @Override
+    public void log(String message) {
+        setMessage(message);
+        log();
+    }
+
+    @Override
+    public void log(String format, Object arg) {
+        setMessage(format);
+        addArgument(arg);
+        log();
+    }
+
+    @Override
+    public void log(String format, Object arg0, Object arg1) {
+        setMessage(format);
+        addArgument(arg0);
+        addArgument(arg1);
+        log();
+    }
+
+    @Override
+    public void log(String format, Object... args) {
+        setMessage(format);
+        for (Object arg : args) {
+            addArgument(arg);
+        }
+        log();
+    }
+
+    @Override
+    public void log(Supplier<String> messageSupplier) {
+        setMessage(messageSupplier);
+        log();
+    }
+}
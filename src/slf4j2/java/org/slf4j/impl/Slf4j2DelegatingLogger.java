@@ -0,0 +1,64 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+
+/**
+ * A {@link DelegatingLogger} with the SLF4J 2.x fluent API. The inherited <code>atTrace()</code>..<code>atError()</code>
+ * return the shared {@link org.slf4j.spi.NOPLoggingEventBuilder} if the level is not loggable, and otherwise call
+ * {@link #makeLoggingEventBuilder(Level)}, which hands out the per-thread {@link HandroidEventBuilder}.
+ * @author mvy
+ */
+class Slf4j2DelegatingLogger extends DelegatingLogger {
+    private static final long serialVersionUID = 4329519178425318263L;
+
+    Slf4j2DelegatingLogger(@NotNull String loggerName) {
+        super(loggerName);
+    }
+
+    @Override
+    public LoggingEventBuilder makeLoggingEventBuilder(Level level) {
+        return HandroidEventBuilder.acquire(delegate(), toPriority(level));
+    }
+
+    static int toPriority(@NotNull Level level) {
+        switch (level) {
+            case TRACE:
+                return Log.VERBOSE;
+            case DEBUG:
+                return Log.DEBUG;
+            case INFO:
+                return Log.INFO;
+            case WARN:
+                return Log.WARN;
+            default:
+                return Log.ERROR;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.spi.MDCAdapter;
+
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * The SLF4J 2.x {@link MDCAdapter}: the map is kept by {@link HandroidMDCAdapter}, so that the loggers render it as usual;
+ * the per-key stacks, new in SLF4J 2.x, are kept per thread here. The stacks accept null values, as the map does.
+ * @author mvy
+ */
+final class Slf4j2MDCAdapter implements MDCAdapter {
+    private final HandroidMDCAdapter delegate = new HandroidMDCAdapter();
+    private final ThreadLocal<Map<String, Deque<String>>> deques = new ThreadLocal<Map<String, Deque<String>>>() {
+        @Override
+        protected Map<String, Deque<String>> initialValue() {
+            return new HashMap<String, Deque<String>>();
+        }
+    };
+
+    @Override
+    public void put(String key, String val) {
+        delegate.put(key, val);
+    }
+
+    @Override
+    public String get(String key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public void remove(String key) {
+        delegate.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, String> getCopyOfContextMap() {
+        return delegate.getCopyOfContextMap();
+    }
+
+    @Override
+    public void setContextMap(Map<String, String> contextMap) {
+        delegate.setContextMap(contextMap);
+    }
+
+    @Override
+    public void pushByKey(@NotNull String key, @Nullable String value) {
+        final Map<String, Deque<String>> map = deques.get();
+        Deque<String> deque = map.get(key);
+        if (deque == null) {
+            // not an ArrayDeque: it rejects null values
+            deque = new LinkedList<String>();
+            map.put(key, deque);
+        }
+        deque.push(value);
+    }
+
+    @Override
+    @Nullable
+    public String popByKey(@NotNull String key) {
+        final Deque<String> deque = deques.get().get(key);
+        return deque == null ? null : deque.poll();
+    }
+
+    @Override
+    @Nullable
+    public Deque<String> getCopyOfDequeByKey(@NotNull String key) {
+        final Deque<String> deque = deques.get().get(key);
+        return deque == null ? null : new LinkedList<String>(deque);
+    }
+
+    @Override
+    public void clearDequeByKey(@NotNull String key) {
+        deques.get().remove(key);
+    }
+}
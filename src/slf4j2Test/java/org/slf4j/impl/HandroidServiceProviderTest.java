@@ -0,0 +1,182 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.MarkerFactory;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.slf4j.spi.NOPLoggingEventBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HandroidServiceProviderTest {
+
+    private final Logger logger = LoggerFactory.getLogger("org.test.Fluent");
+
+    @Before
+    public void resetLog() {
+        Log.reset();
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+        HandroidLoggerAdapter.refreshLogLevels();
+    }
+
+    @After
+    public void enableMarkers() {
+        HandroidLoggerAdapter.setMarkerEnabled("NOISY", true);
+    }
+
+    private static List<String> messages() {
+        final List<String> messages = new ArrayList<String>();
+        for (Log.Entry entry : Log.getEntries()) {
+            messages.add(entry.message);
+        }
+        return messages;
+    }
+
+    @Test
+    public void bindsHandroid() {
+        assertTrue(LoggerFactory.getILoggerFactory() instanceof Slf4j2LoggerFactory);
+        assertTrue(logger instanceof Slf4j2DelegatingLogger);
+        logger.info("hello {}", 1);
+        assertEquals(Arrays.asList("hello 1"), messages());
+        assertEquals("org.test.Fluent", Log.getEntries().get(0).tag);
+    }
+
+    @Test
+    public void disabledLevelReturnsNop() {
+        assertSame(NOPLoggingEventBuilder.singleton(), logger.atDebug());
+        assertSame(NOPLoggingEventBuilder.singleton(), logger.atTrace());
+        logger.atDebug().addArgument(new Supplier<Object>() {
+            @Override
+            public Object get() {
+                throw new AssertionError("must not be called");
+            }
+        }).log("hidden {}");
+        assertTrue(messages().isEmpty());
+    }
+
+    @Test
+    public void reusesBuilderPerThread() {
+        final LoggingEventBuilder builder = logger.atInfo();
+        builder.log("first");
+        assertSame(builder, logger.atInfo());
+        logger.atWarn().log("second");
+        assertEquals(Arrays.asList("first", "second"), messages());
+    }
+
+    @Test
+    public void nestedBuilderDoesNotClobber() {
+        final LoggingEventBuilder outer = logger.atInfo().addArgument(1);
+        final LoggingEventBuilder inner = logger.atInfo();
+        assertNotSame(outer, inner);
+        inner.log("inner {}", 2);
+        outer.log("outer {}");
+        assertEquals(Arrays.asList("inner 2", "outer 1"), messages());
+    }
+
+    @Test
+    public void abandonedBuilderIsReplaced() {
+        final LoggingEventBuilder abandoned = logger.atInfo().addArgument(1).setCause(new RuntimeException("boom"));
+        final LoggingEventBuilder builder = logger.atInfo();
+        assertNotSame(abandoned, builder);
+        builder.log("first {}", 2);
+        assertSame(builder, logger.atInfo());
+        logger.atWarn().log("second");
+        assertEquals(Arrays.asList("first 2", "second"), messages());
+    }
+
+    @Test
+    public void logsArgumentsAndCause() {
+        logger.atInfo().addArgument(1).addArgument(2).addArgument(3).log("{} {} {}");
+        logger.atError().setCause(new RuntimeException("boom")).addArgument(1).log("failed {}");
+        logger.atError().setCause(new RuntimeException("boom")).log("failed");
+        logger.atError().setCause(new RuntimeException("boom")).log("failed {} {}", 1, 2);
+        final List<String> messages = messages();
+        assertEquals("1 2 3", messages.get(0));
+        assertTrue(messages.get(1), messages.get(1).startsWith("failed 1\njava.lang.RuntimeException: boom"));
+        assertTrue(messages.get(2), messages.get(2).startsWith("failed\njava.lang.RuntimeException: boom"));
+        assertTrue(messages.get(3), messages.get(3).startsWith("failed 1 2\njava.lang.RuntimeException: boom"));
+    }
+
+    @Test
+    public void rendersKeyValues() {
+        logger.atInfo().addKeyValue("user", "joe").addKeyValue("id", 42).log("logged in");
+        logger.atInfo().addKeyValue("user", "joe").log();
+        assertEquals(Arrays.asList("user=joe id=42 logged in", "user=joe"), messages());
+    }
+
+    @Test
+    public void messageSupplier() {
+        logger.atInfo().log(new Supplier<String>() {
+            @Override
+            public String get() {
+                return "computed";
+            }
+        });
+        assertEquals(Arrays.asList("computed"), messages());
+    }
+
+    @Test
+    public void disabledMarkerSuppresses() {
+        HandroidLoggerAdapter.setMarkerEnabled("NOISY", false);
+        logger.atInfo().addMarker(MarkerFactory.getMarker("NOISY")).log("hidden");
+        logger.atInfo().addMarker(MarkerFactory.getMarker("OTHER")).log("shown");
+        assertEquals(Arrays.asList("shown"), messages());
+    }
+
+    @Test
+    public void mdcStacks() {
+        MDC.pushByKey("op", "outer");
+        MDC.pushByKey("op", "inner");
+        assertEquals(Arrays.asList("inner", "outer"), new ArrayList<String>(MDC.getMDCAdapter().getCopyOfDequeByKey("op")));
+        assertEquals("inner", MDC.popByKey("op"));
+        MDC.getMDCAdapter().clearDequeByKey("op");
+        assertNull(MDC.popByKey("op"));
+        MDC.pushByKey("op", null);
+        MDC.pushByKey("op", "top");
+        assertEquals(Arrays.asList("top", null), new ArrayList<String>(MDC.getMDCAdapter().getCopyOfDequeByKey("op")));
+        assertEquals("top", MDC.popByKey("op"));
+        assertNull(MDC.popByKey("op"));
+        MDC.getMDCAdapter().clearDequeByKey("op");
+        MDC.put("k", "v");
+        assertEquals("v", HandroidMDCAdapter.getContext().map.get("k"));
+        MDC.clear();
+    }
+}
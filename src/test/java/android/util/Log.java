@@ -0,0 +1,119 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package android.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A JVM stand-in for the Android logging facility: the android.jar stubs only throw exceptions. The logged messages
+ * are recorded in {@link #entries}.
+ */
+public final class Log {
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+    public static final int ASSERT = 7;
+
+    /**
+     * A single logcat entry.
+     */
+    public static final class Entry {
+        public final int priority;
+        public final String tag;
+        public final String message;
+
+        Entry(int priority, String tag, String message) {
+            this.priority = priority;
+            this.tag = tag;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return priority + "/" + tag + ": " + message;
+        }
+    }
+
+    /**
+     * All messages logged so far, in the order they were logged.
+     */
+    public static final List<Entry> entries = new ArrayList<Entry>();
+
+    /**
+     * Messages with this or higher priority are loggable. Android defaults to INFO.
+     */
+    public static volatile int minimumPriority = INFO;
+
+    /**
+     * If false, {@link #println(int, String, String)} discards the messages; used by the benchmarks.
+     */
+    public static volatile boolean recording = true;
+
+    /**
+     * Counts the calls to {@link #isLoggable(String, int)}.
+     */
+    public static volatile int isLoggableCalls = 0;
+
+    private Log() {
+    }
+
+    /**
+     * Clears the recorded messages and resets the configuration.
+     */
+    public static synchronized void reset() {
+        entries.clear();
+        minimumPriority = INFO;
+        isLoggableCalls = 0;
+        recording = true;
+    }
+
+    public static synchronized List<Entry> getEntries() {
+        return new ArrayList<Entry>(entries);
+    }
+
+    public static boolean isLoggable(String tag, int level) {
+        isLoggableCalls++;
+        return level >= minimumPriority;
+    }
+
+    public static int println(int priority, String tag, String msg) {
+        if (tag == null || msg == null) {
+            throw new NullPointerException("tag or msg is null");
+        }
+        if (!recording) {
+            return msg.length();
+        }
+        synchronized (Log.class) {
+            entries.add(new Entry(priority, tag, msg));
+        }
+        return msg.length();
+    }
+
+    public static String getStackTraceString(Throwable tr) {
+        throw new UnsupportedOperationException("Handroid should print stack traces itself");
+    }
+}
@@ -25,15 +25,17 @@ package org.slf4j.impl;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.slf4j.Logger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 public class AndroidLoggerFactoryTest {
 
     @Before
     public void resetSettings() {
-        HandroidLoggerAdapter.APP_NAME = null;
-        HandroidLoggerAdapter.ANDROID_API_LEVEL = 1;
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
     }
 
     @Test
@@ -86,8 +88,7 @@ public class AndroidLoggerFactoryTest {
 
     @Test
     public void testAndroid26() {
-        HandroidLoggerAdapter.ANDROID_API_LEVEL = 26;
-        HandroidLoggerAdapter.APP_NAME = "MyApp";
+        HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setAndroidApiLevel(26).setAppName("MyApp").build());
         assertEquals("MyApp:TestClass", AndroidLoggerFactory.loggerNameToTag("org.test.package.TestClass"));
         assertEquals("MyApp:TestClass", AndroidLoggerFactory.loggerNameToTag("o.test.project.package.TestClass"));
         assertEquals("MyApp:TestClass", AndroidLoggerFactory.loggerNameToTag("o.test.project.p.TestClass"));
@@ -97,7 +98,7 @@ public class AndroidLoggerFactoryTest {
 
     @Test
     public void testAppName() {
-        HandroidLoggerAdapter.APP_NAME = "MyApp";
+        HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setAppName("MyApp").build());
         assertEquals("MyApp:TestClass", AndroidLoggerFactory.loggerNameToTag("org.test.package.TestClass"));
         assertEquals("MyApp:TestClass", AndroidLoggerFactory.loggerNameToTag("o.test.project.package.TestClass"));
         assertEquals("MyApp:TestClass", AndroidLoggerFactory.loggerNameToTag("o.test.project.p.TestClass"));
@@ -109,11 +110,31 @@ public class AndroidLoggerFactoryTest {
     public void testLongAppName() {
         // not really useful since the class name is completely lost! However, the developer must realize this on his own, and
         // shorten the app name.
-        HandroidLoggerAdapter.APP_NAME = "VeryLongAppNameSoThatNothingWillBeSeen";
+        HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setAppName("VeryLongAppNameSoThatNothingWillBeSeen").build());
         assertEquals("VeryLongAppNameSoThatN*", AndroidLoggerFactory.loggerNameToTag("org.test.package.TestClass"));
         assertEquals("VeryLongAppNameSoThatN*", AndroidLoggerFactory.loggerNameToTag("o.test.project.package.TestClass"));
         assertEquals("VeryLongAppNameSoThatN*", AndroidLoggerFactory.loggerNameToTag("o.test.project.p.TestClass"));
         assertEquals("VeryLongAppNameSoThatN*", AndroidLoggerFactory.loggerNameToTag("org.slf4j.impl.AndroidLoggerFactory"));
         assertEquals("VeryLongAppNameSoThatN*", AndroidLoggerFactory.loggerNameToTag("IAmAVeryLongLoggerNameAndShouldBeTruncated"));
     }
+
+    @Test
+    public void loggersAreCachedByName() {
+        final AndroidLoggerFactory factory = new AndroidLoggerFactory();
+        assertSame(factory.getLogger("org.test.package.TestClass"), factory.getLogger("org.test.package.TestClass"));
+        assertSame(factory.getLogger(null), factory.getLogger(null));
+        assertNotSame(factory.getLogger("org.test.package.TestClass"), factory.getLogger("org.test.package.OtherClass"));
+    }
+
+    @Test
+    public void loggersWithSameTagShareTheTag() {
+        final AndroidLoggerFactory factory = new AndroidLoggerFactory();
+        final Logger logger1 = factory.getLogger("org.test.package.TestClass");
+        final Logger logger2 = factory.getLogger("org.test.project.TestClass");
+        // every logger name has its own logger since the levels are configured by the logger name
+        assertNotSame(logger1, logger2);
+        assertEquals(logger1.getName(), logger2.getName());
+        assertEquals("org.test.package.TestClass", ((DelegatingLogger) logger1).loggerName);
+        assertSame(factory.getLogger(null), factory.getLogger(AndroidLoggerFactory.ANONYMOUS_TAG));
+    }
 }
@@ -0,0 +1,365 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncLogDispatcherTest {
+
+    /**
+     * Records the messages; blocks the drainer thread on messages tagged "block" until {@link #release} is counted down.
+     */
+    private final List<String> written = Collections.synchronizedList(new ArrayList<String>());
+    private final CountDownLatch blocked = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final LogSink sink = new LogSink() {
+        @Override
+        public void write(LogEvent event) {
+            if (event.tag.equals("block")) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            } else {
+                written.add(event.tag + ": " + event.getMessage());
+            }
+        }
+    };
+    private AsyncLogDispatcher dispatcher;
+
+    @Before
+    public void addSink() {
+        Log.reset();
+        Log.recording = false;
+        HandroidLoggerAdapter.addSink(sink, Log.VERBOSE);
+    }
+
+    @After
+    public void removeSink() {
+        release.countDown();
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        HandroidLoggerAdapter.removeSink(sink);
+        Log.reset();
+    }
+
+    private static LogEvent event(int priority, String message) {
+        return new LogEvent(priority, "tag", message, null);
+    }
+
+    /**
+     * Blocks the drainer thread; the blocking message keeps occupying its slot in the queue until {@link #release}.
+     */
+    private void blockDrainer() throws InterruptedException {
+        dispatcher.dispatch(new LogEvent(Log.INFO, "block", "block", null));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+    }
+
+    private List<String> written() {
+        synchronized (written) {
+            return new ArrayList<String>(written);
+        }
+    }
+
+    @Test
+    public void writesMessagesInOrder() {
+        dispatcher = new AsyncLogDispatcher(16, AsyncOverflowPolicy.BLOCK);
+        final List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            dispatcher.dispatch(event(Log.INFO, "message " + i));
+            expected.add("tag: message " + i);
+        }
+        dispatcher.flush();
+        assertEquals(expected, written());
+        assertEquals(0, dispatcher.getDroppedCount());
+    }
+
+    @Test
+    public void concurrentProducersLoseNothing() throws InterruptedException {
+        dispatcher = new AsyncLogDispatcher(64, AsyncOverflowPolicy.BLOCK);
+        final Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            final String tag = "producer" + t;
+            producers[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        dispatcher.dispatch(new LogEvent(Log.INFO, tag, Integer.toString(i), null));
+                    }
+                }
+            };
+            producers[t].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        dispatcher.flush();
+        final List<String> written = written();
+        assertEquals(4000, written.size());
+        final int[] next = new int[producers.length];
+        for (String message : written) {
+            final int producer = message.charAt("producer".length()) - '0';
+            // the messages of a single producer are written in the order they were logged
+            assertEquals("producer" + producer + ": " + next[producer]++, message);
+        }
+    }
+
+    @Test
+    public void dropNewestDropsWhenFull() throws InterruptedException {
+        dispatcher = new AsyncLogDispatcher(4, AsyncOverflowPolicy.DROP_NEWEST);
+        blockDrainer();
+        for (int i = 0; i < 10; i++) {
+            dispatcher.dispatch(event(Log.ERROR, "message " + i));
+        }
+        assertEquals(7, dispatcher.getDroppedCount());
+        release.countDown();
+        dispatcher.flush();
+        final List<String> written = written();
+        assertEquals(written.toString(), 4, written.size());
+        assertEquals("tag: message 2", written.get(2));
+        assertEquals("slf4j-handroid: Dropped 7 log message(s) since the async logging queue was full", written.get(3));
+    }
+
+    @Test
+    public void dropLowerPriorityKeepsRoomForWarnings() throws InterruptedException {
+        dispatcher = new AsyncLogDispatcher(8, AsyncOverflowPolicy.DROP_LOWER_PRIORITY);
+        blockDrainer();
+        for (int i = 0; i < 8; i++) {
+            dispatcher.dispatch(event(Log.DEBUG, "debug " + i));
+        }
+        // 3/4 of the queue is 6 messages, one of them the blocking message
+        assertEquals(3, dispatcher.getDroppedCount());
+        dispatcher.dispatch(event(Log.WARN, "warn"));
+        dispatcher.dispatch(event(Log.ERROR, "error"));
+        assertEquals(3, dispatcher.getDroppedCount());
+        release.countDown();
+        dispatcher.flush();
+        final List<String> written = written();
+        assertEquals(written.toString(), 8, written.size());
+        assertEquals("tag: debug 4", written.get(4));
+        assertEquals("tag: warn", written.get(5));
+        assertEquals("tag: error", written.get(6));
+    }
+
+    @Test
+    public void blockWaitsForRoom() throws InterruptedException {
+        dispatcher = new AsyncLogDispatcher(2, AsyncOverflowPolicy.BLOCK);
+        blockDrainer();
+        dispatcher.dispatch(event(Log.INFO, "1"));
+        final Thread producer = new Thread() {
+            @Override
+            public void run() {
+                dispatcher.dispatch(event(Log.INFO, "2"));
+            }
+        };
+        producer.start();
+        producer.join(200);
+        assertTrue(producer.isAlive());
+        release.countDown();
+        producer.join();
+        dispatcher.flush();
+        assertEquals(2, written().size());
+        assertEquals(0, dispatcher.getDroppedCount());
+    }
+
+    @Test(timeout = 10000)
+    public void drainerThreadDoesNotWaitForItself() {
+        dispatcher = new AsyncLogDispatcher(2, AsyncOverflowPolicy.BLOCK);
+        final LogSink reentrant = new LogSink() {
+            @Override
+            public void write(LogEvent event) {
+                if (event.tag.equals("reentrant")) {
+                    for (int i = 0; i < 5; i++) {
+                        dispatcher.dispatch(event(Log.INFO, "nested " + i));
+                    }
+                }
+            }
+        };
+        HandroidLoggerAdapter.addSink(reentrant, Log.VERBOSE);
+        try {
+            dispatcher.dispatch(new LogEvent(Log.INFO, "reentrant", "reentrant", null));
+            dispatcher.flush();
+            assertTrue(dispatcher.getDroppedCount() > 0);
+        } finally {
+            HandroidLoggerAdapter.removeSink(reentrant);
+        }
+    }
+
+    @Test
+    public void flushReturnsWhenEmpty() {
+        dispatcher = new AsyncLogDispatcher(2, AsyncOverflowPolicy.BLOCK);
+        dispatcher.flush();
+        assertTrue(written().isEmpty());
+    }
+
+    @Test
+    public void shutdownWritesPendingMessages() throws InterruptedException {
+        dispatcher = new AsyncLogDispatcher(16, AsyncOverflowPolicy.BLOCK);
+        blockDrainer();
+        for (int i = 0; i < 10; i++) {
+            dispatcher.dispatch(event(Log.INFO, "message " + i));
+        }
+        release.countDown();
+        dispatcher.shutdown();
+        assertEquals(10, written().size());
+        // later messages are written by the logging thread
+        dispatcher.dispatch(event(Log.INFO, "late"));
+        assertEquals(11, written().size());
+        assertEquals("tag: late", written().get(10));
+        assertEquals(0, dispatcher.getDroppedCount());
+    }
+
+    @Test
+    public void messagesRacingWithShutdownAreNotLost() throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            written.clear();
+            final AsyncLogDispatcher racing = new AsyncLogDispatcher(1024, AsyncOverflowPolicy.BLOCK);
+            final Thread[] producers = new Thread[4];
+            for (int t = 0; t < producers.length; t++) {
+                producers[t] = new Thread() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < 500; i++) {
+                            racing.dispatch(event(Log.INFO, Integer.toString(i)));
+                        }
+                    }
+                };
+                producers[t].start();
+            }
+            racing.shutdown();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            assertEquals(2000, written().size() + racing.getDroppedCount());
+            assertEquals(0, racing.getDroppedCount());
+        }
+    }
+
+    @Test
+    public void racingMessagesKeepPerThreadOrder() throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            written.clear();
+            final AsyncLogDispatcher racing = new AsyncLogDispatcher(64, AsyncOverflowPolicy.BLOCK);
+            final Thread[] producers = new Thread[4];
+            for (int t = 0; t < producers.length; t++) {
+                final String tag = "p" + t;
+                producers[t] = new Thread() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < 500; i++) {
+                            racing.dispatch(new LogEvent(Log.INFO, tag, Integer.toString(i), null));
+                        }
+                    }
+                };
+                producers[t].start();
+            }
+            racing.shutdown();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            final int[] next = new int[producers.length];
+            for (String message : written()) {
+                final int producer = message.charAt(1) - '0';
+                assertEquals(message, "p" + producer + ": " + next[producer]++, message);
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void replacedQueueIsDrainedFirst() throws InterruptedException {
+        HandroidLoggerAdapter.enableAsyncLogging(16, AsyncOverflowPolicy.BLOCK);
+        try {
+            final HandroidLoggerAdapter logger = new HandroidLoggerAdapter("tag");
+            new HandroidLoggerAdapter("block").info("block");
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+            final CountDownLatch logged = new CountDownLatch(1);
+            final CountDownLatch replaced = new CountDownLatch(1);
+            final Thread producer = new Thread() {
+                @Override
+                public void run() {
+                    logger.info("1");
+                    logger.info("2");
+                    logged.countDown();
+                    try {
+                        replaced.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    logger.info("3");
+                }
+            };
+            producer.start();
+            assertTrue(logged.await(5, TimeUnit.SECONDS));
+            final Thread replacer = new Thread() {
+                @Override
+                public void run() {
+                    HandroidLoggerAdapter.enableAsyncLogging(16, AsyncOverflowPolicy.BLOCK);
+                }
+            };
+            replacer.start();
+            // let the replacement start while the old queue is still blocked
+            Thread.sleep(50);
+            replaced.countDown();
+            Thread.sleep(50);
+            release.countDown();
+            producer.join();
+            replacer.join();
+            HandroidLoggerAdapter.flush();
+            final List<String> expected = new ArrayList<String>();
+            expected.add("tag: 1");
+            expected.add("tag: 2");
+            expected.add("tag: 3");
+            assertEquals(expected, written());
+        } finally {
+            release.countDown();
+            HandroidLoggerAdapter.disableAsyncLogging();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooSmallCapacity() {
+        new AsyncLogDispatcher(1, AsyncOverflowPolicy.BLOCK);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCapacityWhichCannotBeRoundedUp() {
+        new AsyncLogDispatcher(AsyncLogDispatcher.MAX_CAPACITY + 1, AsyncOverflowPolicy.BLOCK);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryLogSinkTest {
+    private static String line(LogEvent event) {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(event.timestamp)) + " "
+                + "??VDIWEA".charAt(event.priority) + "/" + event.tag + ": " + event.getRenderedMessage() + "\n";
+    }
+
+    private static String decode(byte[] bytes) throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        BinaryLogDecoder.decode(new ByteArrayInputStream(bytes), sb);
+        return sb.toString();
+    }
+
+    private static LogEvent event(int priority, String tag, String format, Object... arguments) {
+        return new LogEvent(priority, tag, format, arguments, null, System.currentTimeMillis());
+    }
+
+    @Test
+    public void decodesToSameText() throws IOException {
+        final LogEvent[] events = {
+                event(Log.INFO, "MyTag", "Hello {} {} {} {}", "world", 25, -3000000000L, null),
+                event(Log.WARN, "MyTag", "Floats {} {} {} {}", 1.5f, Double.NaN, -0.1, (short) -7),
+                event(Log.DEBUG, "Tag2", "Chars {}{}{} {} \\{} {}", 'a', 'ž', (byte) 1, true, false, Arrays.asList(1, 2)),
+                event(Log.ERROR, "Tag2", "Hello {} {} {} {}", "again", 0, Long.MIN_VALUE, "Příliš žluťoučký kůň 😀"),
+                event(Log.VERBOSE, "MyTag", "Arrays {} {}", new int[]{1, 2}, new Object[]{"a", null}),
+                event(Log.INFO, "MyTag", "Multi\r\nline\n\n{}", "\n"),
+                new LogEvent(Log.ERROR, "MyTag", "Failed", new RuntimeException("Simulated")),
+                new LogEvent(Log.ASSERT, "MyTag", null, null),
+                event(Log.INFO, "MyTag", "No arguments"),
+        };
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final BinaryLogSink sink = new BinaryLogSink(bytes);
+        final StringBuilder expected = new StringBuilder();
+        for (LogEvent event : events) {
+            sink.write(event);
+            expected.append(line(event));
+        }
+        sink.close();
+        assertEquals(expected.toString(), decode(bytes.toByteArray()));
+    }
+
+    @Test
+    public void isCompact() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final BinaryLogSink sink = new BinaryLogSink(bytes);
+        final StringBuilder text = new StringBuilder();
+        long timestamp = 1445113140000L;
+        for (int i = 0; i < 1000; i++) {
+            timestamp += 17;
+            final LogEvent event = new LogEvent(Log.INFO, "org.test.MyActivity", "Loaded {} items from the server in {} ms",
+                    new Object[]{i, i * 3}, null, timestamp);
+            sink.write(event);
+            text.append(line(event));
+        }
+        sink.close();
+        final byte[] encoded = bytes.toByteArray();
+        assertTrue("" + encoded.length, encoded.length * 5 < text.toString().getBytes("UTF-8").length);
+        assertEquals(text.toString(), decode(encoded));
+    }
+
+    @Test
+    public void decodesAppendedSessions() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final LogEvent event1 = event(Log.INFO, "Tag1", "Session {}", 1);
+        final LogEvent event2 = event(Log.WARN, "Tag2", "Session {}", 2);
+        BinaryLogSink sink = new BinaryLogSink(bytes);
+        sink.write(event1);
+        sink.close();
+        sink = new BinaryLogSink(bytes);
+        sink.write(event2);
+        sink.close();
+        assertEquals(line(event1) + line(event2), decode(bytes.toByteArray()));
+    }
+
+    @Test
+    public void ignoresTruncatedRecord() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final BinaryLogSink sink = new BinaryLogSink(bytes);
+        final LogEvent event1 = event(Log.INFO, "MyTag", "Hello {}", "world");
+        sink.write(event1);
+        sink.flush();
+        final int length = bytes.size();
+        sink.write(event(Log.INFO, "MyTag", "Killed {}", "while writing"));
+        sink.close();
+        assertEquals(line(event1), decode(Arrays.copyOf(bytes.toByteArray(), length + 5)));
+    }
+
+    @Test
+    public void decodesMdc() throws IOException {
+        final HandroidMDCAdapter mdc = new HandroidMDCAdapter();
+        HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setRenderMdc(true).build());
+        try {
+            mdc.put("requestId", "42");
+            mdc.put("user", null);
+            final LogEvent withMdc = new LogEvent(Log.INFO, "MyTag", "Hello {}", new Object[]{"world"}, null,
+                    System.currentTimeMillis(), HandroidMDCAdapter.getContext());
+            mdc.clear();
+            final LogEvent withoutMdc = event(Log.INFO, "MyTag", "Hello {}", "again");
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final BinaryLogSink sink = new BinaryLogSink(bytes);
+            sink.write(withMdc);
+            sink.write(withoutMdc);
+            sink.close();
+            assertEquals("[requestId=42 user=null] Hello world", withMdc.getRenderedMessage());
+            assertEquals(line(withMdc) + line(withoutMdc), decode(bytes.toByteArray()));
+        } finally {
+            mdc.clear();
+            HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+        }
+    }
+
+    @Test
+    public void failingStreamDropsMessages() throws IOException {
+        final int[] written = new int[1];
+        final boolean[] closed = new boolean[1];
+        final OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (written[0]++ > 0) {
+                    throw new IOException("Simulated");
+                }
+            }
+
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        final BinaryLogSink sink = new BinaryLogSink(failing);
+        for (int i = 0; i < 10000; i++) {
+            sink.write(new LogEvent(Log.INFO, "tag", "message " + i + " {}", new Object[]{i}, null, 0));
+        }
+        // the first failed write closes the sink, no further writes are attempted
+        assertEquals(2, written[0]);
+        sink.flush();
+        assertEquals(2, written[0]);
+        assertFalse(closed[0]);
+        sink.close();
+        assertTrue(closed[0]);
+    }
+}
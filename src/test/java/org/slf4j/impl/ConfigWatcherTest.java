@@ -0,0 +1,124 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConfigWatcherTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final Logger logger = new AndroidLoggerFactory().getLogger("com.acme.net.Client");
+
+    @Before
+    public void resetLog() {
+        Log.reset();
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+    }
+
+    @After
+    public void resetLevels() {
+        HandroidLoggerAdapter.watchConfiguration(null, 1);
+        HandroidLoggerAdapter.setLevels(new Properties());
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(contents.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void reloadsFile() throws IOException {
+        final File file = folder.newFile("levels.properties");
+        write(file, "level.com.acme.net=DEBUG\n");
+        assertFalse(logger.isDebugEnabled());
+        HandroidLoggerAdapter.reloadConfiguration(file);
+        assertTrue(logger.isDebugEnabled());
+        write(file, "level.com.acme=WARN\n");
+        HandroidLoggerAdapter.reloadConfiguration(file);
+        assertFalse(logger.isInfoEnabled());
+        assertTrue(logger.isWarnEnabled());
+    }
+
+    @Test
+    public void missingFileRestoresClasspathResource() throws IOException {
+        HandroidLoggerAdapter.setLevel("org.test.configured", Log.ERROR);
+        HandroidLoggerAdapter.reloadConfiguration(new File(folder.getRoot(), "missing.properties"));
+        assertEquals(Log.WARN, LevelConfig.current.getThreshold("org.test.configured.Client"));
+    }
+
+    @Test
+    public void invalidFileKeepsConfiguration() throws IOException {
+        HandroidLoggerAdapter.setLevel("com.acme", Log.DEBUG);
+        final File file = folder.newFile("levels.properties");
+        write(file, "level.com.acme=LOUD\n");
+        try {
+            HandroidLoggerAdapter.reloadConfiguration(file);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertTrue(logger.isDebugEnabled());
+    }
+
+    @Test
+    public void watchesFile() throws Exception {
+        final File file = new File(folder.getRoot(), "levels.properties");
+        HandroidLoggerAdapter.watchConfiguration(file, 5);
+        assertFalse(logger.isDebugEnabled());
+        write(file, "level.com.acme.net=DEBUG\n");
+        for (int i = 0; i < 400 && !logger.isDebugEnabled(); i++) {
+            Thread.sleep(5);
+        }
+        assertTrue(logger.isDebugEnabled());
+        logger.debug("debug");
+        assertEquals("debug", Log.getEntries().get(0).message);
+        file.delete();
+        for (int i = 0; i < 400 && logger.isDebugEnabled(); i++) {
+            Thread.sleep(5);
+        }
+        assertFalse(logger.isDebugEnabled());
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DelegatingLoggerTest {
+
+    private final DelegatingLogger logger = new AndroidLoggerFactory().newLogger("com.acme.Delegating");
+
+    @Before
+    public void resetLog() {
+        Log.reset();
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+        HandroidLoggerAdapter.refreshLogLevels();
+    }
+
+    @After
+    public void resetConfiguration() {
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+        HandroidLoggerAdapter.setLevel("com.acme", 0);
+        HandroidLoggerAdapter.enableFlightRecorder(0);
+        HandroidLoggerAdapter.clearSampling();
+    }
+
+    @Test
+    public void specializesToThreshold() {
+        assertEquals(ThresholdLogger.InfoAndAbove.class, logger.delegate().getClass());
+        assertFalse(logger.isDebugEnabled());
+        assertTrue(logger.isInfoEnabled());
+        logger.debug("hidden {}", 1);
+        logger.info("shown {}", 2);
+        assertEquals(1, Log.getEntries().size());
+        assertEquals("shown 2", Log.getEntries().get(0).message);
+    }
+
+    @Test
+    public void reusesDelegateUntilConfigurationChanges() {
+        final ThresholdLogger delegate = logger.delegate();
+        logger.info("hello");
+        assertSame(delegate, logger.delegate());
+        HandroidLoggerAdapter.refreshLogLevels();
+        assertEquals(ThresholdLogger.InfoAndAbove.class, logger.delegate().getClass());
+        assertFalse(delegate == logger.delegate());
+    }
+
+    @Test
+    public void resolvesTagOnFirstCall() {
+        final DelegatingLogger created = new AndroidLoggerFactory().newLogger("com.acme.net.Client");
+        HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setAppName("MyApp").build());
+        assertEquals("MyApp:Client", created.getName());
+        created.info("hello");
+        assertEquals("MyApp:Client", Log.getEntries().get(0).tag);
+        final ThresholdLogger delegate = created.delegate();
+        HandroidLoggerAdapter.refreshLogLevels();
+        // the tag is reused while the configuration stays the same
+        assertSame(delegate.getName(), created.getName());
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+        assertEquals("com.acme.net.Client", created.getName());
+    }
+
+    @Test
+    public void thresholdFollowsSinksAndLevels() {
+        HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setDebug(true).build());
+        HandroidLoggerAdapter.addSink(LogcatSink.INSTANCE, Log.WARN);
+        try {
+            assertEquals(ThresholdLogger.WarnAndAbove.class, logger.delegate().getClass());
+            HandroidLoggerAdapter.setLevel("com.acme", Log.ERROR);
+            assertEquals(ThresholdLogger.ErrorOnly.class, logger.delegate().getClass());
+        } finally {
+            HandroidLoggerAdapter.addSink(LogcatSink.INSTANCE, Log.VERBOSE);
+        }
+        assertEquals(ThresholdLogger.ErrorOnly.class, logger.delegate().getClass());
+        HandroidLoggerAdapter.setLevel("com.acme", 0);
+        assertEquals(ThresholdLogger.class, logger.delegate().getClass());
+    }
+
+    @Test
+    public void disabledCallsSkipLevelCheck() {
+        logger.info("hello");
+        final int calls = Log.isLoggableCalls;
+        for (int i = 0; i < 10; i++) {
+            logger.debug("hidden {}", i);
+            logger.trace("hidden");
+        }
+        assertEquals(calls, Log.isLoggableCalls);
+        assertEquals(1, Log.getEntries().size());
+    }
+
+    @Test
+    public void followsDebugFlag() {
+        logger.debug("hidden");
+        HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setDebug(true).build());
+        assertEquals(ThresholdLogger.class, logger.delegate().getClass());
+        logger.debug("shown");
+        assertEquals(1, Log.getEntries().size());
+        assertEquals("shown", Log.getEntries().get(0).message);
+    }
+
+    @Test
+    public void followsLevelThresholds() {
+        HandroidLoggerAdapter.setLevel("com.acme", Log.WARN);
+        assertEquals(ThresholdLogger.WarnAndAbove.class, logger.delegate().getClass());
+        HandroidLoggerAdapter.setLevel("com.acme", Log.ERROR);
+        assertEquals(ThresholdLogger.ErrorOnly.class, logger.delegate().getClass());
+        HandroidLoggerAdapter.setLevel("com.acme", Log.ASSERT + 1);
+        assertEquals(ThresholdLogger.Off.class, logger.delegate().getClass());
+        logger.error("hidden");
+        assertFalse(logger.isErrorEnabled());
+        HandroidLoggerAdapter.setLevel("com.acme", Log.DEBUG);
+        assertEquals(ThresholdLogger.DebugAndAbove.class, logger.delegate().getClass());
+        logger.debug("shown");
+        assertEquals(1, Log.getEntries().size());
+    }
+
+    @Test
+    public void sampledLevelIsNotSpecializedAway() {
+        HandroidLoggerAdapter.setSampling("com.acme.Delegating", Log.DEBUG, 1);
+        assertEquals(ThresholdLogger.DebugAndAbove.class, logger.delegate().getClass());
+        logger.debug("sampled");
+        assertEquals("[sampled 1/1] sampled", Log.getEntries().get(0).message);
+    }
+
+    @Test
+    public void flightRecorderSeesDisabledCalls() {
+        HandroidLoggerAdapter.enableFlightRecorder(4);
+        assertEquals(ThresholdLogger.class, logger.delegate().getClass());
+        logger.trace("recorded");
+        assertTrue(Log.getEntries().isEmpty());
+        final int[] dumped = new int[1];
+        HandroidLoggerAdapter.dumpFlightRecorder(new LogSink() {
+            @Override
+            public void write(LogEvent event) {
+                dumped[0]++;
+            }
+        });
+        assertEquals(1, dumped[0]);
+    }
+
+    @Test
+    public void deserializesByLoggerName() throws Exception {
+        HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setAppName("MyApp").build());
+        final Logger original = LoggerFactory.getLogger("com.acme.net.Serialized");
+        assertEquals("MyApp:Serialized", original.getName());
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(original);
+        out.close();
+        final Object deserialized = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertSame(original, deserialized);
+    }
+}
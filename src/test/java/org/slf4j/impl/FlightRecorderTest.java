@@ -0,0 +1,153 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FlightRecorderTest {
+
+    private final HandroidLoggerAdapter logger = new HandroidLoggerAdapter("MyTag");
+
+    @Before
+    public void resetLog() {
+        Log.reset();
+        HandroidLoggerAdapter.enableFlightRecorder(4);
+    }
+
+    @After
+    public void disableFlightRecorder() {
+        HandroidLoggerAdapter.enableFlightRecorder(0);
+    }
+
+    private static List<String> dump() {
+        final List<String> messages = new ArrayList<String>();
+        HandroidLoggerAdapter.dumpFlightRecorder(new LogSink() {
+            @Override
+            public void write(LogEvent event) {
+                messages.add(event.priority + "/" + event.tag + ": " + event.getRenderedMessage());
+            }
+        });
+        return messages;
+    }
+
+    @Test
+    public void recordsSuppressedLevels() {
+        logger.debug("debug {}", 1);
+        logger.info("info {} {}", 1, 2);
+        logger.trace("trace {} {} {}", 1, 2, 3);
+        assertEquals(1, Log.getEntries().size());
+        assertEquals(Arrays.asList("3/MyTag: debug 1", "4/MyTag: info 1 2", "2/MyTag: trace 1 2 3"), dump());
+    }
+
+    @Test
+    public void keepsLastMessages() {
+        for (int i = 0; i < 10; i++) {
+            logger.debug("message {}", i);
+        }
+        assertEquals(Arrays.asList("3/MyTag: message 6", "3/MyTag: message 7", "3/MyTag: message 8", "3/MyTag: message 9"), dump());
+        // the recorder keeps the messages
+        assertEquals(4, dump().size());
+    }
+
+    @Test
+    public void recordsExceptions() {
+        logger.info("failed", new IOException("Simulated"));
+        logger.debug("failed {}", "again", new IOException("Simulated2"));
+        final List<String> dump = dump();
+        assertTrue(dump.get(0), dump.get(0).startsWith("4/MyTag: failed\njava.io.IOException: Simulated\n"));
+        assertTrue(dump.get(1), dump.get(1).startsWith("3/MyTag: failed again\njava.io.IOException: Simulated2\n"));
+    }
+
+    @Test
+    public void disabledRecorderDumpsNothing() {
+        HandroidLoggerAdapter.enableFlightRecorder(0);
+        logger.info("info");
+        assertEquals(0, dump().size());
+    }
+
+    @Test
+    public void dumpSeesConsistentRecordsWhileWritten() throws InterruptedException {
+        final FlightRecorder recorder = new FlightRecorder(8);
+        final IOException exception = new IOException("Simulated");
+        final AtomicBoolean stop = new AtomicBoolean();
+        final Thread[] writers = new Thread[2];
+        for (int t = 0; t < writers.length; t++) {
+            writers[t] = new Thread() {
+                @Override
+                public void run() {
+                    while (!stop.get()) {
+                        // the two kinds of calls store a throwable and a string into the same slot fields
+                        recorder.record(Log.INFO, "plain", "failed", exception);
+                        recorder.record(Log.DEBUG, "args", "{} {}", 2, "a", "b");
+                    }
+                }
+            };
+            writers[t].start();
+        }
+        final AtomicInteger dumped = new AtomicInteger();
+        final LogSink sink = new LogSink() {
+            @Override
+            public void write(LogEvent event) {
+                if (event.tag.equals("plain")) {
+                    assertEquals(Log.INFO, event.priority);
+                    assertEquals("failed", event.getMessage());
+                    assertSame(exception, event.throwable);
+                } else {
+                    assertEquals(Log.DEBUG, event.priority);
+                    assertEquals("a b", event.getMessage());
+                    assertNull(event.throwable);
+                }
+                dumped.incrementAndGet();
+            }
+        };
+        try {
+            final long deadline = System.currentTimeMillis() + 300;
+            while (System.currentTimeMillis() < deadline) {
+                recorder.dump(sink);
+            }
+        } finally {
+            stop.set(true);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+        assertTrue(dumped.get() > 0);
+    }
+}
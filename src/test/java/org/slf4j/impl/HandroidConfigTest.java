@@ -0,0 +1,120 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HandroidConfigTest {
+
+    @Before
+    public void resetLog() {
+        Log.reset();
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+    }
+
+    @After
+    public void resetConfig() {
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+    }
+
+    @Test
+    public void defaults() {
+        final HandroidConfig config = HandroidConfig.builder().build();
+        assertFalse(config.isDebug());
+        assertNull(config.getAppName());
+        assertEquals(1, config.getAndroidApiLevel());
+        assertFalse(config.isRenderMdc());
+        assertEquals(23, config.tagMaxLength);
+        assertSame(HandroidConfig.DEFAULT, HandroidLoggerAdapter.getConfig());
+    }
+
+    @Test
+    public void toBuilderKeepsSettings() {
+        final HandroidConfig config = HandroidConfig.builder().setDebug(true).setAppName("MyApp").setAndroidApiLevel(28).setRenderMdc(true).build();
+        final HandroidConfig copy = config.toBuilder().setAppName("Other").build();
+        assertTrue(copy.isDebug());
+        assertEquals("Other", copy.getAppName());
+        assertEquals(28, copy.getAndroidApiLevel());
+        assertTrue(copy.isRenderMdc());
+        assertEquals(1000, copy.tagMaxLength);
+        assertEquals("MyApp", config.getAppName());
+    }
+
+    @Test
+    public void existingLoggersAreRetagged() {
+        final Logger logger = new AndroidLoggerFactory().getLogger("com.acme.net.Client");
+        logger.info("before");
+        HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setAppName("MyApp").build());
+        logger.info("after");
+        assertEquals("com.acme.net.Client", Log.getEntries().get(0).tag);
+        assertEquals("MyApp:Client", Log.getEntries().get(1).tag);
+        assertEquals("MyApp:Client", logger.getName());
+    }
+
+    @Test
+    public void existingLoggersPickUpDebug() {
+        final Logger logger = new AndroidLoggerFactory().getLogger("com.acme.net.Client");
+        logger.debug("hidden");
+        assertFalse(logger.isDebugEnabled());
+        HandroidLoggerAdapter.setConfig(HandroidLoggerAdapter.getConfig().toBuilder().setDebug(true).build());
+        assertTrue(logger.isDebugEnabled());
+        logger.debug("shown");
+        assertEquals(1, Log.getEntries().size());
+        assertEquals("shown", Log.getEntries().get(0).message);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void deprecatedFieldsAreStillHonored() {
+        HandroidLoggerAdapter.DEBUG = true;
+        HandroidLoggerAdapter.APP_NAME = "MyApp";
+        try {
+            assertTrue(HandroidConfig.builder().build().isDebug());
+            final Logger logger = new AndroidLoggerFactory().getLogger("org.test.Legacy");
+            logger.debug("debug");
+            assertEquals(1, Log.getEntries().size());
+            assertEquals("MyApp:Legacy", Log.getEntries().get(0).tag);
+            assertTrue(HandroidLoggerAdapter.getConfig().isDebug());
+            // an explicit configuration wins over fields which haven't been assigned since
+            HandroidLoggerAdapter.setConfig(HandroidLoggerAdapter.getConfig().toBuilder().setDebug(false).build());
+            logger.debug("hidden");
+            assertEquals(1, Log.getEntries().size());
+        } finally {
+            HandroidLoggerAdapter.DEBUG = false;
+            HandroidLoggerAdapter.APP_NAME = null;
+            HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HandroidLoggerAdapterTest {
+
+    private final HandroidLoggerAdapter logger = new HandroidLoggerAdapter("MyTag");
+
+    @Before
+    public void resetLog() {
+        Log.reset();
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+    }
+
+    @After
+    public void resetSettings() {
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+        HandroidLoggerAdapter.setCrashReporter(null, Log.VERBOSE);
+    }
+
+    private static List<String> messages() {
+        final List<Log.Entry> entries = Log.getEntries();
+        final String[] messages = new String[entries.size()];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = entries.get(i).message;
+        }
+        return Arrays.asList(messages);
+    }
+
+    private static String repeat(char c, int count) {
+        final char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    @Test
+    public void logsToLogcat() {
+        logger.info("Hello {}", "world");
+        logger.debug("not logged");
+        assertEquals(Arrays.asList("Hello world"), messages());
+        assertEquals("MyTag", Log.getEntries().get(0).tag);
+        assertEquals(Log.INFO, Log.getEntries().get(0).priority);
+    }
+
+    @Test
+    public void debugEnablesAllLevels() {
+        HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setDebug(true).build());
+        logger.trace("trace");
+        logger.debug("debug");
+        assertEquals(Arrays.asList("trace", "debug"), messages());
+    }
+
+    @Test
+    public void levelsAreCached() {
+        logger.info("a");
+        logger.info("b");
+        logger.debug("c");
+        final int calls = Log.isLoggableCalls;
+        logger.info("d");
+        logger.debug("e");
+        assertEquals(calls, Log.isLoggableCalls);
+        HandroidLoggerAdapter.refreshLogLevels();
+        Log.minimumPriority = Log.DEBUG;
+        logger.debug("f");
+        assertEquals(Arrays.asList("a", "b", "d", "f"), messages());
+    }
+
+    @Test
+    public void levelCacheIsInvalidatedByConfigurationChanges() {
+        final HandroidLoggerAdapter cached = new HandroidLoggerAdapter("com.acme.Cached", "Cached");
+        try {
+            assertFalse(cached.isDebugEnabled());
+            final int calls = Log.isLoggableCalls;
+            for (int i = 0; i < 10; i++) {
+                assertFalse(cached.isDebugEnabled());
+                assertTrue(cached.isInfoEnabled());
+            }
+            assertEquals(calls, Log.isLoggableCalls);
+
+            HandroidLoggerAdapter.setLevel("com.acme", Log.DEBUG);
+            assertTrue(cached.isDebugEnabled());
+            HandroidLoggerAdapter.setLevel("com.acme", Log.ERROR);
+            assertFalse(cached.isWarnEnabled());
+            assertTrue(cached.isErrorEnabled());
+            HandroidLoggerAdapter.setLevel("com.acme", 0);
+            assertFalse(cached.isDebugEnabled());
+
+            HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setDebug(true).build());
+            assertTrue(cached.isTraceEnabled());
+            HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+            assertFalse(cached.isDebugEnabled());
+            assertTrue(cached.isInfoEnabled());
+        } finally {
+            HandroidLoggerAdapter.setLevel("com.acme", 0);
+        }
+    }
+
+    @Test
+    public void logsStackTrace() {
+        logger.error("Failed", new IOException("Simulated"));
+        final String message = messages().get(0);
+        assertTrue(message, message.startsWith("Failed\njava.io.IOException: Simulated\n at org.slf4j.impl.HandroidLoggerAdapterTest.logsStackTrace(HandroidLoggerAdapterTest.java:"));
+    }
+
+    @Test
+    public void crashReporterReceivesMessagesAboveThreshold() {
+        final List<String> reported = new ArrayList<String>();
+        HandroidLoggerAdapter.setCrashReporter(new CrashReporter() {
+            @Override
+            public void log(int priority, String tag, String message) {
+                reported.add(tag + ": " + message);
+            }
+
+            @Override
+            public void logException(Throwable throwable) {
+                reported.add(throwable.toString());
+            }
+        }, Log.WARN);
+        logger.info("info");
+        logger.warn("warn", new IOException("Simulated"));
+        assertEquals(2, messages().size());
+        assertEquals(2, reported.size());
+        assertTrue(reported.get(0), reported.get(0).startsWith("MyTag: warn\njava.io.IOException: Simulated\n"));
+        assertEquals("java.io.IOException: Simulated", reported.get(1));
+    }
+
+    @Test
+    public void sinksReceiveTheSameEvent() {
+        final List<LogEvent> events = new ArrayList<LogEvent>();
+        final LogSink sink = new LogSink() {
+            @Override
+            public void write(LogEvent event) {
+                events.add(event);
+                event.getRenderedMessage();
+            }
+        };
+        HandroidLoggerAdapter.addSink(sink, Log.WARN);
+        try {
+            logger.info("info");
+            logger.warn("warn {}", 1);
+            assertEquals(Arrays.asList("info", "warn 1"), messages());
+            assertEquals(1, events.size());
+            assertEquals("warn 1", events.get(0).getRenderedMessage());
+            assertEquals("MyTag", events.get(0).tag);
+        } finally {
+            HandroidLoggerAdapter.removeSink(sink);
+        }
+    }
+
+    @Test
+    public void messagesAcceptedByNoSinkAreNotLogged() {
+        HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setDebug(true).build());
+        HandroidLoggerAdapter.addSink(LogcatSink.INSTANCE, Log.INFO);
+        try {
+            assertFalse(logger.isDebugEnabled());
+            assertTrue(logger.isInfoEnabled());
+            logger.debug("debug");
+            logger.info("info");
+            assertEquals(Arrays.asList("info"), messages());
+        } finally {
+            HandroidLoggerAdapter.addSink(LogcatSink.INSTANCE, Log.VERBOSE);
+        }
+    }
+
+    @Test
+    public void shortMessageIsNotSplit() {
+        final String message = repeat('a', LogcatSink.LOGCAT_MAX_MESSAGE_BYTES);
+        LogcatSink.println(Log.INFO, "tag", message);
+        assertEquals(Arrays.asList(message), messages());
+    }
+
+    @Test
+    public void longMessageIsSplitAtLineBoundary() {
+        final String line1 = repeat('a', 3000);
+        final String line2 = repeat('b', 3000);
+        LogcatSink.println(Log.INFO, "tag", line1 + "\n" + line2);
+        assertEquals(Arrays.asList(line1, line2), messages());
+    }
+
+    @Test
+    public void longLineIsSplit() {
+        final String message = repeat('a', 9000);
+        LogcatSink.println(Log.INFO, "tag", message);
+        assertEquals(Arrays.asList(repeat('a', 4000), repeat('a', 4000), repeat('a', 1000)), messages());
+    }
+
+    @Test
+    public void multiByteCharactersAreCountedInBytes() {
+        // each char takes 3 bytes in UTF-8
+        final String message = repeat('€', 2000);
+        LogcatSink.println(Log.INFO, "tag", message);
+        assertEquals(Arrays.asList(repeat('€', 1333), repeat('€', 667)), messages());
+    }
+
+    @Test
+    public void surrogatePairIsNeverSplit() {
+        final StringBuilder sb = new StringBuilder("a");
+        for (int i = 0; i < 1500; i++) {
+            sb.append("😀");
+        }
+        LogcatSink.println(Log.INFO, "tag", sb.toString());
+        final List<String> messages = messages();
+        assertEquals(2, messages.size());
+        assertEquals(sb.toString(), messages.get(0) + messages.get(1));
+        assertTrue(Character.isHighSurrogate(messages.get(1).charAt(0)));
+        assertTrue(Character.isLowSurrogate(messages.get(0).charAt(messages.get(0).length() - 1)));
+    }
+}
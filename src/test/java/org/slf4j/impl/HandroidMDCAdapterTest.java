@@ -0,0 +1,172 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class HandroidMDCAdapterTest {
+
+    private final HandroidLoggerAdapter logger = new HandroidLoggerAdapter("MyTag");
+
+    @Before
+    public void resetLog() {
+        Log.reset();
+        MDC.clear();
+    }
+
+    @After
+    public void resetSettings() {
+        MDC.clear();
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+    }
+
+    @Test
+    public void boundToMDC() {
+        assertEquals(HandroidMDCAdapter.class, MDC.getMDCAdapter().getClass());
+    }
+
+    @Test
+    public void putGetRemove() {
+        MDC.put("requestId", "42");
+        MDC.put("session", "abc");
+        assertEquals("42", MDC.get("requestId"));
+        MDC.remove("requestId");
+        assertNull(MDC.get("requestId"));
+        assertEquals(Collections.singletonMap("session", "abc"), MDC.getCopyOfContextMap());
+        MDC.clear();
+        assertNull(MDC.getCopyOfContextMap());
+    }
+
+    @Test
+    public void snapshotIsNotAffectedByChanges() {
+        MDC.put("requestId", "42");
+        final HandroidMDCAdapter.Context context = HandroidMDCAdapter.getContext();
+        final Map<String, String> copy = MDC.getCopyOfContextMap();
+        MDC.put("requestId", "43");
+        copy.put("other", "value");
+        assertEquals(Collections.singletonMap("requestId", "42"), context.map);
+        assertEquals("43", MDC.get("requestId"));
+    }
+
+    @Test
+    public void prefixIsCached() {
+        MDC.put("requestId", "42");
+        MDC.put("session", "abc");
+        final HandroidMDCAdapter.Context context = HandroidMDCAdapter.getContext();
+        assertEquals("[requestId=42 session=abc] ", context.getPrefix());
+        assertSame(context.getPrefix(), context.getPrefix());
+        assertSame(context, HandroidMDCAdapter.getContext());
+    }
+
+    @Test
+    public void rendersIntoLogcat() {
+        HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setRenderMdc(true).build());
+        logger.info("no context");
+        MDC.put("requestId", "42");
+        logger.info("Hello {}", "world");
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+        logger.info("not rendered");
+        assertEquals("no context", Log.getEntries().get(0).message);
+        assertEquals("[requestId=42] Hello world", Log.getEntries().get(1).message);
+        assertEquals("not rendered", Log.getEntries().get(2).message);
+    }
+
+    @Test
+    public void passedToSinks() {
+        final List<LogEvent> events = new ArrayList<LogEvent>();
+        final LogSink sink = new LogSink() {
+            @Override
+            public void write(LogEvent event) {
+                events.add(event);
+            }
+        };
+        HandroidLoggerAdapter.addSink(sink, Log.VERBOSE);
+        try {
+            MDC.put("requestId", "42");
+            logger.info("Hello {}", "world");
+            MDC.put("requestId", "43");
+        } finally {
+            HandroidLoggerAdapter.removeSink(sink);
+        }
+        assertEquals(Collections.singletonMap("requestId", "42"), events.get(0).mdc);
+        assertEquals("Hello world", events.get(0).getRenderedMessage());
+    }
+
+    @Test
+    public void renderFlagIsCapturedWhenLogged() {
+        final List<LogEvent> events = new ArrayList<LogEvent>();
+        final LogSink sink = new LogSink() {
+            @Override
+            public void write(LogEvent event) {
+                events.add(event);
+            }
+        };
+        HandroidLoggerAdapter.addSink(sink, Log.VERBOSE);
+        try {
+            MDC.put("requestId", "42");
+            HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setRenderMdc(true).build());
+            logger.info("rendered");
+            HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+            logger.info("not rendered");
+            // e.g. written later by the async dispatcher or the flight recorder dump
+            HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setRenderMdc(true).build());
+        } finally {
+            HandroidLoggerAdapter.removeSink(sink);
+            HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+        }
+        assertEquals("[requestId=42] rendered", events.get(0).getRenderedMessage());
+        assertEquals("not rendered", events.get(1).getRenderedMessage());
+    }
+
+    @Test
+    public void inheritedByChildThreads() throws InterruptedException {
+        MDC.put("requestId", "42");
+        final String[] value = new String[1];
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                value[0] = MDC.get("requestId");
+                MDC.put("requestId", "child");
+            }
+        };
+        thread.start();
+        thread.join();
+        assertEquals("42", value[0]);
+        assertEquals("42", MDC.get("requestId"));
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+import org.slf4j.helpers.BasicMarkerFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HandroidMarkerFactoryTest {
+
+    private final HandroidLoggerAdapter logger = new HandroidLoggerAdapter("MyTag");
+    private final Marker security = MarkerFactory.getMarker("SECURITY");
+    private final Marker perf = MarkerFactory.getMarker("PERF");
+
+    @Before
+    public void resetLog() {
+        Log.reset();
+    }
+
+    @After
+    public void enableMarkers() {
+        HandroidLoggerAdapter.setMarkerEnabled("SECURITY", true);
+        HandroidLoggerAdapter.setMarkerEnabled("PERF", true);
+        perf.remove(security);
+    }
+
+    @Test
+    public void boundToMarkerFactory() {
+        assertTrue(security instanceof HandroidMarker);
+        assertSame(security, MarkerFactory.getMarker("SECURITY"));
+        assertEquals(security, MarkerFactory.getDetachedMarker("SECURITY"));
+    }
+
+    @Test
+    public void allMarkersEnabledByDefault() {
+        logger.info(security, "security {}", 1);
+        logger.info(perf, "perf");
+        logger.info("unmarked");
+        assertEquals(3, Log.getEntries().size());
+        assertTrue(logger.isInfoEnabled(security));
+    }
+
+    @Test
+    public void disabledMarkerIsSuppressed() {
+        HandroidLoggerAdapter.setMarkerEnabled("PERF", false);
+        logger.info(perf, "perf {}", 1);
+        logger.warn(perf, "perf {} {}", 1, 2);
+        logger.error(perf, "perf", new RuntimeException("Simulated"));
+        logger.info(security, "security");
+        logger.info("unmarked");
+        assertEquals(2, Log.getEntries().size());
+        assertEquals("security", Log.getEntries().get(0).message);
+        assertFalse(logger.isInfoEnabled(perf));
+        HandroidLoggerAdapter.setMarkerEnabled("PERF", true);
+        logger.info(perf, "perf");
+        assertEquals(3, Log.getEntries().size());
+    }
+
+    @Test
+    public void referencesAreFiltered() {
+        HandroidLoggerAdapter.setMarkerEnabled("SECURITY", false);
+        logger.info(perf, "perf");
+        // the cached bitmask must be invalidated when the reference is added
+        perf.add(security);
+        logger.info(perf, "perf referencing security");
+        perf.remove(security);
+        logger.info(perf, "perf again");
+        assertEquals(2, Log.getEntries().size());
+        assertEquals("perf again", Log.getEntries().get(1).message);
+    }
+
+    @Test
+    public void foreignMarkersAreFiltered() {
+        final Marker foreign = new BasicMarkerFactory().getMarker("SECURITY");
+        HandroidLoggerAdapter.setMarkerEnabled("SECURITY", false);
+        logger.info(foreign, "foreign");
+        assertEquals(0, Log.getEntries().size());
+    }
+
+    @Test
+    public void detachedMarkersShareTheBit() {
+        HandroidLoggerAdapter.setMarkerEnabled("SECURITY", false);
+        logger.info(MarkerFactory.getDetachedMarker("SECURITY"), "detached");
+        assertEquals(0, Log.getEntries().size());
+    }
+
+    @Test
+    public void markersTakeNoBitUntilDisabled() {
+        for (int i = 0; i < HandroidMarkerFactory.MAX_FILTERED_MARKERS * 2; i++) {
+            logger.info(MarkerFactory.getMarker("UNRELATED" + i), "unrelated");
+        }
+        final Marker late = MarkerFactory.getMarker("LATE");
+        HandroidLoggerAdapter.setMarkerEnabled("LATE", false);
+        try {
+            logger.info(late, "late");
+            logger.info(MarkerFactory.getMarker("UNRELATED0"), "unrelated");
+            assertEquals(HandroidMarkerFactory.MAX_FILTERED_MARKERS * 2 + 1, Log.getEntries().size());
+        } finally {
+            HandroidLoggerAdapter.setMarkerEnabled("LATE", true);
+        }
+    }
+
+    @Test
+    public void enabledMarkerReleasesItsBit() {
+        HandroidLoggerAdapter.setMarkerEnabled("SECURITY", false);
+        logger.info(security, "security");
+        HandroidLoggerAdapter.setMarkerEnabled("SECURITY", true);
+        // PERF reuses the bit of SECURITY: the cached mask of SECURITY must not match it
+        HandroidLoggerAdapter.setMarkerEnabled("PERF", false);
+        logger.info(security, "security again");
+        logger.info(perf, "perf");
+        assertEquals(1, Log.getEntries().size());
+        assertEquals("security again", Log.getEntries().get(0).message);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooManyDisabledMarkers() {
+        int i = 0;
+        try {
+            for (; i <= HandroidMarkerFactory.MAX_FILTERED_MARKERS; i++) {
+                HandroidLoggerAdapter.setMarkerEnabled("DISABLED" + i, false);
+            }
+        } finally {
+            for (; i >= 0; i--) {
+                HandroidLoggerAdapter.setMarkerEnabled("DISABLED" + i, true);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.junit.Test;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class HandroidMessageFormatterTest {
+
+    private static final String[] PATTERNS = {
+            "", "foo", "{}", "{} {}", "{}{}{}", "a {} b", "a {} b {}", "a {} b {} c {} d", "{", "}", "{ }", "}{",
+            "\\{}", "a \\{} b {}", "a \\\\{} b", "a \\\\{} b {}", "\\\\\\{} x {}", "a {} b \\{}", "{}}", "{{}", "\\", "a\\b {}"
+    };
+
+    private static final Object[] ARGS = {
+            "x", null, 42, new Date(0), new int[]{1, 2}, new Object[]{"a", null, new long[]{3}}, new char[0], new double[]{1.5},
+            new boolean[]{true}, new byte[]{-1}, new short[]{7}, new float[]{0.5f}
+    };
+
+    @Test
+    public void oneArgumentMatchesSlf4j() {
+        for (String pattern : PATTERNS) {
+            for (Object arg : ARGS) {
+                assertEquals(MessageFormatter.format(pattern, arg).getMessage(), HandroidMessageFormatter.format(pattern, arg));
+            }
+        }
+    }
+
+    @Test
+    public void twoArgumentsMatchSlf4j() {
+        for (String pattern : PATTERNS) {
+            for (Object arg1 : ARGS) {
+                assertEquals(MessageFormatter.format(pattern, arg1, "y").getMessage(), HandroidMessageFormatter.format(pattern, arg1, "y"));
+                assertEquals(MessageFormatter.format(pattern, "y", arg1).getMessage(), HandroidMessageFormatter.format(pattern, "y", arg1));
+            }
+        }
+    }
+
+    @Test
+    public void arrayMatchesSlf4j() {
+        for (String pattern : PATTERNS) {
+            for (int count = 0; count <= ARGS.length; count++) {
+                final Object[] args = new Object[count];
+                System.arraycopy(ARGS, 0, args, 0, count);
+                assertEquals(MessageFormatter.arrayFormat(pattern, args).getMessage(), HandroidMessageFormatter.format(pattern, args, count));
+            }
+        }
+    }
+
+    @Test
+    public void selfReferencingArray() {
+        final Object[] array = new Object[]{"a", null};
+        array[1] = array;
+        assertEquals(MessageFormatter.format("{}", array).getMessage(), HandroidMessageFormatter.format("{}", (Object) array));
+        assertEquals("[a, [...]]", HandroidMessageFormatter.format("{}", (Object) array));
+    }
+
+    @Test
+    public void failingToString() {
+        final Object failing = new Object() {
+            @Override
+            public String toString() {
+                throw new RuntimeException("expected");
+            }
+        };
+        assertEquals("a [FAILED toString()] b", HandroidMessageFormatter.format("a {} b", failing));
+    }
+
+    @Test
+    public void nullPattern() {
+        assertEquals(null, HandroidMessageFormatter.format(null, "a"));
+        assertEquals(null, HandroidMessageFormatter.format(null, "a", "b"));
+        assertEquals(null, HandroidMessageFormatter.format(null, new Object[]{"a"}, 1));
+    }
+
+    @Test
+    public void patternWithoutPlaceholdersIsReturnedAsIs() {
+        final String pattern = "no placeholders";
+        assertSame(pattern, HandroidMessageFormatter.format(pattern, "a"));
+        assertSame(pattern, HandroidMessageFormatter.format(pattern, "a", "b"));
+        assertSame(pattern, HandroidMessageFormatter.format(pattern, new Object[]{"a"}, 1));
+    }
+
+    @Test
+    public void nestedFormattingInToString() {
+        final Object nested = new Object() {
+            @Override
+            public String toString() {
+                return HandroidMessageFormatter.format("inner {}", "x");
+            }
+        };
+        assertEquals("outer inner x done", HandroidMessageFormatter.format("outer {} {}", nested, "done"));
+    }
+}
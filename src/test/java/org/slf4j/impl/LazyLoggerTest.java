@@ -0,0 +1,246 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.helpers.NOPLogger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LazyLoggerTest {
+
+    private final HandroidLoggerAdapter logger = new HandroidLoggerAdapter("MyTag");
+    private final AtomicInteger calls = new AtomicInteger();
+    private final LogSupplier supplier = new LogSupplier() {
+        @Override
+        public Object get() {
+            calls.incrementAndGet();
+            return "computed";
+        }
+    };
+    private static final LogFunction<int[]> SUM = new LogFunction<int[]>() {
+        @Override
+        public Object apply(int[] input) {
+            int sum = 0;
+            for (int i : input) {
+                sum += i;
+            }
+            return "sum " + sum;
+        }
+    };
+
+    @Before
+    public void resetLog() {
+        Log.reset();
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+        HandroidLoggerAdapter.refreshLogLevels();
+    }
+
+    @After
+    public void disableFlightRecorder() {
+        HandroidLoggerAdapter.enableFlightRecorder(0);
+    }
+
+    private static List<String> messages() {
+        final List<String> messages = new ArrayList<String>();
+        for (Log.Entry entry : Log.getEntries()) {
+            messages.add(entry.message);
+        }
+        return messages;
+    }
+
+    @Test
+    public void suppliersNotCalledWhenDisabled() {
+        logger.debug(supplier);
+        logger.trace(supplier);
+        logger.debug("value: {}", supplier);
+        logger.trace("values: {} {} {}", 1, 2, supplier);
+        assertEquals(0, calls.get());
+        assertTrue(messages().isEmpty());
+    }
+
+    @Test
+    public void logsComputedMessage() {
+        logger.info(supplier);
+        logger.warn(SUM, new int[]{1, 2, 3});
+        logger.error(new LogSupplier() {
+            @Override
+            public Object get() {
+                return new int[]{1, 2};
+            }
+        });
+        assertEquals(1, calls.get());
+        assertEquals(Arrays.asList("computed", "sum 6", "[1, 2]"), messages());
+    }
+
+    @Test
+    public void resolvesSupplierArguments() {
+        logger.info("value: {}", supplier);
+        logger.info("values: {} {}", supplier, 2);
+        logger.info("values: {} {} {}", 1, 2, supplier);
+        assertEquals(3, calls.get());
+        assertEquals(Arrays.asList("value: computed", "values: computed 2", "values: 1 2 computed"), messages());
+    }
+
+    @Test
+    public void supplierCalledOnceForAllSinks() {
+        final List<String> messages = new ArrayList<String>();
+        final LogSink sink = new LogSink() {
+            @Override
+            public void write(LogEvent event) {
+                messages.add(event.getMessage());
+            }
+        };
+        HandroidLoggerAdapter.addSink(sink, Log.VERBOSE);
+        try {
+            logger.info("value: {}", supplier);
+        } finally {
+            HandroidLoggerAdapter.removeSink(sink);
+        }
+        assertEquals(1, calls.get());
+        assertEquals(Arrays.asList("value: computed"), messages);
+        assertEquals(Arrays.asList("value: computed"), messages());
+    }
+
+    @Test
+    public void failingSupplierArgument() {
+        logger.info("value: {}", new LogSupplier() {
+            @Override
+            public Object get() {
+                throw new IllegalStateException("boom");
+            }
+        });
+        assertEquals(Arrays.asList("value: [FAILED get()]"), messages());
+    }
+
+    @Test
+    public void failingComputedMessage() {
+        logger.info(new LogSupplier() {
+            @Override
+            public Object get() {
+                throw new IllegalStateException("boom");
+            }
+        });
+        logger.warn(new LogFunction<String>() {
+            @Override
+            public Object apply(String input) {
+                throw new IllegalStateException(input);
+            }
+        }, "boom");
+        assertEquals(Arrays.asList("[FAILED get()]", "[FAILED apply()]"), messages());
+    }
+
+    @Test
+    public void forwardingLoggerLogsFailingComputedMessage() {
+        final LazyLogger forwarding = new ForwardingLazyLogger(logger);
+        forwarding.info(new LogSupplier() {
+            @Override
+            public Object get() {
+                throw new IllegalStateException("boom");
+            }
+        });
+        forwarding.warn(new LogFunction<String>() {
+            @Override
+            public Object apply(String input) {
+                throw new IllegalStateException(input);
+            }
+        }, "boom");
+        forwarding.error(SUM, new int[]{1, 2});
+        assertEquals(Arrays.asList("[FAILED get()]", "[FAILED apply()]", "sum 3"), messages());
+    }
+
+    @Test
+    public void computedMessagesShareCallSite() {
+        HandroidLoggerAdapter.enableRateLimiting(1, 2);
+        try {
+            for (int i = 0; i < 5; i++) {
+                logger.warn(SUM, new int[]{i});
+            }
+        } finally {
+            HandroidLoggerAdapter.enableRateLimiting(0, 1);
+        }
+        assertEquals(Arrays.asList("sum 0", "sum 1"), messages());
+    }
+
+    @Test
+    public void flightRecorderDumpsFailingFunction() {
+        HandroidLoggerAdapter.enableFlightRecorder(4);
+        logger.debug(new LogFunction<String>() {
+            @Override
+            public Object apply(String input) {
+                throw new IllegalStateException(input);
+            }
+        }, "boom");
+        final List<String> dumped = new ArrayList<String>();
+        HandroidLoggerAdapter.dumpFlightRecorder(new LogSink() {
+            @Override
+            public void write(LogEvent event) {
+                dumped.add(event.getMessage());
+            }
+        });
+        assertEquals(Arrays.asList("[FAILED apply()]"), dumped);
+    }
+
+    @Test
+    public void flightRecorderComputesOnDump() {
+        HandroidLoggerAdapter.enableFlightRecorder(4);
+        logger.debug(supplier);
+        logger.debug(SUM, new int[]{4, 5});
+        assertEquals(0, calls.get());
+        final List<String> dumped = new ArrayList<String>();
+        HandroidLoggerAdapter.dumpFlightRecorder(new LogSink() {
+            @Override
+            public void write(LogEvent event) {
+                dumped.add(event.getMessage());
+            }
+        });
+        assertEquals(Arrays.asList("computed", "sum 9"), dumped);
+    }
+
+    @Test
+    public void lazyReturnsHandroidLogger() {
+        assertSame(logger, HandroidLoggerAdapter.lazy(logger));
+    }
+
+    @Test
+    public void lazyWrapsOtherLoggers() {
+        final Logger other = NOPLogger.NOP_LOGGER;
+        final LazyLogger lazy = HandroidLoggerAdapter.lazy(other);
+        lazy.error(supplier);
+        lazy.error(SUM, new int[]{1});
+        assertEquals(0, calls.get());
+    }
+}
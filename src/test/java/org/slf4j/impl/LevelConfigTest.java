@@ -0,0 +1,117 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LevelConfigTest {
+
+    @Before
+    public void resetLog() {
+        Log.reset();
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+    }
+
+    @After
+    public void resetLevels() {
+        HandroidLoggerAdapter.setLevels(new Properties());
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+    }
+
+    @Test
+    public void resolvesMostSpecificPrefix() {
+        final LevelConfig config = LevelConfig.EMPTY
+                .with("", Log.INFO)
+                .with("com.acme", Log.WARN)
+                .with("com.acme.net", Log.DEBUG)
+                .with("com.acme.net.Chatty", Log.ASSERT + 1);
+        assertEquals(Log.INFO, config.getThreshold("org.Other"));
+        assertEquals(Log.WARN, config.getThreshold("com.acme"));
+        assertEquals(Log.WARN, config.getThreshold("com.acme.ui.MainActivity"));
+        assertEquals(Log.DEBUG, config.getThreshold("com.acme.net.Client"));
+        assertEquals(Log.ASSERT + 1, config.getThreshold("com.acme.net.Chatty"));
+        // whole segments only
+        assertEquals(Log.INFO, config.getThreshold("com.acmesoft.Client"));
+        assertEquals(LevelConfig.UNSET, LevelConfig.EMPTY.with("com.acme", Log.WARN).getThreshold("org.Other"));
+    }
+
+    @Test
+    public void removesThreshold() {
+        final LevelConfig config = LevelConfig.EMPTY.with("com.acme", Log.WARN).with("com.acme", LevelConfig.UNSET);
+        assertEquals(LevelConfig.UNSET, config.getThreshold("com.acme.Client"));
+    }
+
+    @Test
+    public void parsesProperties() {
+        final Properties properties = new Properties();
+        properties.setProperty("level", "error");
+        properties.setProperty("level.com.acme.net", "TRACE");
+        properties.setProperty("other.key", "ignored");
+        final LevelConfig config = LevelConfig.parse(properties);
+        assertEquals(Log.ERROR, config.getThreshold("com.acme.Client"));
+        assertEquals(Log.VERBOSE, config.getThreshold("com.acme.net.Client"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidLevel() {
+        final Properties properties = new Properties();
+        properties.setProperty("level.com.acme", "LOUD");
+        HandroidLoggerAdapter.setLevels(properties);
+    }
+
+    @Test
+    public void loadsClasspathResource() {
+        assertEquals(Log.WARN, LevelConfig.loadResource().getThreshold("org.test.configured.Client"));
+    }
+
+    @Test
+    public void thresholdOverridesDebugFlag() {
+        final AndroidLoggerFactory factory = new AndroidLoggerFactory();
+        final Logger net = factory.getLogger("com.acme.net.ClientConnectionManager");
+        final Logger ui = factory.getLogger("com.acme.ui.MainActivity");
+        net.debug("not yet");
+        HandroidLoggerAdapter.setLevel("com.acme.net", Log.DEBUG);
+        HandroidLoggerAdapter.setLevel("com.acme.ui", Log.ASSERT + 1);
+        net.trace("trace");
+        net.debug("debug");
+        ui.error("error");
+        assertEquals(1, Log.getEntries().size());
+        assertEquals("debug", Log.getEntries().get(0).message);
+        assertTrue(net.isDebugEnabled());
+        assertFalse(ui.isErrorEnabled());
+        HandroidLoggerAdapter.setLevel("com.acme.ui", 0);
+        assertTrue(ui.isErrorEnabled());
+    }
+}
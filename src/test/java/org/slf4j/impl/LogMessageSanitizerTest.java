@@ -0,0 +1,96 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class LogMessageSanitizerTest {
+
+    /**
+     * The original implementation: sanitize, then trim.
+     */
+    private static String reference(String message) {
+        final StringBuilder sb = new StringBuilder(message.length());
+        boolean lastCharWasNewLine = false;
+        for (int i = 0; i < message.length(); i++) {
+            final char c = message.charAt(i);
+            if (c == '\n' && lastCharWasNewLine) {
+                // do nothing
+            } else if (c >= 32 || c == '\n') {
+                sb.append(c);
+            } else {
+                sb.append(' ');
+            }
+            lastCharWasNewLine = c == '\n';
+        }
+        return sb.toString().trim();
+    }
+
+    @Test
+    public void cleanMessageIsReturnedAsIs() {
+        final String message = "Hello\nworld";
+        assertSame(message, LogMessageSanitizer.sanitize(message));
+        assertSame("", LogMessageSanitizer.sanitize(""));
+    }
+
+    @Test
+    public void sanitize() {
+        assertEquals("a b", LogMessageSanitizer.sanitize("a\rb"));
+        assertEquals("a\nb", LogMessageSanitizer.sanitize("a\n\n\nb"));
+        assertEquals("a\n \nb", LogMessageSanitizer.sanitize("a\n\r\nb"));
+        assertEquals("a", LogMessageSanitizer.sanitize(" \n\ta\r\n "));
+        assertEquals("", LogMessageSanitizer.sanitize("\n\n"));
+        assertEquals("null", LogMessageSanitizer.sanitize(null));
+    }
+
+    @Test
+    public void matchesReferenceImplementation() {
+        final char[] alphabet = {'a', 'b', ' ', '\n', '\r', '\t', '\0', 'é'};
+        final Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            final char[] chars = new char[random.nextInt(12)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            final String message = new String(chars);
+            assertEquals(reference(message), LogMessageSanitizer.sanitize(message));
+        }
+    }
+
+    @Test
+    public void appendIsSinglePass() {
+        final LogMessageSanitizer buffer = LogMessageSanitizer.acquire();
+        try {
+            assertEquals(reference("  msg\r\n" + "\njava.io.IOException\n\n\tat Foo\n"),
+                    buffer.append("  msg\r\n").append('\n').append("java.io.IOException\n\n\tat Foo\n").toString());
+        } finally {
+            buffer.release();
+        }
+    }
+}
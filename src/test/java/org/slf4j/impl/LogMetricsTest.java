@@ -0,0 +1,172 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LogMetricsTest {
+
+    private final HandroidLoggerAdapter logger = new HandroidLoggerAdapter("MyTag");
+
+    @Before
+    public void enableMetrics() {
+        Log.reset();
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+        HandroidLoggerAdapter.refreshLogLevels();
+        HandroidLoggerAdapter.enableMetrics(true);
+    }
+
+    @After
+    public void disableMetrics() {
+        HandroidLoggerAdapter.enableMetrics(false);
+    }
+
+    @Test
+    public void disabledByDefault() {
+        HandroidLoggerAdapter.enableMetrics(false);
+        logger.info("hello");
+        assertNull(HandroidLoggerAdapter.getMetrics());
+    }
+
+    @Test
+    public void countsEvents() {
+        logger.info("hello");
+        logger.warn("hello {}", "world");
+        logger.warn("hello {} {}", 1, 2);
+        new HandroidLoggerAdapter("Other").error("hello", new RuntimeException());
+        final LogMetricsSnapshot metrics = HandroidLoggerAdapter.getMetrics();
+        assertNotNull(metrics);
+        assertEquals(1, metrics.getEventCount(Log.INFO));
+        assertEquals(2, metrics.getEventCount(Log.WARN));
+        assertEquals(1, metrics.getEventCount(Log.ERROR));
+        assertEquals(4, metrics.getEventCount());
+        assertEquals(Long.valueOf(3), metrics.getEventCountByTag().get("MyTag"));
+        assertEquals(Long.valueOf(1), metrics.getEventCountByTag().get("Other"));
+        assertEquals(1, metrics.getStackTracesRendered());
+        long characters = 0;
+        for (Log.Entry entry : Log.getEntries()) {
+            characters += entry.message.length();
+        }
+        assertEquals(characters, metrics.getCharactersEmitted());
+    }
+
+    @Test
+    public void countsSuppressed() {
+        logger.debug("hidden");
+        logger.trace("hidden {}", 1);
+        logger.trace("hidden {} {}", 1, 2);
+        final LogMetricsSnapshot metrics = HandroidLoggerAdapter.getMetrics();
+        assertNotNull(metrics);
+        assertEquals(1, metrics.getSuppressedCount(Log.DEBUG));
+        assertEquals(2, metrics.getSuppressedCount(Log.VERBOSE));
+        assertEquals(0, metrics.getEventCount());
+    }
+
+    @Test
+    public void countsEventsDispatchedToSinks() {
+        final List<LogEvent> events = new ArrayList<LogEvent>();
+        final LogSink sink = new LogSink() {
+            @Override
+            public void write(LogEvent event) {
+                events.add(event);
+            }
+        };
+        HandroidLoggerAdapter.addSink(sink, Log.VERBOSE);
+        try {
+            logger.info("hello {}", 1);
+            logger.info("hello");
+        } finally {
+            HandroidLoggerAdapter.removeSink(sink);
+        }
+        final LogMetricsSnapshot metrics = HandroidLoggerAdapter.getMetrics();
+        assertNotNull(metrics);
+        assertEquals(2, events.size());
+        assertEquals(2, metrics.getEventCount(Log.INFO));
+    }
+
+    @Test
+    public void histogramCountsEveryEvent() {
+        for (int i = 0; i < 100; i++) {
+            logger.info("hello {}", i);
+        }
+        final LogMetricsSnapshot metrics = HandroidLoggerAdapter.getMetrics();
+        assertNotNull(metrics);
+        long total = 0;
+        for (long count : metrics.getLatencyHistogram()) {
+            total += count;
+        }
+        assertEquals(100, total);
+        assertTrue(metrics.getLatencyPercentileNanos(50) <= metrics.getLatencyPercentileNanos(99));
+        assertTrue(metrics.getLatencyPercentileNanos(100) > 0);
+    }
+
+    @Test
+    public void countsFromManyThreads() throws InterruptedException {
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        logger.info("hello {}", j);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        final LogMetricsSnapshot metrics = HandroidLoggerAdapter.getMetrics();
+        assertNotNull(metrics);
+        assertEquals(8000, metrics.getEventCount(Log.INFO));
+        assertEquals(Long.valueOf(8000), metrics.getEventCountByTag().get("MyTag"));
+    }
+
+    @Test
+    public void percentileOfEmptyHistogram() {
+        final LogMetricsSnapshot metrics = HandroidLoggerAdapter.getMetrics();
+        assertNotNull(metrics);
+        assertEquals(0, metrics.getLatencyPercentileNanos(99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidPriority() {
+        final LogMetricsSnapshot metrics = HandroidLoggerAdapter.getMetrics();
+        assertNotNull(metrics);
+        metrics.getEventCount(42);
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RateLimiterTest {
+
+    private final HandroidLoggerAdapter logger = new HandroidLoggerAdapter("MyTag");
+
+    @Before
+    public void resetLog() {
+        Log.reset();
+    }
+
+    @After
+    public void disableRateLimiting() {
+        HandroidLoggerAdapter.enableRateLimiting(0, 1);
+    }
+
+    private static List<String> messages() {
+        final List<String> messages = new ArrayList<String>();
+        for (Log.Entry entry : Log.getEntries()) {
+            messages.add(entry.message);
+        }
+        return messages;
+    }
+
+    @Test
+    public void throttlesCallSite() {
+        HandroidLoggerAdapter.enableRateLimiting(1, 3);
+        for (int i = 0; i < 10; i++) {
+            logger.warn("retrying {}", i);
+        }
+        logger.warn("other call site");
+        assertEquals(Arrays.asList("retrying 0", "retrying 1", "retrying 2", "other call site"), messages());
+    }
+
+    @Test
+    public void refillsTokens() {
+        final RateLimiter limiter = new RateLimiter(10, 2);
+        final long second = 1000000000L;
+        assertTrue(limiter.tryAcquire(logger, Log.WARN, "retrying {}", 1, 1, null, null, null, 0));
+        assertTrue(limiter.tryAcquire(logger, Log.WARN, "retrying {}", 1, 2, null, null, null, 0));
+        assertFalse(limiter.tryAcquire(logger, Log.WARN, "retrying {}", 1, 3, null, null, null, 0));
+        assertFalse(limiter.tryAcquire(logger, Log.WARN, "retrying {}", 1, 4, null, null, null, second / 20));
+        assertTrue(limiter.tryAcquire(logger, Log.WARN, "retrying {}", 1, 5, null, null, null, second / 10));
+        assertFalse(limiter.tryAcquire(logger, Log.WARN, "retrying {}", 1, 6, null, null, null, second / 10));
+        assertEquals(Arrays.asList("Suppressed 2 log message(s) since the rate limit was exceeded"), messages());
+        // a long pause fills the bucket, but no more than the burst
+        assertTrue(limiter.tryAcquire(logger, Log.WARN, "retrying {}", 1, 7, null, null, null, 10 * second));
+        assertTrue(limiter.tryAcquire(logger, Log.WARN, "retrying {}", 1, 8, null, null, null, 10 * second));
+        assertFalse(limiter.tryAcquire(logger, Log.WARN, "retrying {}", 1, 9, null, null, null, 10 * second));
+    }
+
+    @Test
+    public void collapsesRepeatedMessages() {
+        HandroidLoggerAdapter.enableRateLimiting(1, 2);
+        for (int i = 0; i < 5; i++) {
+            logger.info("state {} {}", "idle", 5L);
+        }
+        logger.info("state {} {}", "busy", 5L);
+        logger.info("state {} {}", "busy", 5L);
+        assertEquals(Arrays.asList("state idle 5", "Last message repeated 4 time(s)", "state busy 5"), messages());
+    }
+
+    @Test
+    public void doesNotCollapseMutableArguments() {
+        HandroidLoggerAdapter.enableRateLimiting(1, 3);
+        final List<String> list = new ArrayList<String>();
+        logger.info("list {}", list);
+        list.add("a");
+        logger.info("list {}", list);
+        assertEquals(Arrays.asList("list []", "list [a]"), messages());
+    }
+
+    @Test
+    public void doesNotCollapseExceptions() {
+        HandroidLoggerAdapter.enableRateLimiting(1, 3);
+        logger.info("failed", new IOException("Simulated"));
+        logger.info("failed", new IOException("Simulated"));
+        assertEquals(2, messages().size());
+    }
+
+    @Test
+    public void throttledMessagesAreNotFormatted() {
+        HandroidLoggerAdapter.enableRateLimiting(1, 1);
+        final int[] toStringCalls = new int[1];
+        final Object arg = new Object() {
+            @Override
+            public String toString() {
+                toStringCalls[0]++;
+                return "arg";
+            }
+        };
+        for (int i = 0; i < 5; i++) {
+            logger.warn("retrying {}", arg);
+        }
+        assertEquals(1, toStringCalls[0]);
+    }
+
+    @Test
+    public void loggersSharingTagAreLimitedSeparately() {
+        final RateLimiter limiter = new RateLimiter(1, 1);
+        final HandroidLoggerAdapter client = new HandroidLoggerAdapter("com.acme.net.Client", "Client");
+        final HandroidLoggerAdapter otherClient = new HandroidLoggerAdapter("org.other.Client", "Client");
+        assertTrue(limiter.tryAcquire(client, Log.WARN, "retrying {}", 1, 1, null, null, null, 0));
+        assertTrue(limiter.tryAcquire(otherClient, Log.WARN, "retrying {}", 1, 1, null, null, null, 0));
+        assertFalse(limiter.tryAcquire(client, Log.WARN, "retrying {}", 1, 2, null, null, null, 0));
+        assertFalse(limiter.tryAcquire(otherClient, Log.WARN, "retrying {}", 1, 2, null, null, null, 0));
+    }
+
+    @Test
+    public void repeatedMessageIsCollapsedAfterPriorityChange() {
+        HandroidLoggerAdapter.enableRateLimiting(1, 3);
+        logger.info("state {}", "idle");
+        logger.warn("state {}", "idle");
+        logger.warn("state {}", "idle");
+        logger.warn("state {}", "busy");
+        assertEquals(Arrays.asList("state idle", "state idle", "Last message repeated 1 time(s)", "state busy"), messages());
+    }
+
+    @Test
+    public void messageAfterExceptionIsNotCollapsed() {
+        HandroidLoggerAdapter.enableRateLimiting(1, 3);
+        logger.warn("failed", new IOException("Simulated"));
+        logger.warn("failed");
+        logger.warn("failed");
+        final List<String> messages = messages();
+        assertEquals(2, messages.size());
+        assertEquals("failed", messages.get(1));
+    }
+
+    @Test
+    public void collidingCallSitesShareTheBucket() {
+        final RateLimiter limiter = new RateLimiter(1, 2);
+        final int slot = RateLimiter.getSlot("MyTag", "site 0");
+        String other = null;
+        for (int i = 1; other == null; i++) {
+            if (RateLimiter.getSlot("MyTag", "site " + i) == slot) {
+                other = "site " + i;
+            }
+        }
+        int logged = 0;
+        for (int i = 0; i < 10; i++) {
+            if (limiter.tryAcquire(logger, Log.WARN, "site 0", 0, null, null, null, null, 0)) {
+                logged++;
+            }
+            if (limiter.tryAcquire(logger, Log.WARN, other, 0, null, null, null, null, 0)) {
+                logged++;
+            }
+        }
+        assertEquals(2, logged);
+    }
+
+    @Test
+    public void repeatsAreReportedAfterWindow() {
+        final RateLimiter limiter = new RateLimiter(1, 2);
+        assertTrue(limiter.tryAcquire(logger, Log.INFO, "state {}", 1, "idle", null, null, null, 0));
+        assertFalse(limiter.tryAcquire(logger, Log.INFO, "state {}", 1, "idle", null, null, null, 1));
+        assertFalse(limiter.tryAcquire(logger, Log.INFO, "state {}", 1, "idle", null, null, null, 2));
+        assertTrue(messages().isEmpty());
+        assertFalse(limiter.tryAcquire(logger, Log.INFO, "state {}", 1, "idle", null, null, null, 1 + RateLimiter.REPEAT_FLUSH_NANOS));
+        assertEquals(Arrays.asList("Last message repeated 3 time(s)"), messages());
+        assertFalse(limiter.tryAcquire(logger, Log.INFO, "state {}", 1, "idle", null, null, null, 2 + RateLimiter.REPEAT_FLUSH_NANOS));
+        assertEquals(1, messages().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBurst() {
+        HandroidLoggerAdapter.enableRateLimiting(1, 0);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RollingFileSinkTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static String read(File file) throws IOException {
+        final RandomAccessFile f = new RandomAccessFile(file, "r");
+        try {
+            final byte[] bytes = new byte[(int) f.length()];
+            f.readFully(bytes);
+            return new String(bytes, "UTF-8");
+        } finally {
+            f.close();
+        }
+    }
+
+    private static String header(LogEvent event) {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(event.timestamp)) + " ";
+    }
+
+    @Test
+    public void writesLines() throws IOException {
+        final RollingFileSink sink = new RollingFileSink(folder.getRoot(), "app", 4096, 3);
+        final LogEvent event1 = new LogEvent(Log.WARN, "MyTag", "Hello\r\nworld", null);
+        final LogEvent event2 = new LogEvent(Log.INFO, "Tag2", "Příliš žluťoučký kůň 😀", null);
+        sink.write(event1);
+        sink.write(event2);
+        sink.close();
+        assertEquals(header(event1) + "W/MyTag: Hello \nworld\n" + header(event2) + "I/Tag2: Příliš žluťoučký kůň 😀\n", read(sink.getFile(0)));
+    }
+
+    @Test
+    public void rollsOver() throws IOException {
+        final RollingFileSink sink = new RollingFileSink(folder.getRoot(), "app", 1024, 3);
+        for (int i = 0; i < 100; i++) {
+            sink.write(new LogEvent(Log.INFO, "MyTag", "Message number " + i, null));
+        }
+        sink.close();
+        assertFalse(sink.getFile(3).exists());
+        assertTrue(sink.getFile(0).length() <= 1024);
+        assertTrue(read(sink.getFile(0)).endsWith("I/MyTag: Message number 99\n"));
+        final String previous = read(sink.getFile(1));
+        assertTrue(previous, previous.length() > 900);
+        assertEquals(-1, previous.indexOf('\0'));
+        assertTrue(previous.endsWith("\n"));
+    }
+
+    @Test
+    public void appendsAfterProcessKill() throws IOException {
+        final RollingFileSink sink = new RollingFileSink(folder.getRoot(), "app", 4096, 3);
+        final LogEvent event1 = new LogEvent(Log.INFO, "MyTag", "first", null);
+        sink.write(event1);
+        // no close() - simulates the process being killed; the file is still zero-padded
+        assertEquals(4096, sink.getFile(0).length());
+        final RollingFileSink sink2 = new RollingFileSink(folder.getRoot(), "app", 4096, 3);
+        final LogEvent event2 = new LogEvent(Log.INFO, "MyTag", "second", null);
+        sink2.write(event2);
+        sink2.close();
+        assertEquals(header(event1) + "I/MyTag: first\n" + header(event2) + "I/MyTag: second\n", read(sink2.getFile(0)));
+    }
+
+    @Test
+    public void terminatesBrokenLine() throws IOException {
+        final File file = new File(folder.getRoot(), "app.log");
+        final RandomAccessFile f = new RandomAccessFile(file, "rw");
+        f.write("broken rec".getBytes("UTF-8"));
+        f.setLength(4096);
+        f.close();
+        final RollingFileSink sink = new RollingFileSink(folder.getRoot(), "app", 4096, 3);
+        final LogEvent event = new LogEvent(Log.INFO, "MyTag", "next", null);
+        sink.write(event);
+        sink.close();
+        assertEquals("broken rec\n" + header(event) + "I/MyTag: next\n", read(file));
+    }
+
+    @Test
+    public void truncatesHugeMessage() throws IOException {
+        final RollingFileSink sink = new RollingFileSink(folder.getRoot(), "app", 1024, 3);
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append('x');
+        }
+        sink.write(new LogEvent(Log.INFO, "MyTag", sb.toString(), null));
+        sink.close();
+        final String content = read(sink.getFile(0));
+        assertEquals(1024, content.length());
+        assertTrue(content.endsWith("xx\n"));
+    }
+
+    @Test
+    public void retriesFailedRoll() throws IOException {
+        final RollingFileSink sink = new RollingFileSink(folder.getRoot(), "app", 1024, 2);
+        // a non-empty directory in place of app.1.log makes the rename fail
+        final File blocker = sink.getFile(1);
+        assertTrue(blocker.mkdir());
+        assertTrue(new File(blocker, "file").createNewFile());
+        final PrintStream err = System.err;
+        final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(errors, true));
+        try {
+            for (int i = 0; i < 100; i++) {
+                sink.write(new LogEvent(Log.INFO, "MyTag", "Message number " + i, null));
+            }
+        } finally {
+            System.setErr(err);
+        }
+        final String reported = errors.toString("UTF-8");
+        assertEquals(reported, reported.indexOf("failed to roll over"), reported.lastIndexOf("failed to roll over"));
+        assertTrue(reported, reported.contains("failed to roll over"));
+
+        assertTrue(new File(blocker, "file").delete());
+        assertTrue(blocker.delete());
+        sink.write(new LogEvent(Log.INFO, "MyTag", "recovered", null));
+        sink.close();
+        assertTrue(read(sink.getFile(1)).endsWith("\n"));
+        assertTrue(read(sink.getFile(0)).endsWith("I/MyTag: recovered\n"));
+    }
+
+    @Test
+    public void ignoresMessagesAfterClose() throws IOException {
+        final RollingFileSink sink = new RollingFileSink(folder.getRoot(), "app", 1024, 2);
+        sink.close();
+        sink.write(new LogEvent(Log.INFO, "MyTag", "ignored", null));
+        assertEquals(0, sink.getFile(0).length());
+    }
+}
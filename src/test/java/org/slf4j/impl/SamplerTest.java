@@ -0,0 +1,171 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SamplerTest {
+
+    private final HandroidLoggerAdapter logger = new HandroidLoggerAdapter("MyTag");
+    private final HandroidLoggerAdapter other = new HandroidLoggerAdapter("Other");
+
+    @Before
+    public void resetLog() {
+        Log.reset();
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+    }
+
+    @After
+    public void clearSampling() {
+        HandroidLoggerAdapter.clearSampling();
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+        HandroidLoggerAdapter.setLevel("com.acme", 0);
+    }
+
+    @Test
+    public void samplesOneInN() {
+        HandroidLoggerAdapter.setSampling(null, Log.DEBUG, 10);
+        for (int i = 0; i < 10000; i++) {
+            logger.debug("debug {}", i);
+        }
+        final List<Log.Entry> entries = Log.getEntries();
+        assertTrue("" + entries.size(), entries.size() > 800 && entries.size() < 1200);
+        for (Log.Entry entry : entries) {
+            assertEquals(Log.DEBUG, entry.priority);
+            assertTrue(entry.message, entry.message.matches("\\[sampled 1/10] debug \\d+"));
+        }
+    }
+
+    @Test
+    public void samplesPercentage() {
+        HandroidLoggerAdapter.setSamplingPercentage(null, Log.VERBOSE, 25);
+        for (int i = 0; i < 10000; i++) {
+            logger.trace("trace");
+        }
+        final List<Log.Entry> entries = Log.getEntries();
+        assertTrue("" + entries.size(), entries.size() > 2200 && entries.size() < 2800);
+        assertEquals("[sampled 25%] trace", entries.get(0).message);
+    }
+
+    @Test
+    public void loggerRuleTakesPrecedence() {
+        HandroidLoggerAdapter.setSamplingPercentage(null, Log.DEBUG, 0);
+        HandroidLoggerAdapter.setSampling("MyTag", Log.DEBUG, 1);
+        logger.debug("logged");
+        other.debug("not logged");
+        // other priorities are not affected
+        other.info("info");
+        assertEquals(2, Log.getEntries().size());
+        assertEquals("[sampled 1/1] logged", Log.getEntries().get(0).message);
+        assertEquals("info", Log.getEntries().get(1).message);
+    }
+
+    @Test
+    public void removedRuleRestoresLevels() {
+        HandroidLoggerAdapter.setSampling(null, Log.DEBUG, 1);
+        HandroidLoggerAdapter.setSampling(null, Log.DEBUG, 0);
+        logger.debug("not logged");
+        HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setDebug(true).build());
+        logger.debug("logged");
+        assertEquals(1, Log.getEntries().size());
+        assertEquals("logged", Log.getEntries().get(0).message);
+    }
+
+    @Test
+    public void loggersSharingTagHaveSeparateRules() {
+        final HandroidLoggerAdapter client = new HandroidLoggerAdapter("com.acme.net.Client", "Client");
+        final HandroidLoggerAdapter otherClient = new HandroidLoggerAdapter("org.other.Client", "Client");
+        HandroidLoggerAdapter.setSampling("com.acme.net.Client", Log.DEBUG, 1);
+        client.debug("logged");
+        otherClient.debug("not logged");
+        assertEquals(1, Log.getEntries().size());
+        assertEquals("[sampled 1/1] logged", Log.getEntries().get(0).message);
+    }
+
+    @Test
+    public void thresholdStillApplies() {
+        final HandroidLoggerAdapter client = new HandroidLoggerAdapter("com.acme.net.Client", "Client");
+        HandroidLoggerAdapter.setSampling(null, Log.DEBUG, 1);
+        HandroidLoggerAdapter.setSampling(null, Log.ERROR, 1);
+        HandroidLoggerAdapter.setLevel("com.acme", Log.ASSERT + 1);
+        client.debug("off");
+        client.error("off");
+        assertEquals(0, Log.getEntries().size());
+        HandroidLoggerAdapter.setLevel("com.acme", Log.INFO);
+        client.debug("below threshold");
+        client.error("loggable anyway");
+        assertEquals(1, Log.getEntries().size());
+        assertEquals("loggable anyway", Log.getEntries().get(0).message);
+    }
+
+    @Test
+    public void loggableLevelsAreNotSampled() {
+        HandroidLoggerAdapter.setSampling(null, Log.DEBUG, 1000000);
+        HandroidLoggerAdapter.setConfig(HandroidConfig.builder().setDebug(true).build());
+        for (int i = 0; i < 100; i++) {
+            logger.debug("debug {}", i);
+        }
+        assertEquals(100, Log.getEntries().size());
+        assertEquals("debug 0", Log.getEntries().get(0).message);
+        HandroidLoggerAdapter.setConfig(HandroidConfig.DEFAULT);
+        HandroidLoggerAdapter.setSampling(null, Log.DEBUG, 1);
+        logger.debug("sampled");
+        assertEquals("[sampled 1/1] sampled", Log.getEntries().get(100).message);
+    }
+
+    @Test
+    public void messagesRefusedBySinksAreNotSampled() {
+        final int[] toStringCalls = new int[1];
+        final Object arg = new Object() {
+            @Override
+            public String toString() {
+                toStringCalls[0]++;
+                return "arg";
+            }
+        };
+        HandroidLoggerAdapter.setSampling(null, Log.DEBUG, 1);
+        HandroidLoggerAdapter.addSink(LogcatSink.INSTANCE, Log.INFO);
+        try {
+            logger.debug("not logged {}", arg);
+            assertEquals(0, Log.getEntries().size());
+            assertEquals(0, toStringCalls[0]);
+        } finally {
+            HandroidLoggerAdapter.addSink(LogcatSink.INSTANCE, Log.VERBOSE);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPercentage() {
+        HandroidLoggerAdapter.setSamplingPercentage(null, Log.DEBUG, 101);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class StackTraceDeduplicatorTest {
+
+    private static Exception fail(String message) {
+        return new IOException(message);
+    }
+
+    @Test
+    public void sameThrowSiteHasSameFingerprint() {
+        final Exception[] exceptions = new Exception[2];
+        for (int i = 0; i < 2; i++) {
+            exceptions[i] = fail("attempt " + i);
+        }
+        assertEquals(StackTraceDeduplicator.fingerprint(exceptions[0]), StackTraceDeduplicator.fingerprint(exceptions[1]));
+    }
+
+    @Test
+    public void differentTracesHaveDifferentFingerprints() {
+        final Exception e1 = fail("a");
+        final Exception e2 = fail("a");
+        assertNotEquals(StackTraceDeduplicator.fingerprint(e1), StackTraceDeduplicator.fingerprint(e2));
+        assertNotEquals(StackTraceDeduplicator.fingerprint(e1), StackTraceDeduplicator.fingerprint(new RuntimeException(e1)));
+    }
+
+    @Test
+    public void countsOccurrences() {
+        final StackTraceDeduplicator deduplicator = new StackTraceDeduplicator(10);
+        assertEquals(1, deduplicator.record(1));
+        assertEquals(2, deduplicator.record(1));
+        assertEquals(1, deduplicator.record(2));
+        assertEquals(3, deduplicator.record(1));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        final StackTraceDeduplicator deduplicator = new StackTraceDeduplicator(2);
+        deduplicator.record(1);
+        deduplicator.record(2);
+        deduplicator.record(1);
+        deduplicator.record(3);
+        assertEquals(3, deduplicator.record(1));
+        assertEquals(1, deduplicator.record(2));
+    }
+}
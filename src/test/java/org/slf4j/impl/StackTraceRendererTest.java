@@ -0,0 +1,91 @@
+/*
+ *  Copyright (c) 2004-2015 Martin Vysny
+ *  All rights reserved.
+ *
+ *  Permission is hereby granted, free  of charge, to any person obtaining
+ *  a  copy  of this  software  and  associated  documentation files  (the
+ *  "Software"), to  deal in  the Software without  restriction, including
+ *  without limitation  the rights to  use, copy, modify,  merge, publish,
+ *  distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ *  permit persons to whom the Software  is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The  above  copyright  notice  and  this permission  notice  shall  be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ *  EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ *  MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.slf4j.impl;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.UnknownHostException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StackTraceRendererTest {
+
+    private static String render(Throwable t, int maxFrames, int maxThrowables) {
+        final LogMessageSanitizer buffer = LogMessageSanitizer.acquire();
+        try {
+            StackTraceRenderer.render(buffer, t, maxFrames, maxThrowables);
+            return buffer.toString();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Newer JVMs prefix the frames with the module name; the renderer mimics the plain old format.
+     */
+    private static String expected(Throwable t) {
+        final String trace = HandroidLoggerAdapter.getStackTraceString(t).replaceAll("\tat [\\w.$]+(@[\\w.]+)?/", "\tat ");
+        return LogMessageSanitizer.sanitize(trace);
+    }
+
+    private static Exception createException() {
+        final Exception e = new RuntimeException("wrapper", new IOException("io", new UnknownHostException("no.such.host")));
+        e.addSuppressed(new IllegalStateException("suppressed"));
+        return e;
+    }
+
+    @Test
+    public void matchesPrintStackTrace() {
+        final Exception e = createException();
+        assertEquals(expected(e), render(e, Integer.MAX_VALUE, Integer.MAX_VALUE));
+        assertTrue(render(e, Integer.MAX_VALUE, Integer.MAX_VALUE).contains("Caused by: java.net.UnknownHostException: no.such.host"));
+    }
+
+    @Test
+    public void framesAreCapped() {
+        final Exception e = new IOException("io");
+        final int frames = e.getStackTrace().length;
+        final String trace = render(e, 2, Integer.MAX_VALUE);
+        assertEquals(3, trace.split(" at ").length);
+        assertTrue(trace, trace.endsWith("... " + (frames - 2) + " frames omitted"));
+    }
+
+    @Test
+    public void causesAreCappedButStillListed() {
+        final String trace = render(createException(), Integer.MAX_VALUE, 1);
+        assertTrue(trace, trace.contains("\nCaused by: java.net.UnknownHostException: no.such.host"));
+        assertTrue(trace, trace.endsWith("Caused by: java.net.UnknownHostException: no.such.host"));
+        assertTrue(trace, trace.contains("\n Suppressed: java.lang.IllegalStateException: suppressed\nCaused by:"));
+    }
+
+    @Test
+    public void circularReference() {
+        final IOException e1 = new IOException("e1");
+        final IOException e2 = new IOException("e2", e1);
+        e1.initCause(e2);
+        assertTrue(render(e1, Integer.MAX_VALUE, Integer.MAX_VALUE).contains("Caused by: [CIRCULAR REFERENCE:java.io.IOException: e1]"));
+    }
+}